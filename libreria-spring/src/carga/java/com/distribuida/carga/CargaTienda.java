@@ -0,0 +1,249 @@
+package com.distribuida.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Carga de la tienda contra la app ya levantada. Sesiones de invitado que llegan a una tasa fija
+// (modelo abierto: una llegada no espera a que respondan las anteriores, asi una app lenta no baja
+// la carga) y recorren catalogo -> libro -> carrito -> items -> checkout, con pausas entre pasos.
+// Todo asincrono sobre HttpClient, sin un hilo por sesion. Al final escribe, por endpoint,
+// percentiles de latencia, errores y pedidos por segundo en un JSON (carga.salida).
+// Uso: gradle cargaTienda -Pcarga.tasa=50 -Pcarga.duracion=120 -Pcarga.pausa-ms=500
+public final class CargaTienda {
+
+    // Ids de libro para elegir al azar (paginas de /libros/cards)
+    private static final int LIBROS_MAXIMOS = 1000;
+
+    private final ConfiguracionCarga config;
+    private final ExecutorService respuestas = Executors.newFixedThreadPool(4, r -> {
+        Thread hilo = new Thread(r, "carga-respuestas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private final HttpClient cliente;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<String, MedicionEndpoint> mediciones = new ConcurrentHashMap<>();
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final LongAdder sesionesIniciadas = new LongAdder();
+    private final LongAdder sesionesCompletas = new LongAdder();
+    private final LongAdder sesionesCortadas = new LongAdder();
+    private final String endpointCatalogo;
+    private List<Integer> libros;
+
+    CargaTienda(ConfiguracionCarga config) {
+        this.config = config;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.timeoutMs))
+                .executor(respuestas)
+                .build();
+        int query = config.catalogo.indexOf('?');
+        this.endpointCatalogo = "GET " + (query >= 0 ? config.catalogo.substring(0, query) : config.catalogo);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new CargaTienda(ConfiguracionCarga.desdeSistema()).correr();
+    }
+
+    void correr() throws Exception {
+        libros = librosDisponibles();
+        if (libros.isEmpty()) {
+            throw new IllegalStateException("No hay libros con stock en " + config.url + "/libros/cards");
+        }
+        System.out.printf("Carga: %.1f sesiones/s durante %d s (%d de calentamiento) contra %s, %d libros%n",
+                config.tasa, config.duracionSegundos, config.calentamientoSegundos, config.url, libros.size());
+
+        Instant desde = Instant.now();
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + TimeUnit.SECONDS.toNanos(config.calentamientoSegundos);
+        long fin = inicio + TimeUnit.SECONDS.toNanos(config.duracionSegundos);
+        double intervaloMedio = TimeUnit.SECONDS.toNanos(1) / config.tasa;
+
+        // Llegadas de Poisson: la siguiente se agenda desde la anterior, no desde que se lanzo
+        long llegada = inicio;
+        while (true) {
+            llegada += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * intervaloMedio);
+            if (llegada >= fin) break;
+            esperarHasta(llegada);
+            boolean medida = llegada >= inicioMedicion;
+            enCurso.incrementAndGet();
+            if (medida) sesionesIniciadas.increment();
+            sesion(medida).whenComplete((completa, error) -> {
+                if (medida) {
+                    if (Boolean.TRUE.equals(completa)) sesionesCompletas.increment();
+                    else sesionesCortadas.increment();
+                }
+                enCurso.decrementAndGet();
+            });
+        }
+
+        // Las sesiones que siguen abiertas tienen hasta un timeout mas para terminar
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.timeoutMs);
+        while (enCurso.get() > 0 && System.nanoTime() < limite) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        double segundos = (fin - inicioMedicion) / 1e9;
+        escribirReporte(desde, segundos, enCurso.get());
+        respuestas.shutdownNow();
+    }
+
+    // catalogo -> un libro -> carrito nuevo -> 1..maximoItems libros -> checkout (una fraccion).
+    // Si un paso falla la sesion se corta ahi, como haria el usuario. true = llego al final.
+    private CompletableFuture<Boolean> sesion(boolean medida) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        String token = "carga-" + UUID.randomUUID();
+        String porToken = "?token=" + URLEncoder.encode(token, StandardCharsets.UTF_8);
+        int items = 1 + azar.nextInt(config.maximoItems);
+        boolean compra = azar.nextDouble() < config.fraccionCheckout;
+
+        CompletableFuture<Boolean> paso = pedir(endpointCatalogo, get(config.catalogo), medida);
+        paso = despues(paso, () -> pedir("GET /libros/{id}", get("/libros/" + libro()), medida));
+        paso = despues(paso, () -> pedir("POST /api/guest/cart", post("/api/guest/cart" + porToken, null), medida));
+        for (int i = 0; i < items; i++) {
+            paso = despues(paso, () -> pedir("POST /api/guest/cart/items",
+                    post("/api/guest/cart/items" + porToken, "{\"libroId\":" + libro() + ",\"cantidad\":1}"), medida));
+        }
+        if (compra) {
+            paso = despues(paso, () -> pedir("POST /api/guest/checkout", post("/api/guest/checkout" + porToken, null), medida));
+        }
+        return paso;
+    }
+
+    private CompletableFuture<Boolean> despues(CompletableFuture<Boolean> anterior, Supplier<CompletableFuture<Boolean>> siguiente) {
+        return anterior.thenCompose(ok -> {
+            if (!ok) return CompletableFuture.completedFuture(false);
+            if (config.pausaMs == 0) return siguiente.get();
+            // Pausa exponencial de media pausaMs, sin ocupar un hilo mientras tanto
+            long pausa = (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * config.pausaMs);
+            return CompletableFuture.supplyAsync(siguiente,
+                            CompletableFuture.delayedExecutor(pausa, TimeUnit.MILLISECONDS, respuestas))
+                    .thenCompose(pedido -> pedido);
+        });
+    }
+
+    private CompletableFuture<Boolean> pedir(String endpoint, HttpRequest request, boolean medida) {
+        long antes = System.nanoTime();
+        return cliente.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((respuesta, error) -> {
+                    int estado = respuesta != null ? respuesta.statusCode() : -1;
+                    if (medida) {
+                        mediciones.computeIfAbsent(endpoint, e -> new MedicionEndpoint())
+                                .registrar(System.nanoTime() - antes, estado);
+                    }
+                    return estado >= 200 && estado < 300;
+                });
+    }
+
+    private HttpRequest get(String ruta) {
+        return pedido(ruta).GET().build();
+    }
+
+    private HttpRequest post(String ruta, String json) {
+        HttpRequest.Builder builder = pedido(ruta);
+        if (json == null) return builder.POST(HttpRequest.BodyPublishers.noBody()).build();
+        return builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest.Builder pedido(String ruta) {
+        return HttpRequest.newBuilder(URI.create(config.url + ruta))
+                .timeout(Duration.ofMillis(config.timeoutMs));
+    }
+
+    private int libro() {
+        return libros.get(ThreadLocalRandom.current().nextInt(libros.size()));
+    }
+
+    // Recorre /libros/cards por cursor hasta juntar LIBROS_MAXIMOS libros con stock
+    private List<Integer> librosDisponibles() throws IOException, InterruptedException {
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            String ruta = "/libros/cards?size=100"
+                    + (cursor != null ? "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8) : "");
+            HttpResponse<String> respuesta = cliente.send(get(ruta), HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() != 200) {
+                throw new IllegalStateException("GET " + ruta + " respondio " + respuesta.statusCode());
+            }
+            JsonNode pagina = mapper.readTree(respuesta.body());
+            for (JsonNode card : pagina.path("items")) {
+                if (card.path("disponible").asBoolean(true)) ids.add(card.path("idLibro").asInt());
+            }
+            cursor = pagina.path("cursorSiguiente").isTextual() ? pagina.path("cursorSiguiente").asText() : null;
+        } while (cursor != null && ids.size() < LIBROS_MAXIMOS);
+        return ids;
+    }
+
+    private void escribirReporte(Instant desde, double segundos, int sinTerminar) throws IOException {
+        Map<String, Object> endpoints = new TreeMap<>();
+        mediciones.forEach((endpoint, medicion) -> endpoints.put(endpoint, medicion.resumen(segundos)));
+
+        Map<String, Object> sesiones = new LinkedHashMap<>();
+        sesiones.put("iniciadas", sesionesIniciadas.sum());
+        sesiones.put("completas", sesionesCompletas.sum());
+        sesiones.put("cortadas", sesionesCortadas.sum());
+        sesiones.put("sinTerminar", sinTerminar);
+
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("commit", config.commit);
+        reporte.put("inicio", desde.toString());
+        reporte.put("segundosMedidos", segundos);
+        reporte.put("configuracion", config.comoMapa());
+        reporte.put("sesiones", sesiones);
+        reporte.put("endpoints", endpoints);
+
+        Path salida = Paths.get(config.salida);
+        if (salida.getParent() != null) Files.createDirectories(salida.getParent());
+        mapper.writeValue(salida.toFile(), reporte);
+
+        System.out.println("endpoint                        pedidos   pedidos/s  errores   p50(ms)   p99(ms)  p99.9(ms)");
+        endpoints.forEach((endpoint, valor) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> resumen = (Map<String, Object>) valor;
+            System.out.printf("%-30s %8d %11.1f %8d %9.1f %9.1f %10.1f%n", endpoint,
+                    resumen.get("pedidos"), resumen.get("porSegundo"), resumen.get("errores"),
+                    resumen.get("p50Ms"), resumen.get("p99Ms"), resumen.get("p999Ms"));
+        });
+        System.out.printf("sesiones: %d iniciadas, %d completas, %d cortadas, %d sin terminar%n",
+                sesionesIniciadas.sum(), sesionesCompletas.sum(), sesionesCortadas.sum(), sinTerminar);
+        System.out.println("Reporte: " + salida.toAbsolutePath());
+    }
+
+    private static void esperarHasta(long nanos) {
+        long falta;
+        while ((falta = nanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(falta);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.distribuida.carga;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Parametros de la corrida, como propiedades de sistema carga.* (la tarea cargaTienda pasa los -Pcarga.*)
+final class ConfiguracionCarga {
+
+    // App ya levantada (gradle bootRun)
+    final String url;
+    // Sesiones nuevas por segundo; llegan con intervalos exponenciales (Poisson), respondan o no
+    final double tasa;
+    final int duracionSegundos;
+    // Lo que llega en los primeros segundos no entra en el reporte
+    final int calentamientoSegundos;
+    // Pausa media entre pasos de una sesion (exponencial); 0 = sin pausas
+    final long pausaMs;
+    // Libros por carrito: entre 1 y este valor
+    final int maximoItems;
+    // Fraccion de sesiones que termina en checkout; el resto abandona el carrito
+    final double fraccionCheckout;
+    final String catalogo;
+    final long timeoutMs;
+    final String salida;
+    final String commit;
+
+    private ConfiguracionCarga() {
+        url = texto("carga.url", "http://localhost:8080").replaceAll("/+$", "");
+        tasa = numero("carga.tasa", 20);
+        duracionSegundos = (int) numero("carga.duracion", 60);
+        calentamientoSegundos = (int) numero("carga.calentamiento", 10);
+        pausaMs = (long) numero("carga.pausa-ms", 1000);
+        maximoItems = (int) numero("carga.items", 3);
+        fraccionCheckout = numero("carga.checkout", 0.3);
+        catalogo = texto("carga.catalogo", "/libros/cards?size=20");
+        timeoutMs = (long) numero("carga.timeout-ms", 30000);
+        salida = texto("carga.salida", "build/carga/resultado.json");
+        commit = texto("carga.commit", "");
+
+        if (tasa <= 0) throw new IllegalArgumentException("carga.tasa debe ser positiva");
+        if (duracionSegundos <= 0 || calentamientoSegundos < 0 || calentamientoSegundos >= duracionSegundos) {
+            throw new IllegalArgumentException("carga.calentamiento debe ser menor que carga.duracion");
+        }
+        if (pausaMs < 0 || maximoItems <= 0 || timeoutMs <= 0) {
+            throw new IllegalArgumentException("carga.pausa-ms, carga.items y carga.timeout-ms no pueden ser negativos");
+        }
+        if (fraccionCheckout < 0 || fraccionCheckout > 1) {
+            throw new IllegalArgumentException("carga.checkout debe estar entre 0 y 1");
+        }
+    }
+
+    static ConfiguracionCarga desdeSistema() {
+        return new ConfiguracionCarga();
+    }
+
+    // Para el reporte: con que se corrio
+    Map<String, Object> comoMapa() {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        mapa.put("url", url);
+        mapa.put("tasa", tasa);
+        mapa.put("duracionSegundos", duracionSegundos);
+        mapa.put("calentamientoSegundos", calentamientoSegundos);
+        mapa.put("pausaMs", pausaMs);
+        mapa.put("maximoItems", maximoItems);
+        mapa.put("fraccionCheckout", fraccionCheckout);
+        mapa.put("catalogo", catalogo);
+        mapa.put("timeoutMs", timeoutMs);
+        return mapa;
+    }
+
+    private static String texto(String clave, String porDefecto) {
+        String valor = System.getProperty(clave);
+        return valor == null || valor.isBlank() ? porDefecto : valor.trim();
+    }
+
+    private static double numero(String clave, double porDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null || valor.isBlank()) return porDefecto;
+        try {
+            return Double.parseDouble(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(clave + " no es un numero: " + valor);
+        }
+    }
+}
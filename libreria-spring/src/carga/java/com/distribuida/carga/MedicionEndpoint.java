@@ -0,0 +1,49 @@
+package com.distribuida.carga;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencias y resultados de un endpoint (metodo + ruta con {id}/{token} en vez del valor)
+final class MedicionEndpoint {
+
+    private final ConcurrentLinkedQueue<Long> latencias = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<String, LongAdder> estados = new ConcurrentHashMap<>();
+    private final LongAdder errores = new LongAdder();
+
+    // estado -1: sin respuesta (timeout, conexion rechazada). Error = sin respuesta o 4xx/5xx.
+    void registrar(long nanos, int estado) {
+        latencias.add(nanos);
+        estados.computeIfAbsent(estado < 0 ? "sin-respuesta" : String.valueOf(estado), e -> new LongAdder()).increment();
+        if (estado < 0 || estado >= 400) errores.increment();
+    }
+
+    Map<String, Object> resumen(double segundos) {
+        long[] ordenadas = latencias.stream().mapToLong(Long::longValue).sorted().toArray();
+        long pedidos = ordenadas.length;
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("pedidos", pedidos);
+        resumen.put("errores", errores.sum());
+        resumen.put("tasaErrores", pedidos == 0 ? 0.0 : errores.sum() / (double) pedidos);
+        resumen.put("porSegundo", pedidos / segundos);
+        resumen.put("p50Ms", percentil(ordenadas, 0.50));
+        resumen.put("p90Ms", percentil(ordenadas, 0.90));
+        resumen.put("p99Ms", percentil(ordenadas, 0.99));
+        resumen.put("p999Ms", percentil(ordenadas, 0.999));
+        resumen.put("maxMs", pedidos == 0 ? 0.0 : ordenadas[ordenadas.length - 1] / 1e6);
+        Map<String, Long> porEstado = new LinkedHashMap<>();
+        estados.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> porEstado.put(e.getKey(), e.getValue().sum()));
+        resumen.put("estados", porEstado);
+        return resumen;
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) return 0.0;
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+}
@@ -0,0 +1,67 @@
+package com.distribuida.benchmark;
+
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Totales del carrito: el recorrido completo (recomputarTotales), el ajuste por una linea
+// (aplicarDelta) y el total por linea (calcTotal), segun la cantidad de lineas
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CarritoBenchmark {
+
+    private static final BigDecimal IVA = new BigDecimal("0.15");
+
+    @Param({"1", "10", "50", "200"})
+    private int lineas;
+
+    private Carrito carrito;
+    private CarritoItem ultima;
+
+    @Setup
+    public void setUp() {
+        carrito = Datos.carrito(lineas);
+        ultima = carrito.getItems().get(lineas - 1);
+    }
+
+    @Benchmark
+    public BigDecimal recomputarTotales() {
+        carrito.recomputarTotales(IVA);
+        return carrito.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal aplicarDelta() {
+        // Sube y baja la cantidad de la ultima linea: el subtotal no se desvia entre iteraciones
+        BigDecimal antes = Carrito.aporte(ultima);
+        ultima.setCantidad(ultima.getCantidad() + 1);
+        ultima.calcTotal();
+        carrito.aplicarDelta(antes, Carrito.aporte(ultima), IVA);
+
+        BigDecimal despues = Carrito.aporte(ultima);
+        ultima.setCantidad(ultima.getCantidad() - 1);
+        ultima.calcTotal();
+        carrito.aplicarDelta(despues, Carrito.aporte(ultima), IVA);
+        return carrito.getTotal();
+    }
+
+    @Benchmark
+    public void calcTotal(Blackhole bh) {
+        for (CarritoItem item : carrito.getItems()) {
+            item.calcTotal();
+            bh.consume(item.getTotal());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.distribuida.benchmark;
+
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import com.distribuida.model.Factura;
+import com.distribuida.service.util.CheckoutMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Armado de la factura en el checkout (GuestCheckoutServiceImpl), sin la parte de base de datos
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CheckoutBenchmark {
+
+    private static final double IVA = 0.15d;
+
+    @Param({"1", "10", "50", "200"})
+    private int lineas;
+
+    private Carrito carrito;
+
+    @Setup
+    public void setUp() {
+        carrito = Datos.carrito(lineas);
+    }
+
+    @Benchmark
+    public Factura construirFactura() {
+        return CheckoutMapper.construirFacturaDesdeCarrito(carrito, "F-0000000001", IVA);
+    }
+
+    @Benchmark
+    public void construirFacturaConDetalles(Blackhole bh) {
+        Factura factura = CheckoutMapper.construirFacturaDesdeCarrito(carrito, "F-0000000001", IVA);
+        for (CarritoItem item : carrito.getItems()) {
+            bh.consume(CheckoutMapper.construirDetalle(factura, item));
+        }
+        bh.consume(factura);
+    }
+}
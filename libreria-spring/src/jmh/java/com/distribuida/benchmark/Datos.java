@@ -0,0 +1,81 @@
+package com.distribuida.benchmark;
+
+import com.distribuida.model.Autor;
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import com.distribuida.model.Categoria;
+import com.distribuida.model.Cliente;
+import com.distribuida.model.Libro;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+// Datos de prueba de los benchmarks: un carrito de n lineas con libros distintos, como lo deja
+// CarritoServiceImpl (precio unitario del libro, totales por linea y del carrito ya calculados)
+final class Datos {
+
+    private Datos() { }
+
+    static Carrito carrito(int lineas) {
+        Cliente cliente = new Cliente();
+        cliente.setIdCliente(1);
+        cliente.setCedula("1700000001");
+        cliente.setNombre("Ana");
+        cliente.setApellido("Torres");
+        cliente.setCorreo("ana@correo.com");
+
+        Carrito carrito = new Carrito();
+        carrito.setIdCarrito(1L);
+        carrito.setToken("3f2c9a1e-7b4d-4c1e-9a55-0d6f1e2b8c10");
+        carrito.setCliente(cliente);
+        carrito.setVersion(0L);
+        carrito.setActualizadoEn(LocalDateTime.of(2025, 1, 15, 10, 30));
+        for (int i = 0; i < lineas; i++) {
+            Libro libro = libro(i + 1);
+            CarritoItem item = new CarritoItem();
+            item.setIdCarritoItem((long) i + 1);
+            item.setCarrito(carrito);
+            item.setLibro(libro);
+            item.setCantidad(1 + i % 3);
+            item.setPrecioUnitario(BigDecimal.valueOf(libro.getPrecio()));
+            item.setVersion(0L);
+            item.calcTotal();
+            carrito.getItems().add(item);
+        }
+        carrito.recomputarTotales(new BigDecimal("0.15"));
+        return carrito;
+    }
+
+    static Libro libro(int id) {
+        Categoria categoria = new Categoria();
+        categoria.setIdCategoria(1 + id % 5);
+        categoria.setCategoria("Novela");
+        categoria.setDescripcion("Narrativa contemporanea");
+
+        Autor autor = new Autor();
+        autor.setIdAutor(1 + id % 7);
+        autor.setNombre("Gabriel");
+        autor.setApellido("Garcia");
+        autor.setPais("Colombia");
+
+        Libro libro = new Libro();
+        libro.setIdLibro(id);
+        libro.setTitulo("Libro " + id);
+        libro.setEditorial("Editorial Distribuida");
+        libro.setNumPaginas(200 + id % 300);
+        libro.setEdicion("1ra");
+        libro.setIdioma("Espanol");
+        libro.setFechaPublicacion(new Date(1_600_000_000_000L + id * 86_400_000L));
+        libro.setDescripcion("Descripcion del libro " + id);
+        libro.setTipoPasta("Blanda");
+        libro.setIsbn(String.format("978-0-%09d", id));
+        libro.setNumEjemplares(10);
+        libro.setPortada("portadas/" + String.format("%064x", id) + ".jpg");
+        libro.setPresentacion("Impreso");
+        libro.setPrecio(9.99 + id % 40);
+        libro.setCategoria(categoria);
+        libro.setAutor(autor);
+        return libro;
+    }
+}
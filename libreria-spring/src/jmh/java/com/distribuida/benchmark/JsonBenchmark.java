@@ -0,0 +1,55 @@
+package com.distribuida.benchmark;
+
+import com.distribuida.model.Carrito;
+import com.distribuida.model.Libro;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serializacion JSON de lo que devuelven /api/carrito y /api/libros, con un mapper configurado
+// como el de Spring Boot (modulos del classpath, fechas como texto)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    private int lineas;
+
+    private ObjectWriter writer;
+    private Carrito carrito;
+    private List<Libro> libros;
+
+    @Setup
+    public void setUp() {
+        writer = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writer();
+        carrito = Datos.carrito(lineas);
+        libros = carrito.getItems().stream().map(item -> item.getLibro()).toList();
+    }
+
+    @Benchmark
+    public byte[] carrito() throws JsonProcessingException {
+        return writer.writeValueAsBytes(carrito);
+    }
+
+    @Benchmark
+    public byte[] libros() throws JsonProcessingException {
+        return writer.writeValueAsBytes(libros);
+    }
+}
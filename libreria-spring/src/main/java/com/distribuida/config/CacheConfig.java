@@ -0,0 +1,25 @@
+package com.distribuida.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+@Configuration
+public class CacheConfig {
+
+    // Un solo CacheManager de Caffeine para Hibernate y para las estadisticas de /api/cache
+    @Bean(destroyMethod = "close")
+    public CacheManager jcacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager jcacheManager) {
+        return propiedades -> propiedades.put(ConfigSettings.CACHE_MANAGER, jcacheManager);
+    }
+}
@@ -0,0 +1,31 @@
+package com.distribuida.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// spring.threads.virtual.enabled: con Java 21 Spring Boot pone en hilos virtuales el executor de
+// Tomcat, el de @Async y el scheduler. Con Java 17 lo ignora sin avisar; aca se avisa al arrancar.
+@Configuration
+public class HilosVirtualesConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(HilosVirtualesConfig.class);
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> avisoHilosVirtuales(
+            @Value("${spring.threads.virtual.enabled:false}") boolean pedidos) {
+        return evento -> {
+            if (!pedidos) return;
+            int version = Runtime.version().feature();
+            if (version < 21) {
+                log.warn("spring.threads.virtual.enabled=true sin efecto en Java {}: los requests siguen en el pool de Tomcat", version);
+            } else {
+                log.info("Requests, @Async y @Scheduled en hilos virtuales (Java {})", version);
+            }
+        };
+    }
+}
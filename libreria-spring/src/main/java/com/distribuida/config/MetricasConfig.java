@@ -0,0 +1,50 @@
+package com.distribuida.config;
+
+import com.distribuida.service.carrito.LimpiezaCarritos;
+import com.distribuida.service.carrito.ReintentoOptimista;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Metricas para /actuator/prometheus. Lo que ya da Spring Boot: http.server.requests,
+// spring.data.repository.invocations (cada llamada a un repositorio), hikaricp.* (pool) e
+// hibernate.* (estadisticas, con generate_statistics). Aca: los @Timed de servicios y
+// controladores, y las estadisticas que ya juntan los componentes de carrito.
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder metricasCarrito(LimpiezaCarritos limpiezaCarritos, ReintentoOptimista reintentoOptimista) {
+        return registry -> {
+            FunctionCounter.builder("libreria.carrito.conflictos", reintentoOptimista,
+                            reintento -> reintento.estadisticas().getConflictos())
+                    .description("Cambios de carrito que chocaron con otro (version vieja)")
+                    .register(registry);
+            FunctionCounter.builder("libreria.carrito.reintentos.agotados", reintentoOptimista,
+                            reintento -> reintento.estadisticas().getReintentosAgotados())
+                    .description("Cambios de carrito que siguieron chocando despues de todos los reintentos")
+                    .register(registry);
+            FunctionCounter.builder("libreria.carrito.limpieza.carritos", limpiezaCarritos,
+                            limpieza -> limpieza.estadisticas().getCarritosBorrados())
+                    .description("Carritos de invitado abandonados borrados")
+                    .register(registry);
+            FunctionCounter.builder("libreria.carrito.limpieza.items", limpiezaCarritos,
+                            limpieza -> limpieza.estadisticas().getItemsBorrados())
+                    .register(registry);
+            Gauge.builder("libreria.carrito.limpieza.duracion", limpiezaCarritos,
+                            limpieza -> limpieza.estadisticas().getUltimaDuracionMs())
+                    .description("Duracion de la ultima pasada de limpieza")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.distribuida.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas periodicas (flush de los carritos en memoria)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -4,7 +4,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -16,17 +15,12 @@ public class WebConfig implements WebMvcConfigurer{
             public void addCorsMappings(CorsRegistry corsRegistry){
                 corsRegistry.addMapping("/**")
                         .allowedOrigins("http://localhost:4200")
-                        .allowedMethods("GET","POST","PUT","DELETE","OPTIONS")
+                        .allowedMethods("GET","POST","PUT","PATCH","DELETE","OPTIONS")
                         .allowedHeaders("*")
+                        // Para que el cliente pueda leer el ETag y mandarlo en If-None-Match
+                        .exposedHeaders("ETag")
                         .allowCredentials(true);
             }
         };
     }
-
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry ){
-        registry.addResourceHandler("/portadas/**")
-                .addResourceLocations("file:uploads/portadas/");
-    }
 }
@@ -0,0 +1,32 @@
+package com.distribuida.controller;
+
+import com.distribuida.dto.EstadisticaCache;
+import com.distribuida.service.EstadisticasCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    @Autowired
+    private EstadisticasCacheService estadisticasCacheService;
+
+    @GetMapping("/estadisticas")
+    public ResponseEntity<List<EstadisticaCache>> estadisticas(){
+        return ResponseEntity.ok(estadisticasCacheService.findAll());
+    }
+
+    @DeleteMapping("/{region}")
+    public ResponseEntity<Void> evict(@PathVariable String region){
+        try {
+            estadisticasCacheService.evict(region);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.distribuida.controller;
 
+import com.distribuida.dto.OperacionCarritoRequest;
 import com.distribuida.model.Carrito;
 import com.distribuida.service.CarritoService;
+import com.distribuida.service.util.ETags;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -28,9 +34,16 @@ public class CarritoGuestController {
     }
 
 
+    // El cliente consulta el carrito seguido: si no cambio desde su ETag, 304 sin cuerpo
     @GetMapping
-    public ResponseEntity<Carrito> get(@RequestParam String token){
-        return ResponseEntity.ok(carritoService.getByToken(token));
+    public ResponseEntity<Carrito> get(@RequestParam String token,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        Carrito carrito = carritoService.getByToken(token);
+        String etag = ETags.deCarrito(carrito);
+        if (ETags.coincide(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(carrito);
     }
 
     @PostMapping("/items")
@@ -40,6 +53,12 @@ public class CarritoGuestController {
         return ResponseEntity.ok(carritoService.addItem(token, libroId, cantidad));
     }
 
+    // Varias altas / cambios / bajas en una sola transaccion
+    @PatchMapping("/items")
+    public ResponseEntity<Carrito> patchItems(@RequestParam String token, @RequestBody List<OperacionCarritoRequest> operaciones){
+        return ResponseEntity.ok(carritoService.aplicarOperaciones(token, operaciones));
+    }
+
     @PutMapping("/items/{carritoItemId}")
     public ResponseEntity<Carrito> update(@RequestParam String token,
                                           @PathVariable long carritoItemId,
@@ -0,0 +1,24 @@
+package com.distribuida.controller;
+
+import com.distribuida.dto.EstadisticaConflictos;
+import com.distribuida.service.carrito.ReintentoOptimista;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/carritos/conflictos")
+public class ConcurrenciaCarritoController {
+
+    private final ReintentoOptimista reintentoOptimista;
+
+    public ConcurrenciaCarritoController(ReintentoOptimista reintentoOptimista){
+        this.reintentoOptimista = reintentoOptimista;
+    }
+
+    @GetMapping
+    public ResponseEntity<EstadisticaConflictos> estadisticas(){
+        return ResponseEntity.ok(reintentoOptimista.estadisticas());
+    }
+}
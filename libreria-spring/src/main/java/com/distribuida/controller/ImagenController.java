@@ -1,5 +1,9 @@
 package com.distribuida.controller;
 
+import com.distribuida.dto.ResultadoCompactacionPortadas;
+import com.distribuida.service.portadas.AlmacenPortadas;
+import com.distribuida.service.portadas.MiniaturasPortadas;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -9,49 +13,61 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api")
 public class ImagenController {
 
-    private static final String UPLOAD_DIR = "uploads/portadas/";
+    private final AlmacenPortadas almacenPortadas;
+    private final MiniaturasPortadas miniaturasPortadas;
+
+    public ImagenController(AlmacenPortadas almacenPortadas, MiniaturasPortadas miniaturasPortadas) {
+        this.almacenPortadas = almacenPortadas;
+        this.miniaturasPortadas = miniaturasPortadas;
+    }
 
     @PostMapping("/upload-portada")
+    @Timed("libreria.portadas.subida")
     public ResponseEntity<Map<String, String>> uploadPortada(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "oldImage", required = false) String oldImage
     ) {
         try {
 
-            Files.createDirectories(Paths.get(UPLOAD_DIR));
-
-
-            String filename = UUID.randomUUID() + "_" + file.getOriginalFilename();
-            Path path = Paths.get(UPLOAD_DIR + filename);
-
-
-            Files.write(path, file.getBytes());
+            // Misma imagen, misma ruta: se guarda una sola vez por contenido. Se lee del stream de la
+            // parte (que Tomcat ya dejo en disco), sin cargar la imagen entera en memoria
+            String ruta;
+            try (InputStream contenido = file.getInputStream()) {
+                ruta = almacenPortadas.guardar(contenido);
+            }
+            // Las miniaturas se hacen fuera de este hilo; la respuesta no las espera
+            miniaturasPortadas.programar(ruta);
 
 
-            if (oldImage != null && !oldImage.isEmpty()) {
-                Path oldImagePath = Paths.get(UPLOAD_DIR + oldImage);
-                Files.deleteIfExists(oldImagePath);
+            // Solo se borra si ningun libro la sigue usando
+            if (oldImage != null && !oldImage.isEmpty() && !ruta.equals(oldImage)) {
+                almacenPortadas.liberar(oldImage);
             }
 
 
             Map<String, String> response = new HashMap<>();
-            response.put("ruta", "portadas/" + filename);
+            response.put("ruta", ruta);
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Error al subir la imagen: " + e.getMessage()));
         }
     }
+
+    // Pasa las portadas viejas (UUID_nombre) a su hash y borra las que ningun libro usa
+    @PostMapping("/portadas/compactar")
+    public ResponseEntity<ResultadoCompactacionPortadas> compactarPortadas() throws IOException {
+        return ResponseEntity.ok(almacenPortadas.compactar());
+    }
 }
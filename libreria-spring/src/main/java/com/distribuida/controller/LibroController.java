@@ -1,14 +1,25 @@
 package com.distribuida.controller;
 
 
+import com.distribuida.dto.LibroCard;
+import com.distribuida.dto.PaginaCursor;
+import com.distribuida.dto.ResultadoFacetas;
+import com.distribuida.dto.Sugerencia;
 import com.distribuida.model.Libro;
 import com.distribuida.service.LibroService;
+import com.distribuida.service.util.ETags;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -24,13 +35,66 @@ public class LibroController {
         return ResponseEntity.ok(libros);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PaginaCursor<Libro>> findPage(@RequestParam(defaultValue = "20") int size,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) String sort){
+        try {
+            return ResponseEntity.ok(libroService.findPage(size, cursor, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/cards")
+    public ResponseEntity<PaginaCursor<LibroCard>> findCards(@RequestParam(defaultValue = "20") int size,
+                                                             @RequestParam(required = false) String cursor){
+        try {
+            return ResponseEntity.ok(libroService.findCards(size, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<LibroCard>> search(@RequestParam String q,
+                                                  @RequestParam(defaultValue = "20") int limit){
+        return ResponseEntity.ok(libroService.search(q, limit));
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Sugerencia>> autocomplete(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "10") int k){
+        return ResponseEntity.ok(libroService.autocomplete(q, k));
+    }
+
+    // Ej: /libros/facets?categoria=Novela&categoria=Poesia&idioma=Español&precio=10-20&stock=disponible
+    @GetMapping("/facets")
+    public ResponseEntity<ResultadoFacetas> facets(@RequestParam MultiValueMap<String, String> params){
+        int limit = 20;
+        Map<String, List<String>> filtros = new LinkedHashMap<>(params);
+        List<String> limitParam = filtros.remove("limit");
+        try {
+            if (limitParam != null && !limitParam.isEmpty()) limit = Integer.parseInt(limitParam.get(0));
+            return ResponseEntity.ok(libroService.facets(filtros, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Libro> findOne(@PathVariable int id){
+    public ResponseEntity<Libro> findOne(@PathVariable int id,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
         Libro libro = libroService.findOne(id);
         if (libro == null){
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(libro);
+        // Huella de los campos (el libro suele salir del cache de segundo nivel), no del JSON
+        String etag = ETags.deLibro(libro);
+        if (ETags.coincide(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(libro);
     }
 
     @PostMapping
@@ -0,0 +1,28 @@
+package com.distribuida.controller;
+
+import com.distribuida.dto.EstadisticaLimpieza;
+import com.distribuida.service.carrito.LimpiezaCarritos;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/carritos/limpieza")
+public class LimpiezaCarritoController {
+
+    private final LimpiezaCarritos limpiezaCarritos;
+
+    public LimpiezaCarritoController(LimpiezaCarritos limpiezaCarritos){
+        this.limpiezaCarritos = limpiezaCarritos;
+    }
+
+    @GetMapping("/estadisticas")
+    public ResponseEntity<EstadisticaLimpieza> estadisticas(){
+        return ResponseEntity.ok(limpiezaCarritos.estadisticas());
+    }
+
+    // Corre una pasada ahora, sin esperar a la programada
+    @PostMapping
+    public ResponseEntity<EstadisticaLimpieza> limpiar(){
+        return ResponseEntity.ok(limpiezaCarritos.limpiar());
+    }
+}
@@ -0,0 +1,60 @@
+package com.distribuida.controller;
+
+import com.distribuida.service.portadas.AlmacenPortadas;
+import com.distribuida.service.portadas.EntregaPortadas;
+import com.distribuida.service.portadas.MiniaturasPortadas;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Archivos de portada: /portadas/{nombre} tal cual esta en disco y /portadas/{nombre}?w=240 la
+// miniatura mas cercana a ese ancho. Cabeceras de cache, 304 y Range los resuelve EntregaPortadas.
+@RestController
+public class PortadaController {
+
+    private final AlmacenPortadas almacenPortadas;
+    private final MiniaturasPortadas miniaturasPortadas;
+    private final EntregaPortadas entregaPortadas;
+
+    public PortadaController(AlmacenPortadas almacenPortadas,
+                             MiniaturasPortadas miniaturasPortadas,
+                             EntregaPortadas entregaPortadas) {
+        this.almacenPortadas = almacenPortadas;
+        this.miniaturasPortadas = miniaturasPortadas;
+        this.entregaPortadas = entregaPortadas;
+    }
+
+    @GetMapping("/portadas/{nombre}")
+    public void portada(@PathVariable String nombre, HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        Path archivo = almacenPortadas.archivo(nombre);
+        if (archivo == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        entregaPortadas.servir(archivo, true, request, response);
+    }
+
+    @GetMapping(value = "/portadas/{nombre}", params = "w")
+    public void miniatura(@PathVariable String nombre, @RequestParam("w") int ancho,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (ancho <= 0) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        Path archivo = miniaturasPortadas.resolver(nombre, ancho);
+        if (archivo == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // El original que se sirve mientras falta la miniatura no puede quedar cacheado un anio
+        boolean esMiniatura = !archivo.equals(almacenPortadas.archivo(nombre));
+        entregaPortadas.servir(archivo, esMiniatura, request, response);
+    }
+}
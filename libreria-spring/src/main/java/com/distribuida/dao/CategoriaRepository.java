@@ -1,12 +1,19 @@
 package com.distribuida.dao;
 
 import com.distribuida.model.Categoria;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 //@Repository
 public interface CategoriaRepository extends JpaRepository<Categoria, Integer> {
 
+    // Cache de consultas: el resultado se invalida solo cuando cambia la tabla
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "consultas-referencia")
+    })
     Categoria findByCategoria(String categoria);
 
 }
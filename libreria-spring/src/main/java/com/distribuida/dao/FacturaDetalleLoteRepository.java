@@ -0,0 +1,12 @@
+package com.distribuida.dao;
+
+import com.distribuida.model.FacturaDetalle;
+
+import java.util.List;
+
+// Fragmento de FacturaDetalleRepository para guardar las lineas de una factura en batch
+public interface FacturaDetalleLoteRepository {
+
+    // Inserta todas las lineas con JDBC batch; no asigna idFacturaDetalle a las entidades
+    void insertarEnLote(List<FacturaDetalle> detalles);
+}
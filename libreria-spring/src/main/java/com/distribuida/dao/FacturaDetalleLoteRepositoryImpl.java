@@ -0,0 +1,34 @@
+package com.distribuida.dao;
+
+import com.distribuida.model.FacturaDetalle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+
+public class FacturaDetalleLoteRepositoryImpl implements FacturaDetalleLoteRepository {
+
+    // Con IDENTITY Hibernate inserta fila por fila para leer cada id; aqui no hace falta el id,
+    // asi que un batch JDBC basta. Con rewriteBatchedStatements=true MySQL lo recibe como un
+    // solo INSERT multi-fila.
+    private static final String INSERTAR =
+            "insert into factura_detalle (cantidad, subtotal, id_libro, id_factura) values (?, ?, ?, ?)";
+    private static final int TAMANIO_LOTE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FacturaDetalleLoteRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertarEnLote(List<FacturaDetalle> detalles) {
+        if (detalles.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERTAR, detalles, TAMANIO_LOTE, (ps, detalle) -> {
+            ps.setInt(1, detalle.getCantidad());
+            ps.setObject(2, detalle.getSubtotal(), Types.DOUBLE);
+            ps.setObject(3, detalle.getLibro() != null ? detalle.getLibro().getIdLibro() : null, Types.INTEGER);
+            ps.setObject(4, detalle.getFactura() != null ? detalle.getFactura().getIdFactura() : null, Types.INTEGER);
+        });
+    }
+}
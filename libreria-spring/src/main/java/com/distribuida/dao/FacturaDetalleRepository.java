@@ -1,7 +1,21 @@
 package com.distribuida.dao;
 
 import com.distribuida.model.FacturaDetalle;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface FacturaDetalleRepository  extends JpaRepository<FacturaDetalle, Integer> {
+import java.util.List;
+
+public interface FacturaDetalleRepository  extends JpaRepository<FacturaDetalle, Integer>, FacturaDetalleLoteRepository {
+
+    // Plan de carga del listado: libro (con autor y categoria) y factura (con cliente) en un solo
+    // SELECT. Son todas las asociaciones EAGER del grafo, asi Hibernate no lanza selects secundarios.
+    @EntityGraph(attributePaths = {"libro", "libro.autor", "libro.categoria", "factura", "factura.cliente"})
+    @Query("select d from FacturaDetalle d")
+    List<FacturaDetalle> findAllCompleto();
+
+    // [idLibro, unidades vendidas] para ordenar el autocompletado
+    @Query("select d.libro.idLibro, sum(d.cantidad) from FacturaDetalle d group by d.libro.idLibro")
+    List<Object[]> sumarVentasPorLibro();
 }
@@ -1,9 +1,16 @@
 package com.distribuida.dao;
 
 import com.distribuida.model.Factura;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface FacturaRepository extends JpaRepository<Factura, Integer> {
+import java.util.List;
 
+public interface FacturaRepository extends JpaRepository<Factura, Integer> {
 
+    // Plan de carga del listado: el cliente en el mismo SELECT (sin una consulta por cliente)
+    @EntityGraph(attributePaths = {"cliente"})
+    @Query("select f from Factura f")
+    List<Factura> findAllConCliente();
 }
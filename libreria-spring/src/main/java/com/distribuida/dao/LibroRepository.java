@@ -1,7 +1,101 @@
 package com.distribuida.dao;
 
+import com.distribuida.dto.LibroCard;
 import com.distribuida.model.Libro;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface LibroRepository extends JpaRepository<Libro, Integer> {
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface LibroRepository extends JpaRepository<Libro, Integer>, LibroStockRepository {
+
+    // Plan de carga de los listados: autor y categoria en el mismo SELECT. Con el findAll()
+    // heredado cada autor y categoria distintos cuestan una consulta mas (N+1).
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    @Query("select l from Libro l")
+    List<Libro> findAllConAutorYCategoria();
+
+    // Paginacion por cursor (keyset): la primera pagina usa la consulta derivada y las
+    // siguientes continuan desde la ultima fila vista (valor de orden + idLibro), sin OFFSET.
+    // Los valores nulos se ordenan primero, igual que hace MySQL con ORDER BY ... ASC.
+    // Todas usan el mismo plan de carga que findAllConAutorYCategoria.
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    List<Libro> findAllByOrderByIdLibroAsc(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    @Query("select l from Libro l where l.idLibro > :ultimoId order by l.idLibro asc")
+    List<Libro> findSiguientesPorId(@Param("ultimoId") int ultimoId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    List<Libro> findAllByOrderByPrecioAscIdLibroAsc(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    @Query("select l from Libro l" +
+            " where (:precio is null and (l.precio is not null or l.idLibro > :ultimoId))" +
+            " or l.precio > :precio" +
+            " or (l.precio = :precio and l.idLibro > :ultimoId)" +
+            " order by l.precio asc, l.idLibro asc")
+    List<Libro> findSiguientesPorPrecio(@Param("precio") Double precio,
+                                        @Param("ultimoId") int ultimoId,
+                                        Pageable pageable);
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    List<Libro> findAllByOrderByTituloAscIdLibroAsc(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    @Query("select l from Libro l" +
+            " where (:titulo is null and (l.titulo is not null or l.idLibro > :ultimoId))" +
+            " or l.titulo > :titulo" +
+            " or (l.titulo = :titulo and l.idLibro > :ultimoId)" +
+            " order by l.titulo asc, l.idLibro asc")
+    List<Libro> findSiguientesPorTitulo(@Param("titulo") String titulo,
+                                        @Param("ultimoId") int ultimoId,
+                                        Pageable pageable);
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    List<Libro> findAllByOrderByFechaPublicacionAscIdLibroAsc(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"autor", "categoria"})
+    @Query("select l from Libro l" +
+            " where (:fecha is null and (l.fechaPublicacion is not null or l.idLibro > :ultimoId))" +
+            " or l.fechaPublicacion > :fecha" +
+            " or (l.fechaPublicacion = :fecha and l.idLibro > :ultimoId)" +
+            " order by l.fechaPublicacion asc, l.idLibro asc")
+    List<Libro> findSiguientesPorFechaPublicacion(@Param("fecha") Date fecha,
+                                                  @Param("ultimoId") int ultimoId,
+                                                  Pageable pageable);
+
+    // Proyeccion para la grilla: una sola sentencia con el join al autor, sin hidratar entidades
+    String SELECT_CARD = "select new com.distribuida.dto.LibroCard(l.idLibro, l.titulo, l.precio, l.portada," +
+            " concat(coalesce(a.nombre, ''), ' ', coalesce(a.apellido, ''))," +
+            " case when l.numEjemplares > 0 then true else false end)" +
+            " from Libro l left join l.autor a";
+
+    @Query(SELECT_CARD + " order by l.idLibro asc")
+    List<LibroCard> findCards(Pageable pageable);
+
+    @Query(SELECT_CARD + " where l.idLibro > :ultimoId order by l.idLibro asc")
+    List<LibroCard> findCardsSiguientes(@Param("ultimoId") int ultimoId, Pageable pageable);
+
+    // Referencias a un archivo de portada (ver AlmacenPortadas): la ruta "portadas/x" y, por si acaso,
+    // el nombre suelto "x"
+    long countByPortadaIn(Collection<String> portadas);
+
+    @Query("select l.idLibro from Libro l where l.portada in :portadas")
+    List<Integer> findIdsPorPortada(@Param("portadas") Collection<String> portadas);
+
+    // UPDATE masivo: Hibernate invalida la region de Libro del cache de segundo nivel
+    @Modifying
+    @Transactional
+    @Query("update Libro l set l.portada = :nueva where l.portada in :anteriores")
+    int cambiarPortada(@Param("anteriores") Collection<String> anteriores, @Param("nueva") String nueva);
 }
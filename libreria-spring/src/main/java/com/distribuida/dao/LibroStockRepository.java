@@ -0,0 +1,12 @@
+package com.distribuida.dao;
+
+import java.util.List;
+import java.util.Map;
+
+// Fragmento de LibroRepository con el descuento de stock por SQL directo (ver LibroStockRepositoryImpl)
+public interface LibroStockRepository {
+
+    // Descuenta cantidadesPorLibro (idLibro -> unidades) en un solo batch de UPDATE condicionales.
+    // Devuelve los idLibro que no tenian stock suficiente; para esos no se descuenta nada.
+    List<Integer> descontarStock(Map<Integer, Integer> cantidadesPorLibro);
+}
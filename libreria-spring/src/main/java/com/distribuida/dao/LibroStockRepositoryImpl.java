@@ -0,0 +1,54 @@
+package com.distribuida.dao;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class LibroStockRepositoryImpl implements LibroStockRepository {
+
+    // La condicion num_ejemplares >= ? la evalua MySQL con la fila bloqueada: dos checkouts
+    // concurrentes no pueden vender la misma unidad, y no hace falta leer el libro antes
+    private static final String DESCONTAR =
+            "update libro set num_ejemplares = num_ejemplares - ? where id_libro = ? and num_ejemplares >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LibroStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Integer> descontarStock(Map<Integer, Integer> cantidadesPorLibro) {
+        // Siempre en orden de idLibro, para que dos carritos con los mismos libros no se bloqueen en cruz
+        List<Map.Entry<Integer, Integer>> lineas = new ArrayList<>(new TreeMap<>(cantidadesPorLibro).entrySet());
+        if (lineas.isEmpty()) return List.of();
+
+        int[] filas = jdbcTemplate.batchUpdate(DESCONTAR, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Integer, Integer> linea = lineas.get(i);
+                ps.setInt(1, linea.getValue());
+                ps.setInt(2, linea.getKey());
+                ps.setInt(3, linea.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lineas.size();
+            }
+        });
+
+        // Una fila afectada por linea; 0 es stock insuficiente (o libro inexistente)
+        List<Integer> sinStock = new ArrayList<>();
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] != 1) sinStock.add(lineas.get(i).getKey());
+        }
+        return sinStock;
+    }
+}
@@ -0,0 +1,45 @@
+package com.distribuida.dto;
+
+// Aciertos/fallos de una region del cache de segundo nivel, para dimensionar application.conf
+public class EstadisticaCache {
+
+    private final String region;
+    private final long aciertos;
+    private final long fallos;
+    private final long escrituras;
+    // Entradas actuales segun Caffeine; null si la region no se pudo inspeccionar
+    private final Long elementos;
+
+    public EstadisticaCache(String region, long aciertos, long fallos, long escrituras, Long elementos) {
+        this.region = region;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.escrituras = escrituras;
+        this.elementos = elementos;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    public long getFallos() {
+        return fallos;
+    }
+
+    public long getEscrituras() {
+        return escrituras;
+    }
+
+    public Long getElementos() {
+        return elementos;
+    }
+
+    public double getTasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0d : (double) aciertos / total;
+    }
+}
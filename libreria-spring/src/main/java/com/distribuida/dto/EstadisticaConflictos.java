@@ -0,0 +1,21 @@
+package com.distribuida.dto;
+
+// Choques de concurrencia en carritos: cuantos hubo y cuantos no se resolvieron reintentando
+public class EstadisticaConflictos {
+
+    private final long conflictos;
+    private final long reintentosAgotados;
+
+    public EstadisticaConflictos(long conflictos, long reintentosAgotados) {
+        this.conflictos = conflictos;
+        this.reintentosAgotados = reintentosAgotados;
+    }
+
+    public long getConflictos() {
+        return conflictos;
+    }
+
+    public long getReintentosAgotados() {
+        return reintentosAgotados;
+    }
+}
@@ -0,0 +1,56 @@
+package com.distribuida.dto;
+
+import java.time.LocalDateTime;
+
+// Resultado acumulado del barrido de carritos de invitado abandonados
+public class EstadisticaLimpieza {
+
+    private final long ejecuciones;
+    private final long carritosBorrados;
+    private final long itemsBorrados;
+    // Datos de la ultima ejecucion; null si todavia no corrio
+    private final LocalDateTime ultimaEjecucion;
+    private final long ultimosCarritos;
+    private final long ultimosItems;
+    private final long ultimaDuracionMs;
+
+    public EstadisticaLimpieza(long ejecuciones, long carritosBorrados, long itemsBorrados,
+                               LocalDateTime ultimaEjecucion, long ultimosCarritos, long ultimosItems,
+                               long ultimaDuracionMs) {
+        this.ejecuciones = ejecuciones;
+        this.carritosBorrados = carritosBorrados;
+        this.itemsBorrados = itemsBorrados;
+        this.ultimaEjecucion = ultimaEjecucion;
+        this.ultimosCarritos = ultimosCarritos;
+        this.ultimosItems = ultimosItems;
+        this.ultimaDuracionMs = ultimaDuracionMs;
+    }
+
+    public long getEjecuciones() {
+        return ejecuciones;
+    }
+
+    public long getCarritosBorrados() {
+        return carritosBorrados;
+    }
+
+    public long getItemsBorrados() {
+        return itemsBorrados;
+    }
+
+    public LocalDateTime getUltimaEjecucion() {
+        return ultimaEjecucion;
+    }
+
+    public long getUltimosCarritos() {
+        return ultimosCarritos;
+    }
+
+    public long getUltimosItems() {
+        return ultimosItems;
+    }
+
+    public long getUltimaDuracionMs() {
+        return ultimaDuracionMs;
+    }
+}
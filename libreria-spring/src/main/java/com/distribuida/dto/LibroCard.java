@@ -0,0 +1,45 @@
+package com.distribuida.dto;
+
+// Vista reducida de un libro para la grilla del catalogo (solo lectura)
+public class LibroCard {
+
+    private final int idLibro;
+    private final String titulo;
+    private final Double precio;
+    private final String portada;
+    private final String autor;
+    private final boolean disponible;
+
+    public LibroCard(Integer idLibro, String titulo, Double precio, String portada, String autor, Boolean disponible) {
+        this.idLibro = idLibro;
+        this.titulo = titulo;
+        this.precio = precio;
+        this.portada = portada;
+        this.autor = autor != null ? autor.trim() : null;
+        this.disponible = Boolean.TRUE.equals(disponible);
+    }
+
+    public int getIdLibro() {
+        return idLibro;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public Double getPrecio() {
+        return precio;
+    }
+
+    public String getPortada() {
+        return portada;
+    }
+
+    public String getAutor() {
+        return autor;
+    }
+
+    public boolean isDisponible() {
+        return disponible;
+    }
+}
@@ -0,0 +1,43 @@
+package com.distribuida.dto;
+
+// Una operacion de PATCH /api/guest/cart/items:
+// add (libroId, cantidad), set (libroId o carritoItemId, cantidad; 0 quita) o remove (libroId o carritoItemId)
+public class OperacionCarritoRequest {
+
+    private String op;
+    private Integer libroId;
+    private Long carritoItemId;
+    private int cantidad;
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Integer getLibroId() {
+        return libroId;
+    }
+
+    public void setLibroId(Integer libroId) {
+        this.libroId = libroId;
+    }
+
+    public Long getCarritoItemId() {
+        return carritoItemId;
+    }
+
+    public void setCarritoItemId(Long carritoItemId) {
+        this.carritoItemId = carritoItemId;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(int cantidad) {
+        this.cantidad = cantidad;
+    }
+}
@@ -0,0 +1,34 @@
+package com.distribuida.dto;
+
+import java.util.List;
+
+public class PaginaCursor<T> {
+
+    private List<T> items;
+    // null cuando no hay mas resultados
+    private String cursorSiguiente;
+
+    public PaginaCursor() {
+    }
+
+    public PaginaCursor(List<T> items, String cursorSiguiente) {
+        this.items = items;
+        this.cursorSiguiente = cursorSiguiente;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getCursorSiguiente() {
+        return cursorSiguiente;
+    }
+
+    public void setCursorSiguiente(String cursorSiguiente) {
+        this.cursorSiguiente = cursorSiguiente;
+    }
+}
@@ -0,0 +1,33 @@
+package com.distribuida.dto;
+
+// Una pasada de AlmacenPortadas.compactar: portadas viejas pasadas a su hash y archivos sin libro borrados
+public class ResultadoCompactacionPortadas {
+
+    private final int migradas;
+    private final int librosActualizados;
+    private final int borradas;
+    private final long bytesLiberados;
+
+    public ResultadoCompactacionPortadas(int migradas, int librosActualizados, int borradas, long bytesLiberados) {
+        this.migradas = migradas;
+        this.librosActualizados = librosActualizados;
+        this.borradas = borradas;
+        this.bytesLiberados = bytesLiberados;
+    }
+
+    public int getMigradas() {
+        return migradas;
+    }
+
+    public int getLibrosActualizados() {
+        return librosActualizados;
+    }
+
+    public int getBorradas() {
+        return borradas;
+    }
+
+    public long getBytesLiberados() {
+        return bytesLiberados;
+    }
+}
@@ -0,0 +1,31 @@
+package com.distribuida.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Respuesta de /libros/facets: libros que cumplen los filtros y conteos por valor de cada faceta
+public class ResultadoFacetas {
+
+    private final int total;
+    private final List<LibroCard> items;
+    // faceta -> valor -> libros que quedarian al elegir ese valor (sin aplicar el filtro de la propia faceta)
+    private final Map<String, Map<String, Integer>> facetas;
+
+    public ResultadoFacetas(int total, List<LibroCard> items, Map<String, Map<String, Integer>> facetas) {
+        this.total = total;
+        this.items = items;
+        this.facetas = facetas;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public List<LibroCard> getItems() {
+        return items;
+    }
+
+    public Map<String, Map<String, Integer>> getFacetas() {
+        return facetas;
+    }
+}
@@ -0,0 +1,36 @@
+package com.distribuida.dto;
+
+public class Sugerencia {
+
+    public static final String TIPO_TITULO = "titulo";
+    public static final String TIPO_AUTOR = "autor";
+
+    private final String texto;
+    private final String tipo;
+    // idLibro para titulos; 0 para autores
+    private final int idLibro;
+    private final long ventas;
+
+    public Sugerencia(String texto, String tipo, int idLibro, long ventas) {
+        this.texto = texto;
+        this.tipo = tipo;
+        this.idLibro = idLibro;
+        this.ventas = ventas;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public int getIdLibro() {
+        return idLibro;
+    }
+
+    public long getVentas() {
+        return ventas;
+    }
+}
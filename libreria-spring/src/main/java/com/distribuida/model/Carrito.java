@@ -13,7 +13,8 @@ import java.util.List;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "carrito")
+@Table(name = "carrito"
+        , indexes = @Index(name = "idx_carrito_actualizado", columnList = "actualizado_en, id_carrito"))
 public class Carrito {
 
     @Id
@@ -28,6 +29,11 @@ public class Carrito {
     @Column(name = "token", unique = true)
     private String token;
 
+    // Control optimista: dos pestanas que modifican el mismo carrito no se pisan, la segunda reintenta
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0")
+    private Long version;
+
     @JsonManagedReference
     @OneToMany(mappedBy = "carrito", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<CarritoItem> items = new ArrayList<>();
@@ -44,18 +50,38 @@ public class Carrito {
     @Column(name = "total", precision = 12, scale = 2)
     private BigDecimal total = BigDecimal.ZERO;
 
-    @Column(name = "actualizado_en", nullable = false, insertable = false, updatable = false)
+    // Lo mantiene MySQL; la limpieza de carritos abandonados se guia por esta columna
+    @Column(name = "actualizado_en", nullable = false, insertable = false, updatable = false
+            , columnDefinition = "datetime default current_timestamp on update current_timestamp")
     private LocalDateTime actualizadoEn;
 
 
     public void recomputarTotales(BigDecimal tasaIva){
-        subtotal = items.stream().map(it -> {
-            BigDecimal pu = it.getPrecioUnitario() != null ? it.getPrecioUnitario() : BigDecimal.ZERO;
-            int cant = it.getCantidad() != null ? it.getCantidad() : 0;
-            BigDecimal tot = it.getTotal();
-            return (tot != null ? tot : pu.multiply(BigDecimal.valueOf(cant)));
-        }).reduce(BigDecimal.ZERO, BigDecimal::add);
+        subtotal = items.stream().map(Carrito::aporte).reduce(BigDecimal.ZERO, BigDecimal::add);
+        totalesDesdeSubtotal(tasaIva);
+    }
+
+    // Ajusta los totales por el cambio de una sola linea (aporte anterior -> nuevo) sin recorrer
+    // los items. La suma de BigDecimal es exacta, asi que da lo mismo que recomputarTotales
+    // siempre que el subtotal de partida sea la suma de los aportes.
+    public void aplicarDelta(BigDecimal aporteAnterior, BigDecimal aporteNuevo, BigDecimal tasaIva){
+        if (subtotal == null) {
+            recomputarTotales(tasaIva);
+            return;
+        }
+        subtotal = subtotal.add(aporteNuevo).subtract(aporteAnterior);
+        totalesDesdeSubtotal(tasaIva);
+    }
+
+    // Lo que una linea suma al subtotal
+    public static BigDecimal aporte(CarritoItem it){
+        BigDecimal pu = it.getPrecioUnitario() != null ? it.getPrecioUnitario() : BigDecimal.ZERO;
+        int cant = it.getCantidad() != null ? it.getCantidad() : 0;
+        BigDecimal tot = it.getTotal();
+        return (tot != null ? tot : pu.multiply(BigDecimal.valueOf(cant)));
+    }
 
+    private void totalesDesdeSubtotal(BigDecimal tasaIva){
         if (descuento == null) descuento = BigDecimal.ZERO;
 
         BigDecimal base = subtotal.subtract(descuento);
@@ -96,6 +122,14 @@ public class Carrito {
         this.cliente = cliente;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getToken() {
         return token;
     }
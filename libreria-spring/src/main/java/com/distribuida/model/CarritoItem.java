@@ -10,7 +10,7 @@ import java.math.RoundingMode;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
 @Table(name = "carrito_item"
-        , uniqueConstraints = @UniqueConstraint(columnNames = {"is_carrito", "id_libro"}))
+        , uniqueConstraints = @UniqueConstraint(columnNames = {"id_carrito", "id_libro"}))
 public class CarritoItem {
 
     @Id
@@ -37,6 +37,10 @@ public class CarritoItem {
     @Column(name = "total", precision = 12, scale = 2)
     private BigDecimal total;
 
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0")
+    private Long version;
+
     @PrePersist @PreUpdate
     public void jpaCalcTotal(){
         calcTotal();
@@ -60,6 +64,14 @@ public class CarritoItem {
         this.idCarritoItem = idCarritoItem;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Carrito getCarrito() {
         return carrito;
     }
@@ -0,0 +1,41 @@
+package com.distribuida.model;
+
+import jakarta.persistence.*;
+
+// Contador persistente de numeros de factura. Solo lo usa FacturaNumberAllocator (por JDBC);
+// la entidad existe para que ddl-auto cree la tabla.
+@Entity
+@Table(name = "factura_numerador")
+public class FacturaNumerador {
+
+    @Id
+    @Column(name = "nombre", length = 50)
+    private String nombre;
+    // Primer numero todavia no reservado por ningun nodo
+    @Column(name = "siguiente", nullable = false)
+    private long siguiente;
+
+    public FacturaNumerador() {
+    }
+
+    public FacturaNumerador(String nombre, long siguiente) {
+        this.nombre = nombre;
+        this.siguiente = siguiente;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public long getSiguiente() {
+        return siguiente;
+    }
+
+    public void setSiguiente(long siguiente) {
+        this.siguiente = siguiente;
+    }
+}
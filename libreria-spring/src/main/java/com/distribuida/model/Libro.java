@@ -1,11 +1,22 @@
 package com.distribuida.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Date;
 
 @Entity
-@Table(name = "libro")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "libro")
+// portada: AlmacenPortadas cuenta cuantos libros apuntan a cada archivo antes de borrarlo.
+// (orden, id_libro): las paginas por cursor de LibroRepository arrancan en la ultima fila vista
+@Table(name = "libro", indexes = {
+        @Index(name = "idx_libro_portada", columnList = "portada"),
+        @Index(name = "idx_libro_precio", columnList = "precio, id_libro"),
+        @Index(name = "idx_libro_titulo", columnList = "titulo, id_libro"),
+        @Index(name = "idx_libro_fecha", columnList = "fecha_publicacion, id_libro")
+})
 public class Libro {
 
     @Id
@@ -0,0 +1,30 @@
+package com.distribuida.service;
+
+import java.util.Map;
+
+// Se publica al final del checkout: version del carrito que escribio CartStore.flush y unidades
+// compradas por libro
+public class CarritoCompradoEvent {
+
+    private final String token;
+    private final long version;
+    private final Map<Integer, Integer> cantidades;
+
+    public CarritoCompradoEvent(String token, long version, Map<Integer, Integer> cantidades) {
+        this.token = token;
+        this.version = version;
+        this.cantidades = Map.copyOf(cantidades);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<Integer, Integer> getCantidades() {
+        return cantidades;
+    }
+}
@@ -1,7 +1,10 @@
 package com.distribuida.service;
 
+import com.distribuida.dto.OperacionCarritoRequest;
 import com.distribuida.model.Carrito;
 
+import java.util.List;
+
 public interface CarritoService {
 
     Carrito getOrCreateByClienteId(int clienteId, String token);
@@ -17,6 +20,7 @@ public interface CarritoService {
     void removeItem(String token, long carritoItemId);
     void clearByToken(String token);
     Carrito getByToken(String token);
+    Carrito aplicarOperaciones(String token, List<OperacionCarritoRequest> operaciones);
 
 
 }
@@ -4,14 +4,17 @@ import com.distribuida.dao.CarritoItemRepository;
 import com.distribuida.dao.CarritoRepository;
 import com.distribuida.dao.ClienteRepository;
 import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.OperacionCarritoRequest;
 import com.distribuida.model.Carrito;
 import com.distribuida.model.CarritoItem;
+import com.distribuida.service.carrito.CartStore;
+import com.distribuida.service.carrito.ReintentoOptimista;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.UUID;
+import java.util.List;
 
 
 @Service
@@ -22,6 +25,10 @@ public class CarritoServiceImpl implements CarritoService{
     private final CarritoItemRepository carritoItemRepository;
     private final ClienteRepository clienteRepository;
     private final LibroRepository libroRepository;
+    // Carritos de invitado (por token): en la base o en memoria segun libreria.carrito.store
+    private final CartStore cartStore;
+    // Los cambios por token reintentan si chocan con otra pestana del mismo carrito
+    private final ReintentoOptimista reintento;
 
     private static final BigDecimal IVA = new BigDecimal("0.15");
 
@@ -29,16 +36,21 @@ public class CarritoServiceImpl implements CarritoService{
                               , CarritoItemRepository carritoItemRepository
                               , ClienteRepository clienteRepository
                               ,LibroRepository libroRepository
+                              ,CartStore cartStore
+                              ,ReintentoOptimista reintento
                             ){
         this.carritoRepository = carritoRepository;
         this.carritoItemRepository = carritoItemRepository;
         this.clienteRepository = clienteRepository;
         this.libroRepository = libroRepository;
+        this.cartStore = cartStore;
+        this.reintento = reintento;
 
     }
 
     @Override
     @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "obtener-o-crear", "carrito", "cliente"})
     public Carrito getOrCreateByClienteId(int clienteId, String token) {
         var cliente = clienteRepository.findById(clienteId)
                 .orElseThrow(() -> new IllegalArgumentException("Cliente no encontrado"+ clienteId));
@@ -55,6 +67,7 @@ public class CarritoServiceImpl implements CarritoService{
 
     @Override
     @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "agregar", "carrito", "cliente"})
     public Carrito addItem(int clienteId, int libroId, int cantidad) {
 
         if (cantidad <= 0) throw new IllegalArgumentException("Cantidad debe ser > 0");
@@ -88,6 +101,7 @@ public class CarritoServiceImpl implements CarritoService{
 
     @Override
     @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "cambiar-cantidad", "carrito", "cliente"})
     public Carrito updateItemCantidad(int clienteId, long carritoItemId, int nuevaCantidad) {
         if (nuevaCantidad < 0) throw new IllegalArgumentException("Cantidad no puede ser negativa");
 
@@ -107,12 +121,14 @@ public class CarritoServiceImpl implements CarritoService{
 
     @Override
     @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "quitar", "carrito", "cliente"})
     public void removeItem(int clienteId, long carritoItemId) {
     updateItemCantidad(clienteId, carritoItemId, 0);
     }
 
     @Override
     @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "vaciar", "carrito", "cliente"})
     public void clear(int clienteId) {
     var carrito = getByClienteId(clienteId);
     carrito.getItems().clear();
@@ -133,104 +149,44 @@ public class CarritoServiceImpl implements CarritoService{
     }
 
     @Override
-    @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "obtener-o-crear", "carrito", "invitado"})
     public Carrito getOrCreateByToken(String token) {
-        // Si no se recibe token, se genera uno único
-        if(token == null || token.isEmpty()) {
-            token = UUID.randomUUID().toString();
-        }
-
-        String finalToken = token;
-        return carritoRepository.findByToken(token)
-                .orElseGet(() -> {
-                    var c = new Carrito();
-                    c.setToken(finalToken);
-                    c.setSubtotal(BigDecimal.ZERO);
-                    c.setDescuento(BigDecimal.ZERO);
-                    c.setImpuestos(BigDecimal.ZERO);
-                    c.setTotal(BigDecimal.ZERO);
-                    c.setItems(new ArrayList<>()); // inicializa la lista de items
-                    return carritoRepository.save(c);
-                });
+        return reintento.ejecutar(() -> cartStore.getOrCreate(token));
     }
 
 
     @Override
-    @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "agregar", "carrito", "invitado"})
     public Carrito addItem(String token, int libroId, int cantidad) {
-        if (cantidad <= 0) throw new IllegalArgumentException("Cantidad debe ser > 0 ");
-        var carrito = getOrCreateByToken(token);
-        var libro = libroRepository.findById(libroId)
-                .orElseThrow(() -> new IllegalArgumentException("Libro no encontrado: "+libroId));
-        var itemOpt = carritoItemRepository.findByCarritoAndLibro(carrito, libro);
-        if (itemOpt.isPresent()) {
-            var item = itemOpt.get();
-            item.setCantidad(item.getCantidad() + cantidad);
-            item.setPrecioUnitario(BigDecimal.valueOf(libro.getPrecio()));
-            item.calcTotal();
-            carritoItemRepository.save(item);
-        }else {
-            var item = new CarritoItem();
-            item.setCarrito(carrito);
-            item.setLibro(libro);
-            item.setCantidad(cantidad);
-            item.setPrecioUnitario(BigDecimal.valueOf(libro.getPrecio()));
-            item.calcTotal();
-            carrito.getItems().add(item);
-        }
-        carrito.recomputarTotales(IVA);
-        return carritoRepository.save(carrito);
+        return reintento.ejecutar(() -> cartStore.addItem(token, libroId, cantidad));
     }
 
     @Override
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "cambiar-cantidad", "carrito", "invitado"})
     public Carrito updateItemCantidad(String token, long carritoItemId, int nuevaCantidad) {
-        var carrito = getOrCreateByToken(token);
-        var item = carritoItemRepository.findById(carritoItemId)
-                .orElseThrow(() -> new IllegalArgumentException("Item no encontrado: "+ carritoItemId));
-
-        if (nuevaCantidad <= 0 ){
-            carrito.getItems().remove(item);
-            carritoItemRepository.delete(item);
-        }else {
-            item.setCantidad(nuevaCantidad);
-            item.calcTotal();
-            carritoItemRepository.save(item);
-        }
-        carrito.recomputarTotales(IVA);
-        return carritoRepository.save(carrito);
+        return reintento.ejecutar(() -> cartStore.updateItemCantidad(token, carritoItemId, nuevaCantidad));
     }
 
     @Override
-    @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "quitar", "carrito", "invitado"})
     public void removeItem(String token, long carritoItemId) {
         updateItemCantidad(token, carritoItemId, 0);
     }
 
     @Override
-    @Transactional
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "vaciar", "carrito", "invitado"})
     public void clearByToken(String token) {
-        var carrito = getOrCreateByToken(token);
-        carrito.getItems().clear();
-        carrito.setSubtotal(BigDecimal.ZERO);
-        carrito.setDescuento(BigDecimal.ZERO);
-        carrito.setImpuestos(BigDecimal.ZERO);
-        carrito.setTotal(BigDecimal.ZERO);
-        carritoRepository.save(carrito);
+        reintento.ejecutar(() -> cartStore.clear(token));
     }
 
     @Override
-    @Transactional
     public Carrito getByToken(String token) {
+        return cartStore.get(token);
+    }
 
-        return carritoRepository.findByToken(token)
-                .orElseGet(() -> {
-                    var c = new Carrito();
-                    c.setToken(token);
-                    c.setSubtotal(BigDecimal.ZERO);
-                    c.setDescuento(BigDecimal.ZERO);
-                    c.setImpuestos(BigDecimal.ZERO);
-                    c.setTotal(BigDecimal.ZERO);
-                    return c;
-                });
+    @Override
+    @Timed(value = "libreria.carrito", extraTags = {"operacion", "operaciones", "carrito", "invitado"})
+    public Carrito aplicarOperaciones(String token, List<OperacionCarritoRequest> operaciones) {
+        return reintento.ejecutar(() -> cartStore.aplicar(token, operaciones));
     }
 }
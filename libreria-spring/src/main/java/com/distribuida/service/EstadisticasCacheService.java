@@ -0,0 +1,13 @@
+package com.distribuida.service;
+
+import com.distribuida.dto.EstadisticaCache;
+
+import java.util.List;
+
+public interface EstadisticasCacheService {
+
+    List<EstadisticaCache> findAll();
+
+    // Vacia una region (p. ej. tras editar la base a mano); IllegalArgumentException si no existe
+    void evict(String region);
+}
@@ -0,0 +1,62 @@
+package com.distribuida.service;
+
+import com.distribuida.dto.EstadisticaCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class EstadisticasCacheServiceImpl implements EstadisticasCacheService {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager jcacheManager;
+
+    public EstadisticasCacheServiceImpl(EntityManagerFactory entityManagerFactory, CacheManager jcacheManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jcacheManager = jcacheManager;
+    }
+
+    @Override
+    public List<EstadisticaCache> findAll() {
+        Statistics estadisticas = sessionFactory().getStatistics();
+        List<EstadisticaCache> resultado = new ArrayList<>();
+        for (String region : estadisticas.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics r = estadisticas.getCacheRegionStatistics(region);
+            if (r == null) continue;
+            resultado.add(new EstadisticaCache(region, r.getHitCount(), r.getMissCount(), r.getPutCount(),
+                    elementos(region)));
+        }
+        return resultado;
+    }
+
+    @Override
+    public void evict(String region) {
+        SessionFactory sessionFactory = sessionFactory();
+        if (!Arrays.asList(sessionFactory.getStatistics().getSecondLevelCacheRegionNames()).contains(region)) {
+            throw new IllegalArgumentException("No existe la region de cache: " + region);
+        }
+        sessionFactory.getCache().evictRegion(region);
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    private Long elementos(String region) {
+        Cache<Object, Object> cache = jcacheManager.getCache(region);
+        if (cache == null) return null;
+        try {
+            return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -26,7 +26,7 @@ public class FacturaDetalleServiceImpl implements FacturaDetalleService {
 
     @Override
     public List<FacturaDetalle> findAll() {
-        return facturaDetalleRepository.findAll();
+        return facturaDetalleRepository.findAllCompleto();
     }
 
     @Override
@@ -0,0 +1,98 @@
+package com.distribuida.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Numeros de factura unicos entre nodos sin bloquear la base en cada checkout (hi/lo):
+// cada nodo reserva un bloque de numeros en factura_numerador y lo reparte desde memoria con
+// un AtomicLong. Los numeros no usados de un bloque se pierden al reiniciar (quedan huecos),
+// pero nunca se repiten y crecen en cada nodo. Se pide fuera de otra transaccion: al agotarse el
+// bloque, la reserva usa una conexion propia.
+@Component
+public class FacturaNumberAllocator {
+
+    static final String SECUENCIA = "factura";
+    private static final String PREFIJO = "F-";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccionNueva;
+    private final int tamanioBloque;
+    // Solo la recarga del bloque toma el lock; el camino normal es un getAndIncrement
+    private final ReentrantLock recarga = new ReentrantLock();
+    private volatile Bloque bloque = new Bloque(0, 0);
+
+    public FacturaNumberAllocator(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${libreria.factura.bloque:1000}") int tamanioBloque) {
+        if (tamanioBloque <= 0) throw new IllegalArgumentException("El bloque de facturas debe ser positivo");
+        this.jdbcTemplate = jdbcTemplate;
+        this.tamanioBloque = tamanioBloque;
+        // La reserva se confirma aparte: si el checkout hace rollback, el bloque ya no es de nadie mas
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public String siguienteNumero() {
+        return String.format("%s%08d", PREFIJO, siguiente());
+    }
+
+    public long siguiente() {
+        while (true) {
+            Bloque actual = bloque;
+            long numero = actual.siguiente.getAndIncrement();
+            if (numero < actual.limite) return numero;
+
+            recarga.lock();
+            try {
+                // Otro hilo pudo recargar mientras esperabamos el lock
+                if (bloque == actual) {
+                    long inicio = reservarBloque(tamanioBloque);
+                    bloque = new Bloque(inicio, inicio + tamanioBloque);
+                }
+            } finally {
+                recarga.unlock();
+            }
+        }
+    }
+
+    // Devuelve el primer numero del bloque [inicio, inicio + tamanio) reservado para este nodo
+    protected long reservarBloque(int tamanio) {
+        try {
+            Long inicio = transaccionNueva.execute(status -> {
+                List<Long> siguiente = jdbcTemplate.queryForList(
+                        "select siguiente from factura_numerador where nombre = ? for update", Long.class, SECUENCIA);
+                if (siguiente.isEmpty()) {
+                    jdbcTemplate.update("insert into factura_numerador (nombre, siguiente) values (?, ?)",
+                            SECUENCIA, 1L + tamanio);
+                    return 1L;
+                }
+                jdbcTemplate.update("update factura_numerador set siguiente = ? where nombre = ?",
+                        siguiente.get(0) + tamanio, SECUENCIA);
+                return siguiente.get(0);
+            });
+            return inicio;
+        } catch (DuplicateKeyException e) {
+            // Otro nodo creo la fila a la vez; ahora existe y el select for update la bloquea
+            return reservarBloque(tamanio);
+        }
+    }
+
+    private static final class Bloque {
+        private final AtomicLong siguiente;
+        private final long limite;
+
+        private Bloque(long inicio, long limite) {
+            this.siguiente = new AtomicLong(inicio);
+            this.limite = limite;
+        }
+    }
+}
@@ -20,7 +20,7 @@ public class FacturaServiceImpl implements  FacturaService{
 
     @Override
     public List<Factura> findAll() {
-        return facturaRepository.findAll();
+        return facturaRepository.findAllConCliente();
     }
 
     @Override
@@ -6,12 +6,21 @@ import com.distribuida.dao.FacturaDetalleRepository;
 import com.distribuida.dao.FacturaRepository;
 import com.distribuida.dao.LibroRepository;
 import com.distribuida.model.Factura;
+import com.distribuida.model.FacturaDetalle;
+import com.distribuida.service.carrito.CartStore;
 import com.distribuida.service.util.CheckoutMapper;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 public class GuestCheckoutServiceImpl implements GuestCheckoutService {
@@ -20,6 +29,10 @@ public class GuestCheckoutServiceImpl implements GuestCheckoutService {
     private final FacturaRepository facturaRepository;
     private final FacturaDetalleRepository facturaDetalleRepository;
     private final LibroRepository libroRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FacturaNumberAllocator facturaNumberAllocator;
+    private final CartStore cartStore;
+    private final TransactionTemplate transaccion;
 
     private static final double IVA = 0.15d;
 
@@ -27,23 +40,44 @@ public class GuestCheckoutServiceImpl implements GuestCheckoutService {
             CarritoRepository carritoRepository,
             FacturaRepository facturaRepository,
             FacturaDetalleRepository facturaDetalleRepository,
-            LibroRepository libroRepository
+            LibroRepository libroRepository,
+            ApplicationEventPublisher eventPublisher,
+            FacturaNumberAllocator facturaNumberAllocator,
+            CartStore cartStore,
+            PlatformTransactionManager transactionManager
     ){
         this.carritoRepository = carritoRepository;
         this.facturaRepository = facturaRepository;
         this.facturaDetalleRepository = facturaDetalleRepository;
         this.libroRepository = libroRepository;
+        this.eventPublisher = eventPublisher;
+        this.facturaNumberAllocator = facturaNumberAllocator;
+        this.cartStore = cartStore;
+        this.transaccion = new TransactionTemplate(transactionManager);
 
     }
 
     @Override
-    @Transactional
+    @Timed("libreria.checkout")
     public Factura checkoutByToken(String token) {
         // Validar token
         if (token == null || token.isEmpty()) {
             throw new IllegalArgumentException("Token inválido");
         }
 
+        // Generar número de factura (unico aunque haya varios checkouts en el mismo segundo).
+        // Antes de abrir la transaccion: si toca reservar otro bloque en factura_numerador, el checkout
+        // aun no tiene conexion tomada ni filas de libro bloqueadas. Si el checkout falla, el numero
+        // queda sin usar (un hueco, como al reiniciar)
+        String numFactura = facturaNumberAllocator.siguienteNumero();
+
+        return transaccion.execute(status -> checkout(token, numFactura));
+    }
+
+    private Factura checkout(String token, String numFactura) {
+        // Lo que el carrito tenga pendiente en memoria se escribe en esta misma transaccion antes de leerlo
+        long version = cartStore.flush(token);
+
         // Obtener carrito
         var carrito = carritoRepository.findByToken(token)
                 .orElseThrow(() -> new IllegalArgumentException("No existe carrito para el token"));
@@ -55,37 +89,45 @@ public class GuestCheckoutServiceImpl implements GuestCheckoutService {
 
         System.out.println("Procesando checkout para token: " + token + ", items: " + carrito.getItems().size());
 
-        // Validar stock
+        // Descontar stock: un UPDATE condicional por libro, todos en un batch.
+        // Las unidades del mismo libro se suman por si aparece en mas de una linea.
+        Map<Integer, Integer> cantidades = new TreeMap<>();
+        Map<Integer, String> titulos = new HashMap<>();
         for (var item : carrito.getItems()) {
-            var libro = item.getLibro();
-            if (libro.getNumEjemplares() < item.getCantidad()) {
-                throw new IllegalArgumentException("Stock insuficiente para: " + libro.getTitulo());
+            if (item.getCantidad() == null || item.getCantidad() <= 0) {
+                throw new IllegalArgumentException("Cantidad inválida para: " + item.getLibro().getTitulo());
             }
+            cantidades.merge(item.getLibro().getIdLibro(), item.getCantidad(), Integer::sum);
+            titulos.put(item.getLibro().getIdLibro(), item.getLibro().getTitulo());
         }
 
-        // Actualizar stock de libros
-        for (var item : carrito.getItems()) {
-            var libro = item.getLibro();
-            libro.setNumEjemplares(libro.getNumEjemplares() - item.getCantidad());
-            libroRepository.save(libro);
+        List<Integer> sinStock = libroRepository.descontarStock(cantidades);
+        if (!sinStock.isEmpty()) {
+            // La excepcion hace rollback de los descuentos del batch que si se aplicaron
+            throw new IllegalArgumentException("Stock insuficiente para: " + sinStock.stream()
+                    .map(titulos::get)
+                    .collect(Collectors.joining(", ")));
         }
-
-        // Generar número de factura
-        String numFactura = "F-" + DateTimeFormatter.ofPattern("yyyyMMddHHmmss").format(LocalDateTime.now());
+        // El indice de facetas y el cache de libros lo aplican despues del commit
+        cantidades.forEach((idLibro, cantidad) ->
+                eventPublisher.publishEvent(new StockDescontadoEvent(idLibro, cantidad)));
 
         // Construir factura
         var factura = CheckoutMapper.construirFacturaDesdeCarrito(carrito, numFactura, IVA);
         factura = facturaRepository.save(factura);
 
-        // Guardar detalles de factura
+        // Guardar detalles de factura: un solo batch, no un INSERT por linea
+        List<FacturaDetalle> detalles = new ArrayList<>(carrito.getItems().size());
         for (var item : carrito.getItems()) {
-            var detalle = CheckoutMapper.construirDetalle(factura, item);
-            facturaDetalleRepository.save(detalle);
+            detalles.add(CheckoutMapper.construirDetalle(factura, item));
         }
+        facturaDetalleRepository.insertarEnLote(detalles);
 
         // Vaciar carrito
         carrito.getItems().clear();
         carritoRepository.save(carrito);
+        // Despues del commit la copia en memoria pierde lo comprado (y conserva lo agregado mientras tanto)
+        eventPublisher.publishEvent(new CarritoCompradoEvent(token, version, cantidades));
 
         System.out.println("Checkout completado para token: " + token + ", factura: " + numFactura);
 
@@ -0,0 +1,23 @@
+package com.distribuida.service;
+
+import com.distribuida.model.Libro;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// El stock se descuenta con SQL directo, sin pasar por Hibernate: hay que sacar el libro del
+// cache de segundo nivel a mano. Despues del commit, para que nadie vuelva a cachear el valor viejo.
+@Component
+public class InvalidacionCacheLibro {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public InvalidacionCacheLibro(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @TransactionalEventListener
+    public void onStockDescontado(StockDescontadoEvent evento) {
+        entityManagerFactory.getCache().evict(Libro.class, evento.getIdLibro());
+    }
+}
@@ -0,0 +1,21 @@
+package com.distribuida.service;
+
+// Se publica despues de crear, actualizar o eliminar un libro para refrescar los indices en memoria
+public class LibroCambiadoEvent {
+
+    private final int idLibro;
+    private final boolean eliminado;
+
+    public LibroCambiadoEvent(int idLibro, boolean eliminado) {
+        this.idLibro = idLibro;
+        this.eliminado = eliminado;
+    }
+
+    public int getIdLibro() {
+        return idLibro;
+    }
+
+    public boolean isEliminado() {
+        return eliminado;
+    }
+}
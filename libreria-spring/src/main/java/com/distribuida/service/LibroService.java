@@ -1,14 +1,34 @@
 package com.distribuida.service;
 
+import com.distribuida.dto.LibroCard;
+import com.distribuida.dto.PaginaCursor;
+import com.distribuida.dto.ResultadoFacetas;
+import com.distribuida.dto.Sugerencia;
 import com.distribuida.model.Factura;
 import com.distribuida.model.Libro;
 
 import java.util.List;
+import java.util.Map;
 
 public interface LibroService {
 
     List<Libro> findAll();
 
+    // Pagina del catalogo por cursor; sort admite precio, titulo o fechaPublicacion (por defecto id)
+    PaginaCursor<Libro> findPage(int size, String cursor, String sort);
+
+    // Misma paginacion por id, pero con la proyeccion liviana para la grilla
+    PaginaCursor<LibroCard> findCards(int size, String cursor);
+
+    // Busqueda de texto completo sobre el indice en memoria
+    List<LibroCard> search(String q, int limit);
+
+    // Sugerencias por prefijo (titulos y autores), las mas vendidas primero
+    List<Sugerencia> autocomplete(String q, int k);
+
+    // Filtro por facetas (categoria, autor, idioma, tipoPasta, precio, stock) con conteos por valor
+    ResultadoFacetas facets(Map<String, List<String>> filtros, int limit);
+
     Libro findOne(int id);
 
     Libro save(Libro libro);
@@ -3,10 +3,25 @@ package com.distribuida.service;
 import com.distribuida.dao.AutorRepository;
 import com.distribuida.dao.CategoriaRepository;
 import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.LibroCard;
+import com.distribuida.dto.PaginaCursor;
+import com.distribuida.dto.ResultadoFacetas;
+import com.distribuida.dto.Sugerencia;
 import com.distribuida.model.*;
+import com.distribuida.service.busqueda.AutocompletadoLibros;
+import com.distribuida.service.busqueda.IndiceFacetas;
+import com.distribuida.service.busqueda.IndiceLibros;
+import com.distribuida.service.portadas.AlmacenPortadas;
+import com.distribuida.service.util.LibroCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -21,9 +36,105 @@ public class LibroServiceImpl implements LibroService {
     @Autowired
     private AutorRepository autorRepository;
 
+    @Autowired
+    private IndiceLibros indiceLibros;
+
+    @Autowired
+    private AutocompletadoLibros autocompletadoLibros;
+
+    @Autowired
+    private IndiceFacetas indiceFacetas;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AlmacenPortadas almacenPortadas;
+
+    private static final int TAMANIO_PAGINA_MAXIMO = 100;
+
     @Override
     public List<Libro> findAll() {
-        return libroRepository.findAll();
+        return libroRepository.findAllConAutorYCategoria();
+    }
+
+    @Override
+    public PaginaCursor<Libro> findPage(int size, String cursor, String sort) {
+        int limite = Math.max(1, Math.min(size, TAMANIO_PAGINA_MAXIMO));
+
+        LibroCursor anterior = null;
+        LibroCursor.Orden orden = LibroCursor.Orden.desde(sort);
+        if (cursor != null && !cursor.isEmpty()) {
+            anterior = LibroCursor.decodificar(cursor);
+            if (sort != null && !sort.isEmpty() && anterior.getOrden() != orden) {
+                throw new IllegalArgumentException("El cursor no corresponde al orden: " + sort);
+            }
+            orden = anterior.getOrden();
+        }
+
+        // Se pide una fila de mas para saber si existe una pagina siguiente
+        Pageable pagina = PageRequest.of(0, limite + 1);
+        List<Libro> libros = switch (orden) {
+            case ID -> anterior == null
+                    ? libroRepository.findAllByOrderByIdLibroAsc(pagina)
+                    : libroRepository.findSiguientesPorId(anterior.getUltimoId(), pagina);
+            case PRECIO -> anterior == null
+                    ? libroRepository.findAllByOrderByPrecioAscIdLibroAsc(pagina)
+                    : libroRepository.findSiguientesPorPrecio(anterior.getPrecio(), anterior.getUltimoId(), pagina);
+            case TITULO -> anterior == null
+                    ? libroRepository.findAllByOrderByTituloAscIdLibroAsc(pagina)
+                    : libroRepository.findSiguientesPorTitulo(anterior.getTitulo(), anterior.getUltimoId(), pagina);
+            case FECHA_PUBLICACION -> anterior == null
+                    ? libroRepository.findAllByOrderByFechaPublicacionAscIdLibroAsc(pagina)
+                    : libroRepository.findSiguientesPorFechaPublicacion(anterior.getFechaPublicacion(), anterior.getUltimoId(), pagina);
+        };
+
+        if (libros.size() <= limite) {
+            return new PaginaCursor<>(libros, null);
+        }
+        List<Libro> items = new ArrayList<>(libros.subList(0, limite));
+        String siguiente = LibroCursor.desde(orden, items.get(items.size() - 1)).codificar();
+        return new PaginaCursor<>(items, siguiente);
+    }
+
+    @Override
+    public PaginaCursor<LibroCard> findCards(int size, String cursor) {
+        int limite = Math.max(1, Math.min(size, TAMANIO_PAGINA_MAXIMO));
+        Pageable pagina = PageRequest.of(0, limite + 1);
+
+        List<LibroCard> cards;
+        if (cursor == null || cursor.isEmpty()) {
+            cards = libroRepository.findCards(pagina);
+        } else {
+            LibroCursor anterior = LibroCursor.decodificar(cursor);
+            if (anterior.getOrden() != LibroCursor.Orden.ID) {
+                throw new IllegalArgumentException("Cursor invalido para cards");
+            }
+            cards = libroRepository.findCardsSiguientes(anterior.getUltimoId(), pagina);
+        }
+
+        if (cards.size() <= limite) {
+            return new PaginaCursor<>(cards, null);
+        }
+        List<LibroCard> items = new ArrayList<>(cards.subList(0, limite));
+        String siguiente = LibroCursor.porId(items.get(items.size() - 1).getIdLibro()).codificar();
+        return new PaginaCursor<>(items, siguiente);
+    }
+
+    @Override
+    public List<LibroCard> search(String q, int limit) {
+        return indiceLibros.buscar(q, Math.max(1, Math.min(limit, TAMANIO_PAGINA_MAXIMO)));
+    }
+
+    @Override
+    public List<Sugerencia> autocomplete(String q, int k) {
+        return autocompletadoLibros.sugerir(q, k);
+    }
+
+    @Override
+    public ResultadoFacetas facets(Map<String, List<String>> filtros, int limit) {
+        // limit = 0 devuelve solo los conteos
+        return indiceFacetas.consultar(filtros, Math.max(0, Math.min(limit, TAMANIO_PAGINA_MAXIMO)));
     }
 
     @Override
@@ -35,13 +146,16 @@ public class LibroServiceImpl implements LibroService {
 
     @Override
     public Libro save(Libro libro) {
-        return libroRepository.save(libro);
+        Libro guardado = libroRepository.save(libro);
+        eventPublisher.publishEvent(new LibroCambiadoEvent(guardado.getIdLibro(), false));
+        return guardado;
     }
 
     @Override
     public Libro update(int idLibro, Libro libro) {
         Libro libroExistente = findOne(idLibro);
         if (libroExistente == null) return null;
+        String portadaAnterior = libroExistente.getPortada();
 
         // Actualiza campos básicos
         libroExistente.setTitulo(libro.getTitulo());
@@ -77,14 +191,23 @@ public class LibroServiceImpl implements LibroService {
         }
 
 
-        return libroRepository.save(libroExistente);
+        Libro actualizado = libroRepository.save(libroExistente);
+        eventPublisher.publishEvent(new LibroCambiadoEvent(actualizado.getIdLibro(), false));
+        // La portada reemplazada se borra si ya no la usa otro libro
+        if (portadaAnterior != null && !Objects.equals(portadaAnterior, actualizado.getPortada())) {
+            almacenPortadas.liberar(portadaAnterior);
+        }
+        return actualizado;
     }
 
 
     @Override
     public void delete(int id) {
     if (libroRepository.existsById(id)){
+        String portada = libroRepository.findById(id).map(Libro::getPortada).orElse(null);
         libroRepository.deleteById(id);
+        eventPublisher.publishEvent(new LibroCambiadoEvent(id, true));
+        if (portada != null) almacenPortadas.liberar(portada);
     }
     }
 }
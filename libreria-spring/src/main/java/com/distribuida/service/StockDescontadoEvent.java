@@ -0,0 +1,21 @@
+package com.distribuida.service;
+
+// Se publica en el checkout por cada libro vendido; solo cambia el stock, no los datos del libro
+public class StockDescontadoEvent {
+
+    private final int idLibro;
+    private final int cantidad;
+
+    public StockDescontadoEvent(int idLibro, int cantidad) {
+        this.idLibro = idLibro;
+        this.cantidad = cantidad;
+    }
+
+    public int getIdLibro() {
+        return idLibro;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+}
@@ -0,0 +1,62 @@
+package com.distribuida.service.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Tokenizador para textos en espanol: minusculas, sin tildes, sin palabras vacias
+// y con un recorte ligero de plurales. Se usa igual al indexar y al consultar.
+public final class AnalizadorEspanol {
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "ante", "con", "contra", "cual", "de", "del", "desde", "donde", "durante",
+            "e", "el", "ella", "ellos", "en", "entre", "es", "esa", "ese", "eso", "esta", "este",
+            "esto", "hasta", "la", "las", "le", "les", "lo", "los", "mas", "mi", "muy", "ni", "no",
+            "nos", "o", "otra", "otro", "para", "pero", "por", "que", "se", "si", "sin", "sobre",
+            "su", "sus", "te", "tu", "un", "una", "uno", "unos", "unas", "y", "ya", "yo");
+
+    private AnalizadorEspanol() { }
+
+    public static List<String> tokens(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null || texto.isBlank()) return tokens;
+
+        for (String palabra : SEPARADORES.split(sinTildes(texto))) {
+            if (palabra.isEmpty() || PALABRAS_VACIAS.contains(palabra)) continue;
+            tokens.add(raiz(palabra));
+        }
+        return tokens;
+    }
+
+    // Texto en minusculas, sin tildes y con un solo espacio entre palabras (para autocompletar)
+    public static String normalizar(String texto) {
+        if (texto == null) return "";
+        return SEPARADORES.matcher(sinTildes(texto)).replaceAll(" ").trim();
+    }
+
+    private static String sinTildes(String texto) {
+        return DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    // Recorte de plurales: "dictadores" -> "dictador", "lenguas" -> "lengua". El "es" sale entero solo
+    // tras las consonantes con que termina un singular (l, r, n, d, z, j, y); si no, solo la "s":
+    // "clases" -> "clase", "bosques" -> "bosque"
+    static String raiz(String palabra) {
+        int n = palabra.length();
+        if (n > 4 && palabra.endsWith("es") && "lrndzjy".indexOf(palabra.charAt(n - 3)) >= 0) {
+            return palabra.substring(0, n - 2);
+        }
+        if (n > 3 && palabra.endsWith("s") && !Character.isDigit(palabra.charAt(n - 2))) {
+            return palabra.substring(0, n - 1);
+        }
+        return palabra;
+    }
+}
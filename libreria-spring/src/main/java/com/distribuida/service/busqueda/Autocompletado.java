@@ -0,0 +1,172 @@
+package com.distribuida.service.busqueda;
+
+import com.distribuida.dto.Sugerencia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Estructura inmutable para autocompletar por prefijo. Las claves normalizadas se guardan
+// ordenadas en un arreglo; un prefijo corresponde a un rango contiguo que se ubica por busqueda
+// binaria. Los rangos pequenos se recorren; para los prefijos con muchas coincidencias el top-k
+// ya viene precalculado. Las sugerencias se numeran por ventas, asi el top-k es "los indices menores".
+public final class Autocompletado {
+
+    public static final int K_MAXIMO = 10;
+    static final int RANGO_ESCANEO = 256;
+    static final int LONGITUD_MAXIMA = 48;
+    // Ademas del texto completo se indexa desde el inicio de las siguientes palabras ("soledad")
+    private static final int SUFIJOS_POR_ENTRADA = 4;
+
+    private static final Autocompletado VACIO = new Autocompletado(new String[0], new int[0],
+            new Sugerencia[0], Collections.emptyMap());
+
+    private final String[] claves;
+    private final int[] sugerenciaDeClave;
+    private final Sugerencia[] sugerencias;
+    private final Map<String, int[]> destacados;
+
+    private Autocompletado(String[] claves, int[] sugerenciaDeClave, Sugerencia[] sugerencias,
+                           Map<String, int[]> destacados) {
+        this.claves = claves;
+        this.sugerenciaDeClave = sugerenciaDeClave;
+        this.sugerencias = sugerencias;
+        this.destacados = destacados;
+    }
+
+    public static Autocompletado vacio() {
+        return VACIO;
+    }
+
+    public static Autocompletado construir(List<Sugerencia> entrada) {
+        Sugerencia[] sugerencias = entrada.toArray(new Sugerencia[0]);
+        Arrays.sort(sugerencias, Comparator.comparingLong(Sugerencia::getVentas).reversed()
+                .thenComparing(Sugerencia::getTexto));
+
+        List<Clave> lista = new ArrayList<>();
+        for (int i = 0; i < sugerencias.length; i++) {
+            String normalizado = AnalizadorEspanol.normalizar(sugerencias[i].getTexto());
+            int desde = 0;
+            for (int s = 0; s < SUFIJOS_POR_ENTRADA && desde < normalizado.length(); s++) {
+                lista.add(new Clave(recortar(normalizado.substring(desde)), i));
+                int espacio = normalizado.indexOf(' ', desde);
+                if (espacio < 0) break;
+                desde = espacio + 1;
+            }
+        }
+
+        Clave[] ordenadas = lista.toArray(new Clave[0]);
+        Arrays.sort(ordenadas);
+        String[] claves = new String[ordenadas.length];
+        int[] sugerenciaDeClave = new int[ordenadas.length];
+        for (int i = 0; i < ordenadas.length; i++) {
+            claves[i] = ordenadas[i].texto;
+            sugerenciaDeClave[i] = ordenadas[i].sugerencia;
+        }
+
+        return new Autocompletado(claves, sugerenciaDeClave, sugerencias,
+                precalcularDestacados(claves, sugerenciaDeClave));
+    }
+
+    public List<Sugerencia> sugerir(String prefijo, int k) {
+        String buscado = recortar(AnalizadorEspanol.normalizar(prefijo));
+        int limite = Math.min(Math.max(k, 1), K_MAXIMO);
+        if (buscado.isEmpty() || claves.length == 0) return Collections.emptyList();
+
+        int[] mejores = destacados.get(buscado);
+        if (mejores == null) {
+            int desde = primeraClaveMayorOIgual(buscado);
+            int hasta = primeraClaveMayorOIgual(buscado + Character.MAX_VALUE);
+            mejores = topK(sugerenciaDeClave, desde, hasta);
+        }
+
+        List<Sugerencia> resultado = new ArrayList<>(Math.min(limite, mejores.length));
+        for (int i = 0; i < mejores.length && i < limite; i++) {
+            resultado.add(sugerencias[mejores[i]]);
+        }
+        return resultado;
+    }
+
+    public int tamanio() {
+        return sugerencias.length;
+    }
+
+    private int primeraClaveMayorOIgual(String valor) {
+        int bajo = 0;
+        int alto = claves.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (claves[medio].compareTo(valor) < 0) bajo = medio + 1;
+            else alto = medio;
+        }
+        return bajo;
+    }
+
+    // Para cada longitud de prefijo se agrupan las claves consecutivas que lo comparten;
+    // solo los grupos mas grandes que RANGO_ESCANEO guardan su top-k.
+    private static Map<String, int[]> precalcularDestacados(String[] claves, int[] sugerenciaDeClave) {
+        Map<String, int[]> destacados = new HashMap<>();
+        for (int longitud = 1; longitud <= LONGITUD_MAXIMA; longitud++) {
+            boolean hayGrupoGrande = false;
+            int inicio = 0;
+            while (inicio < claves.length) {
+                if (claves[inicio].length() < longitud) {
+                    inicio++;
+                    continue;
+                }
+                String clave = claves[inicio];
+                int fin = inicio + 1;
+                while (fin < claves.length && claves[fin].length() >= longitud
+                        && claves[fin].regionMatches(0, clave, 0, longitud)) fin++;
+                if (fin - inicio > RANGO_ESCANEO) {
+                    destacados.put(clave.substring(0, longitud), topK(sugerenciaDeClave, inicio, fin));
+                    hayGrupoGrande = true;
+                }
+                inicio = fin;
+            }
+            if (!hayGrupoGrande) break;
+        }
+        return destacados;
+    }
+
+    // Los K_MAXIMO indices de sugerencia menores (distintos) del rango [desde, hasta)
+    private static int[] topK(int[] sugerenciaDeClave, int desde, int hasta) {
+        int[] mejores = new int[K_MAXIMO];
+        int cantidad = 0;
+        for (int i = desde; i < hasta; i++) {
+            int candidato = sugerenciaDeClave[i];
+            if (cantidad == K_MAXIMO && candidato >= mejores[cantidad - 1]) continue;
+            int pos = Arrays.binarySearch(mejores, 0, cantidad, candidato);
+            if (pos >= 0) continue;
+            pos = -pos - 1;
+            int mover = Math.min(cantidad, K_MAXIMO - 1) - pos;
+            if (mover > 0) System.arraycopy(mejores, pos, mejores, pos + 1, mover);
+            mejores[pos] = candidato;
+            if (cantidad < K_MAXIMO) cantidad++;
+        }
+        return Arrays.copyOf(mejores, cantidad);
+    }
+
+    private static final class Clave implements Comparable<Clave> {
+        private final String texto;
+        private final int sugerencia;
+
+        private Clave(String texto, int sugerencia) {
+            this.texto = texto;
+            this.sugerencia = sugerencia;
+        }
+
+        @Override
+        public int compareTo(Clave otra) {
+            return texto.compareTo(otra.texto);
+        }
+    }
+
+    private static String recortar(String texto) {
+        return texto.length() > LONGITUD_MAXIMA ? texto.substring(0, LONGITUD_MAXIMA) : texto;
+    }
+}
@@ -0,0 +1,128 @@
+package com.distribuida.service.busqueda;
+
+import com.distribuida.dao.FacturaDetalleRepository;
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.LibroCard;
+import com.distribuida.dto.Sugerencia;
+import com.distribuida.service.LibroCambiadoEvent;
+import com.distribuida.service.StockDescontadoEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Autocompletado de titulos y autores ordenado por ventas. La estructura es inmutable: se
+// reconstruye en un hilo aparte y se publica con una sola escritura volatile, de modo que las
+// consultas nunca esperan. Varios cambios seguidos del catalogo se agrupan en una reconstruccion.
+// Las ventas cambian el orden: tras la primera venta se espera espera-ventas-ms y todas las de ese
+// intervalo se aplican en una sola reconstruccion.
+@Component
+public class AutocompletadoLibros {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompletadoLibros.class);
+
+    private final LibroRepository libroRepository;
+    private final FacturaDetalleRepository facturaDetalleRepository;
+    private final long esperaVentasMs;
+
+    private volatile Autocompletado actual = Autocompletado.vacio();
+    private final AtomicBoolean reconstruccionPendiente = new AtomicBoolean();
+    private final AtomicBoolean ventasPendientes = new AtomicBoolean();
+    private final ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "autocompletado-rebuild");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public AutocompletadoLibros(LibroRepository libroRepository,
+                                FacturaDetalleRepository facturaDetalleRepository,
+                                @Value("${libreria.autocompletado.espera-ventas-ms:60000}") long esperaVentasMs) {
+        this.libroRepository = libroRepository;
+        this.facturaDetalleRepository = facturaDetalleRepository;
+        this.esperaVentasMs = esperaVentasMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        programarReconstruccion();
+    }
+
+    @EventListener
+    public void onLibroCambiado(LibroCambiadoEvent evento) {
+        programarReconstruccion();
+    }
+
+    // Solo despues del commit: si el checkout hace rollback no hubo venta
+    @TransactionalEventListener
+    public void onStockDescontado(StockDescontadoEvent evento) {
+        if (ventasPendientes.compareAndSet(false, true)) {
+            ejecutor.schedule(() -> {
+                ventasPendientes.set(false);
+                programarReconstruccion();
+            }, esperaVentasMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public List<Sugerencia> sugerir(String prefijo, int k) {
+        return actual.sugerir(prefijo, k);
+    }
+
+    public void programarReconstruccion() {
+        if (reconstruccionPendiente.compareAndSet(false, true)) {
+            ejecutor.execute(() -> {
+                reconstruccionPendiente.set(false);
+                try {
+                    reconstruir();
+                } catch (RuntimeException e) {
+                    log.error("No se pudo reconstruir el autocompletado", e);
+                }
+            });
+        }
+    }
+
+    void reconstruir() {
+        long inicio = System.currentTimeMillis();
+
+        Map<Integer, Long> ventasPorLibro = new HashMap<>();
+        for (Object[] fila : facturaDetalleRepository.sumarVentasPorLibro()) {
+            ventasPorLibro.put(((Number) fila[0]).intValue(), ((Number) fila[1]).longValue());
+        }
+
+        List<Sugerencia> sugerencias = new ArrayList<>();
+        Map<String, Long> ventasPorAutor = new HashMap<>();
+        for (LibroCard card : libroRepository.findCards(Pageable.unpaged())) {
+            long ventas = ventasPorLibro.getOrDefault(card.getIdLibro(), 0L);
+            if (card.getTitulo() != null && !card.getTitulo().isBlank()) {
+                sugerencias.add(new Sugerencia(card.getTitulo(), Sugerencia.TIPO_TITULO, card.getIdLibro(), ventas));
+            }
+            if (card.getAutor() != null && !card.getAutor().isBlank()) {
+                ventasPorAutor.merge(card.getAutor(), ventas, Long::sum);
+            }
+        }
+        ventasPorAutor.forEach((autor, ventas) ->
+                sugerencias.add(new Sugerencia(autor, Sugerencia.TIPO_AUTOR, 0, ventas)));
+
+        actual = Autocompletado.construir(sugerencias);
+        log.info("Autocompletado reconstruido: {} sugerencias en {} ms",
+                actual.tamanio(), System.currentTimeMillis() - inicio);
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,390 @@
+package com.distribuida.service.busqueda;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Conjunto de enteros no negativos comprimido al estilo Roaring: los 16 bits altos eligen un
+// contenedor y los 16 bajos se guardan en un arreglo ordenado (hasta 4096 valores) o en un
+// mapa de bits de 65536 bits. No es thread-safe; IndiceFacetas lo protege con su propio lock.
+public final class BitmapCompacto {
+
+    private static final int LIMITE_ARREGLO = 4096;
+
+    private char[] claves = new char[0];
+    private Contenedor[] contenedores = new Contenedor[0];
+
+    public static BitmapCompacto de(int... valores) {
+        BitmapCompacto bitmap = new BitmapCompacto();
+        for (int valor : valores) bitmap.agregar(valor);
+        return bitmap;
+    }
+
+    public void agregar(int valor) {
+        char alto = (char) (valor >>> 16);
+        int pos = Arrays.binarySearch(claves, alto);
+        if (pos >= 0) {
+            contenedores[pos] = contenedores[pos].agregar((char) valor);
+            return;
+        }
+        pos = -pos - 1;
+        claves = insertar(claves, pos, alto);
+        Contenedor[] nuevos = new Contenedor[contenedores.length + 1];
+        System.arraycopy(contenedores, 0, nuevos, 0, pos);
+        System.arraycopy(contenedores, pos, nuevos, pos + 1, contenedores.length - pos);
+        nuevos[pos] = new ContenedorArreglo().agregar((char) valor);
+        contenedores = nuevos;
+    }
+
+    public void quitar(int valor) {
+        int pos = Arrays.binarySearch(claves, (char) (valor >>> 16));
+        if (pos < 0) return;
+        Contenedor resultado = contenedores[pos].quitar((char) valor);
+        if (resultado.cardinalidad() > 0) {
+            contenedores[pos] = resultado;
+            return;
+        }
+        claves = eliminar(claves, pos);
+        Contenedor[] nuevos = new Contenedor[contenedores.length - 1];
+        System.arraycopy(contenedores, 0, nuevos, 0, pos);
+        System.arraycopy(contenedores, pos + 1, nuevos, pos, contenedores.length - pos - 1);
+        contenedores = nuevos;
+    }
+
+    public boolean contiene(int valor) {
+        int pos = Arrays.binarySearch(claves, (char) (valor >>> 16));
+        return pos >= 0 && contenedores[pos].contiene((char) valor);
+    }
+
+    public int cardinalidad() {
+        int total = 0;
+        for (Contenedor contenedor : contenedores) total += contenedor.cardinalidad();
+        return total;
+    }
+
+    public boolean estaVacio() {
+        return contenedores.length == 0;
+    }
+
+    public BitmapCompacto and(BitmapCompacto otro) {
+        BitmapCompacto resultado = new BitmapCompacto();
+        int n = Math.min(claves.length, otro.claves.length);
+        char[] nuevasClaves = new char[n];
+        Contenedor[] nuevos = new Contenedor[n];
+        int k = 0;
+        int i = 0;
+        int j = 0;
+        while (i < claves.length && j < otro.claves.length) {
+            if (claves[i] < otro.claves[j]) {
+                i++;
+            } else if (claves[i] > otro.claves[j]) {
+                j++;
+            } else {
+                Contenedor interseccion = contenedores[i].and(otro.contenedores[j]);
+                if (interseccion.cardinalidad() > 0) {
+                    nuevasClaves[k] = claves[i];
+                    nuevos[k++] = interseccion;
+                }
+                i++;
+                j++;
+            }
+        }
+        resultado.claves = Arrays.copyOf(nuevasClaves, k);
+        resultado.contenedores = Arrays.copyOf(nuevos, k);
+        return resultado;
+    }
+
+    // Cardinalidad de la interseccion sin materializarla (conteos de facetas)
+    public int andCardinalidad(BitmapCompacto otro) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < claves.length && j < otro.claves.length) {
+            if (claves[i] < otro.claves[j]) {
+                i++;
+            } else if (claves[i] > otro.claves[j]) {
+                j++;
+            } else {
+                total += contenedores[i].andCardinalidad(otro.contenedores[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public BitmapCompacto or(BitmapCompacto otro) {
+        BitmapCompacto resultado = copia();
+        otro.recorrer(resultado::agregar);
+        return resultado;
+    }
+
+    public BitmapCompacto copia() {
+        BitmapCompacto copia = new BitmapCompacto();
+        copia.claves = claves.clone();
+        copia.contenedores = new Contenedor[contenedores.length];
+        for (int i = 0; i < contenedores.length; i++) copia.contenedores[i] = contenedores[i].copia();
+        return copia;
+    }
+
+    // Recorre los valores en orden ascendente
+    public void recorrer(IntConsumer consumidor) {
+        for (int i = 0; i < claves.length; i++) {
+            contenedores[i].recorrer(claves[i] << 16, consumidor);
+        }
+    }
+
+    // Los primeros n valores en orden ascendente, sin recorrer el resto
+    public int[] primeros(int n) {
+        int[] destino = new int[Math.min(n, cardinalidad())];
+        int copiados = 0;
+        for (int i = 0; i < claves.length && copiados < destino.length; i++) {
+            copiados = contenedores[i].copiarA(claves[i] << 16, destino, copiados);
+        }
+        return destino;
+    }
+
+    private static char[] insertar(char[] arreglo, int pos, char valor) {
+        char[] nuevo = new char[arreglo.length + 1];
+        System.arraycopy(arreglo, 0, nuevo, 0, pos);
+        nuevo[pos] = valor;
+        System.arraycopy(arreglo, pos, nuevo, pos + 1, arreglo.length - pos);
+        return nuevo;
+    }
+
+    private static char[] eliminar(char[] arreglo, int pos) {
+        char[] nuevo = new char[arreglo.length - 1];
+        System.arraycopy(arreglo, 0, nuevo, 0, pos);
+        System.arraycopy(arreglo, pos + 1, nuevo, pos, arreglo.length - pos - 1);
+        return nuevo;
+    }
+
+    private abstract static class Contenedor {
+        abstract Contenedor agregar(char valor);
+
+        abstract Contenedor quitar(char valor);
+
+        abstract boolean contiene(char valor);
+
+        abstract int cardinalidad();
+
+        abstract Contenedor and(Contenedor otro);
+
+        abstract int andCardinalidad(Contenedor otro);
+
+        abstract Contenedor copia();
+
+        abstract void recorrer(int alto, IntConsumer consumidor);
+
+        // Copia valores a destino desde la posicion dada hasta llenarlo; devuelve la nueva posicion
+        abstract int copiarA(int alto, int[] destino, int desde);
+    }
+
+    private static final class ContenedorArreglo extends Contenedor {
+        private char[] valores = new char[4];
+        private int tamanio;
+
+        @Override
+        Contenedor agregar(char valor) {
+            int pos = Arrays.binarySearch(valores, 0, tamanio, valor);
+            if (pos >= 0) return this;
+            if (tamanio >= LIMITE_ARREGLO) {
+                return aBits().agregar(valor);
+            }
+            pos = -pos - 1;
+            if (tamanio == valores.length) valores = Arrays.copyOf(valores, Math.min(tamanio * 2, LIMITE_ARREGLO));
+            System.arraycopy(valores, pos, valores, pos + 1, tamanio - pos);
+            valores[pos] = valor;
+            tamanio++;
+            return this;
+        }
+
+        @Override
+        Contenedor quitar(char valor) {
+            int pos = Arrays.binarySearch(valores, 0, tamanio, valor);
+            if (pos < 0) return this;
+            System.arraycopy(valores, pos + 1, valores, pos, tamanio - pos - 1);
+            tamanio--;
+            return this;
+        }
+
+        @Override
+        boolean contiene(char valor) {
+            return Arrays.binarySearch(valores, 0, tamanio, valor) >= 0;
+        }
+
+        @Override
+        int cardinalidad() {
+            return tamanio;
+        }
+
+        @Override
+        Contenedor and(Contenedor otro) {
+            ContenedorArreglo resultado = new ContenedorArreglo();
+            resultado.valores = new char[Math.max(tamanio, 1)];
+            if (otro instanceof ContenedorBits bits) {
+                for (int i = 0; i < tamanio; i++) {
+                    if (bits.contiene(valores[i])) resultado.valores[resultado.tamanio++] = valores[i];
+                }
+                return resultado;
+            }
+            ContenedorArreglo arreglo = (ContenedorArreglo) otro;
+            int i = 0;
+            int j = 0;
+            while (i < tamanio && j < arreglo.tamanio) {
+                if (valores[i] < arreglo.valores[j]) i++;
+                else if (valores[i] > arreglo.valores[j]) j++;
+                else {
+                    resultado.valores[resultado.tamanio++] = valores[i];
+                    i++;
+                    j++;
+                }
+            }
+            return resultado;
+        }
+
+        @Override
+        int andCardinalidad(Contenedor otro) {
+            int total = 0;
+            if (otro instanceof ContenedorBits bits) {
+                for (int i = 0; i < tamanio; i++) {
+                    if (bits.contiene(valores[i])) total++;
+                }
+                return total;
+            }
+            ContenedorArreglo arreglo = (ContenedorArreglo) otro;
+            int i = 0;
+            int j = 0;
+            while (i < tamanio && j < arreglo.tamanio) {
+                if (valores[i] < arreglo.valores[j]) i++;
+                else if (valores[i] > arreglo.valores[j]) j++;
+                else {
+                    total++;
+                    i++;
+                    j++;
+                }
+            }
+            return total;
+        }
+
+        @Override
+        Contenedor copia() {
+            ContenedorArreglo copia = new ContenedorArreglo();
+            copia.valores = Arrays.copyOf(valores, Math.max(tamanio, 1));
+            copia.tamanio = tamanio;
+            return copia;
+        }
+
+        @Override
+        void recorrer(int alto, IntConsumer consumidor) {
+            for (int i = 0; i < tamanio; i++) consumidor.accept(alto | valores[i]);
+        }
+
+        @Override
+        int copiarA(int alto, int[] destino, int desde) {
+            for (int i = 0; i < tamanio && desde < destino.length; i++) destino[desde++] = alto | valores[i];
+            return desde;
+        }
+
+        private ContenedorBits aBits() {
+            ContenedorBits bits = new ContenedorBits();
+            for (int i = 0; i < tamanio; i++) bits.agregar(valores[i]);
+            return bits;
+        }
+    }
+
+    private static final class ContenedorBits extends Contenedor {
+        private final long[] palabras = new long[1024];
+        private int cardinalidad;
+
+        @Override
+        Contenedor agregar(char valor) {
+            long antes = palabras[valor >>> 6];
+            long despues = antes | (1L << valor);
+            if (antes != despues) {
+                palabras[valor >>> 6] = despues;
+                cardinalidad++;
+            }
+            return this;
+        }
+
+        @Override
+        Contenedor quitar(char valor) {
+            long antes = palabras[valor >>> 6];
+            long despues = antes & ~(1L << valor);
+            if (antes != despues) {
+                palabras[valor >>> 6] = despues;
+                cardinalidad--;
+            }
+            return cardinalidad <= LIMITE_ARREGLO ? aArreglo() : this;
+        }
+
+        @Override
+        boolean contiene(char valor) {
+            return (palabras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        int cardinalidad() {
+            return cardinalidad;
+        }
+
+        @Override
+        Contenedor and(Contenedor otro) {
+            if (otro instanceof ContenedorArreglo) return otro.and(this);
+            ContenedorBits bits = (ContenedorBits) otro;
+            ContenedorBits resultado = new ContenedorBits();
+            for (int i = 0; i < palabras.length; i++) {
+                resultado.palabras[i] = palabras[i] & bits.palabras[i];
+                resultado.cardinalidad += Long.bitCount(resultado.palabras[i]);
+            }
+            return resultado.cardinalidad <= LIMITE_ARREGLO ? resultado.aArreglo() : resultado;
+        }
+
+        @Override
+        int andCardinalidad(Contenedor otro) {
+            if (otro instanceof ContenedorArreglo) return otro.andCardinalidad(this);
+            ContenedorBits bits = (ContenedorBits) otro;
+            int total = 0;
+            for (int i = 0; i < palabras.length; i++) total += Long.bitCount(palabras[i] & bits.palabras[i]);
+            return total;
+        }
+
+        @Override
+        Contenedor copia() {
+            ContenedorBits copia = new ContenedorBits();
+            System.arraycopy(palabras, 0, copia.palabras, 0, palabras.length);
+            copia.cardinalidad = cardinalidad;
+            return copia;
+        }
+
+        @Override
+        void recorrer(int alto, IntConsumer consumidor) {
+            for (int i = 0; i < palabras.length; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0) {
+                    consumidor.accept(alto | (i << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+        }
+
+        @Override
+        int copiarA(int alto, int[] destino, int desde) {
+            for (int i = 0; i < palabras.length && desde < destino.length; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0 && desde < destino.length) {
+                    destino[desde++] = alto | (i << 6) | Long.numberOfTrailingZeros(palabra);
+                    palabra &= palabra - 1;
+                }
+            }
+            return desde;
+        }
+
+        private ContenedorArreglo aArreglo() {
+            ContenedorArreglo arreglo = new ContenedorArreglo();
+            arreglo.valores = new char[Math.max(cardinalidad, 1)];
+            recorrer(0, v -> arreglo.valores[arreglo.tamanio++] = (char) v);
+            return arreglo;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.distribuida.service.busqueda;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.LibroCard;
+import com.distribuida.dto.ResultadoFacetas;
+import com.distribuida.model.Libro;
+import com.distribuida.service.LibroCambiadoEvent;
+import com.distribuida.service.StockDescontadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Filtros por faceta sobre el catalogo: un BitmapCompacto de idLibro por cada valor de faceta.
+// Dentro de una faceta los valores se combinan con OR y entre facetas con AND; los conteos de
+// cada faceta se calculan sin su propio filtro para que el cliente pueda ampliar la seleccion.
+@Component
+public class IndiceFacetas {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceFacetas.class);
+
+    public static final String CATEGORIA = "categoria";
+    public static final String AUTOR = "autor";
+    public static final String IDIOMA = "idioma";
+    public static final String TIPO_PASTA = "tipoPasta";
+    public static final String PRECIO = "precio";
+    public static final String STOCK = "stock";
+    public static final List<String> FACETAS = List.of(CATEGORIA, AUTOR, IDIOMA, TIPO_PASTA, PRECIO, STOCK);
+
+    public static final String DISPONIBLE = "disponible";
+    public static final String AGOTADO = "agotado";
+
+    // Bandas de precio: [0,10), [10,20), [20,50), [50,...)
+    private static final int[] LIMITES_PRECIO = {10, 20, 50};
+
+    private final LibroRepository libroRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // faceta -> valor -> libros; los valores se comparan sin distinguir mayusculas
+    private final Map<String, Map<String, BitmapCompacto>> bitmaps = new HashMap<>();
+    private final Map<Integer, Entrada> entradas = new HashMap<>();
+    private final BitmapCompacto todos = new BitmapCompacto();
+
+    public IndiceFacetas(LibroRepository libroRepository) {
+        this.libroRepository = libroRepository;
+        for (String faceta : FACETAS) {
+            bitmaps.put(faceta, new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.currentTimeMillis();
+        List<Libro> libros = libroRepository.findAllConAutorYCategoria();
+        lock.writeLock().lock();
+        try {
+            for (Integer idLibro : new ArrayList<>(entradas.keySet())) {
+                quitar(idLibro);
+            }
+            for (Libro libro : libros) {
+                agregar(libro);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indice de facetas construido: {} libros en {} ms",
+                libros.size(), System.currentTimeMillis() - inicio);
+    }
+
+    @EventListener
+    public void onLibroCambiado(LibroCambiadoEvent evento) {
+        if (evento.isEliminado()) {
+            eliminar(evento.getIdLibro());
+            return;
+        }
+        libroRepository.findById(evento.getIdLibro())
+                .ifPresentOrElse(this::indexar, () -> eliminar(evento.getIdLibro()));
+    }
+
+    // Solo despues del commit: si el checkout hace rollback el stock no cambio
+    @TransactionalEventListener
+    public void onStockDescontado(StockDescontadoEvent evento) {
+        descontarStock(evento.getIdLibro(), evento.getCantidad());
+    }
+
+    public void indexar(Libro libro) {
+        lock.writeLock().lock();
+        try {
+            quitar(libro.getIdLibro());
+            agregar(libro);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(int idLibro) {
+        lock.writeLock().lock();
+        try {
+            quitar(idLibro);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void descontarStock(int idLibro, int cantidad) {
+        lock.writeLock().lock();
+        try {
+            Entrada entrada = entradas.get(idLibro);
+            if (entrada == null) return;
+            boolean antes = entrada.stock > 0;
+            entrada.stock -= cantidad;
+            boolean despues = entrada.stock > 0;
+            if (antes != despues) {
+                quitarValor(STOCK, antes ? DISPONIBLE : AGOTADO, idLibro);
+                agregarValor(STOCK, despues ? DISPONIBLE : AGOTADO, idLibro);
+                LibroCard card = entrada.card;
+                entrada.card = new LibroCard(card.getIdLibro(), card.getTitulo(), card.getPrecio(),
+                        card.getPortada(), card.getAutor(), despues);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // filtros: faceta -> valores elegidos; limite: cuantos libros devolver (por idLibro ascendente)
+    public ResultadoFacetas consultar(Map<String, List<String>> filtros, int limite) {
+        for (String faceta : filtros.keySet()) {
+            if (!FACETAS.contains(faceta)) {
+                throw new IllegalArgumentException("Faceta no soportada: " + faceta);
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, BitmapCompacto> seleccion = new LinkedHashMap<>();
+            for (Map.Entry<String, List<String>> filtro : filtros.entrySet()) {
+                if (filtro.getValue() == null || filtro.getValue().isEmpty()) continue;
+                BitmapCompacto union = new BitmapCompacto();
+                for (String valor : filtro.getValue()) {
+                    BitmapCompacto bitmap = bitmaps.get(filtro.getKey()).get(valor);
+                    if (bitmap != null) union = union.or(bitmap);
+                }
+                seleccion.put(filtro.getKey(), union);
+            }
+
+            BitmapCompacto resultado = interseccion(seleccion, null);
+
+            Map<String, Map<String, Integer>> conteos = new LinkedHashMap<>();
+            for (String faceta : FACETAS) {
+                BitmapCompacto base = seleccion.containsKey(faceta) ? interseccion(seleccion, faceta) : resultado;
+                Map<String, Integer> porValor = new LinkedHashMap<>();
+                for (Map.Entry<String, BitmapCompacto> valor : bitmaps.get(faceta).entrySet()) {
+                    porValor.put(valor.getKey(), base.andCardinalidad(valor.getValue()));
+                }
+                conteos.put(faceta, porValor);
+            }
+
+            List<LibroCard> items = new ArrayList<>();
+            for (int idLibro : resultado.primeros(limite)) {
+                items.add(entradas.get(idLibro).card);
+            }
+            return new ResultadoFacetas(resultado.cardinalidad(), items, conteos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String bandaPrecio(Double precio) {
+        if (precio == null) return null;
+        int desde = 0;
+        for (int limite : LIMITES_PRECIO) {
+            if (precio < limite) return desde + "-" + limite;
+            desde = limite;
+        }
+        return desde + "+";
+    }
+
+    // AND de todas las facetas seleccionadas salvo la excluida
+    private BitmapCompacto interseccion(Map<String, BitmapCompacto> seleccion, String excluida) {
+        BitmapCompacto resultado = todos;
+        for (Map.Entry<String, BitmapCompacto> filtro : seleccion.entrySet()) {
+            if (filtro.getKey().equals(excluida)) continue;
+            resultado = resultado.and(filtro.getValue());
+        }
+        return resultado;
+    }
+
+    private void agregar(Libro libro) {
+        int idLibro = libro.getIdLibro();
+        Entrada entrada = new Entrada();
+        String autor = null;
+        if (libro.getAutor() != null) {
+            autor = IndiceLibros.nombreCompleto(libro.getAutor().getNombre(), libro.getAutor().getApellido());
+            entrada.valores.put(AUTOR, autor);
+        }
+        if (libro.getCategoria() != null) {
+            entrada.valores.put(CATEGORIA, libro.getCategoria().getCategoria());
+        }
+        entrada.valores.put(IDIOMA, libro.getIdioma());
+        entrada.valores.put(TIPO_PASTA, libro.getTipoPasta());
+        entrada.valores.put(PRECIO, bandaPrecio(libro.getPrecio()));
+        entrada.stock = libro.getNumEjemplares();
+        entrada.card = new LibroCard(idLibro, libro.getTitulo(), libro.getPrecio(),
+                libro.getPortada(), autor, entrada.stock > 0);
+
+        for (Map.Entry<String, String> valor : entrada.valores.entrySet()) {
+            if (valor.getValue() != null && !valor.getValue().isBlank()) {
+                agregarValor(valor.getKey(), valor.getValue().trim(), idLibro);
+            }
+        }
+        agregarValor(STOCK, entrada.stock > 0 ? DISPONIBLE : AGOTADO, idLibro);
+        todos.agregar(idLibro);
+        entradas.put(idLibro, entrada);
+    }
+
+    private void quitar(int idLibro) {
+        Entrada entrada = entradas.remove(idLibro);
+        if (entrada == null) return;
+        for (Map.Entry<String, String> valor : entrada.valores.entrySet()) {
+            if (valor.getValue() != null && !valor.getValue().isBlank()) {
+                quitarValor(valor.getKey(), valor.getValue().trim(), idLibro);
+            }
+        }
+        quitarValor(STOCK, entrada.stock > 0 ? DISPONIBLE : AGOTADO, idLibro);
+        todos.quitar(idLibro);
+    }
+
+    private void agregarValor(String faceta, String valor, int idLibro) {
+        bitmaps.get(faceta).computeIfAbsent(valor, v -> new BitmapCompacto()).agregar(idLibro);
+    }
+
+    private void quitarValor(String faceta, String valor, int idLibro) {
+        Map<String, BitmapCompacto> porValor = bitmaps.get(faceta);
+        BitmapCompacto bitmap = porValor.get(valor);
+        if (bitmap == null) return;
+        bitmap.quitar(idLibro);
+        // Los valores sin libros desaparecen de los conteos
+        if (bitmap.estaVacio()) porValor.remove(valor);
+    }
+
+    private static final class Entrada {
+        private final Map<String, String> valores = new HashMap<>();
+        private int stock;
+        private LibroCard card;
+    }
+}
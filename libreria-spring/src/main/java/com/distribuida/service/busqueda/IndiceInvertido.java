@@ -0,0 +1,145 @@
+package com.distribuida.service.busqueda;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Indice invertido en memoria con ranking BM25. Cada documento se compone de campos con peso
+// (el titulo pesa mas que la descripcion); el peso multiplica la frecuencia del termino.
+// Lecturas concurrentes, escrituras exclusivas.
+public class IndiceInvertido<T> {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    public static class Campo {
+        private final String texto;
+        private final float peso;
+
+        public Campo(String texto, float peso) {
+            this.texto = texto;
+            this.peso = peso;
+        }
+    }
+
+    private static class Documento<T> {
+        private final T valor;
+        private final Map<String, Float> frecuencias;
+        private final float longitud;
+
+        private Documento(T valor, Map<String, Float> frecuencias, float longitud) {
+            this.valor = valor;
+            this.frecuencias = frecuencias;
+            this.longitud = longitud;
+        }
+    }
+
+    private final Map<String, Map<Integer, Float>> postings = new HashMap<>();
+    private final Map<Integer, Documento<T>> documentos = new HashMap<>();
+    private double longitudTotal;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void agregar(int id, T valor, List<Campo> campos) {
+        Map<String, Float> frecuencias = new HashMap<>();
+        float longitud = 0;
+        for (Campo campo : campos) {
+            for (String token : AnalizadorEspanol.tokens(campo.texto)) {
+                frecuencias.merge(token, campo.peso, Float::sum);
+                longitud += campo.peso;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            quitar(id);
+            documentos.put(id, new Documento<>(valor, frecuencias, longitud));
+            longitudTotal += longitud;
+            frecuencias.forEach((termino, tf) ->
+                    postings.computeIfAbsent(termino, t -> new HashMap<>()).put(id, tf));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(int id) {
+        lock.writeLock().lock();
+        try {
+            quitar(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanio() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> buscar(String consulta, int limite) {
+        List<String> terminos = new ArrayList<>(new LinkedHashSet<>(AnalizadorEspanol.tokens(consulta)));
+        if (terminos.isEmpty() || limite <= 0) return Collections.emptyList();
+
+        lock.readLock().lock();
+        try {
+            int n = documentos.size();
+            if (n == 0) return Collections.emptyList();
+            double longitudMedia = longitudTotal / n;
+
+            Map<Integer, Double> puntajes = new HashMap<>();
+            for (String termino : terminos) {
+                Map<Integer, Float> lista = postings.get(termino);
+                if (lista == null) continue;
+                double idf = Math.log(1 + (n - lista.size() + 0.5) / (lista.size() + 0.5));
+                for (Map.Entry<Integer, Float> posting : lista.entrySet()) {
+                    double tf = posting.getValue();
+                    double longitud = documentos.get(posting.getKey()).longitud;
+                    double parcial = idf * tf * (K1 + 1)
+                            / (tf + K1 * (1 - B + B * longitud / longitudMedia));
+                    puntajes.merge(posting.getKey(), parcial, Double::sum);
+                }
+            }
+
+            // Top-k con un heap minimo; a igual puntaje gana el id menor
+            Comparator<Map.Entry<Integer, Double>> orden = Map.Entry.<Integer, Double>comparingByValue()
+                    .thenComparing(Map.Entry.<Integer, Double>comparingByKey().reversed());
+            PriorityQueue<Map.Entry<Integer, Double>> mejores = new PriorityQueue<>(orden);
+            for (Map.Entry<Integer, Double> puntaje : puntajes.entrySet()) {
+                mejores.offer(puntaje);
+                if (mejores.size() > limite) mejores.poll();
+            }
+
+            List<Map.Entry<Integer, Double>> ordenados = new ArrayList<>(mejores);
+            ordenados.sort(orden.reversed());
+            List<T> resultado = new ArrayList<>(ordenados.size());
+            for (Map.Entry<Integer, Double> entrada : ordenados) {
+                resultado.add(documentos.get(entrada.getKey()).valor);
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void quitar(int id) {
+        Documento<T> anterior = documentos.remove(id);
+        if (anterior == null) return;
+        longitudTotal -= anterior.longitud;
+        for (String termino : anterior.frecuencias.keySet()) {
+            Map<Integer, Float> lista = postings.get(termino);
+            if (lista == null) continue;
+            lista.remove(id);
+            if (lista.isEmpty()) postings.remove(termino);
+        }
+    }
+}
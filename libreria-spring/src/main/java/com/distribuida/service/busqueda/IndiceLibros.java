@@ -0,0 +1,115 @@
+package com.distribuida.service.busqueda;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.LibroCard;
+import com.distribuida.model.Libro;
+import com.distribuida.service.LibroCambiadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Busqueda de texto completo sobre el catalogo sin consultar MySQL: se construye al arrancar
+// y se mantiene al dia con los LibroCambiadoEvent que publica LibroServiceImpl. Se construye un
+// indice nuevo aparte y se publica con una escritura volatile (como AutocompletadoLibros): mientras
+// tanto las busquedas siguen contestando con el anterior.
+@Component
+public class IndiceLibros {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceLibros.class);
+
+    private final LibroRepository libroRepository;
+    private volatile IndiceInvertido<LibroCard> indice = new IndiceInvertido<>();
+
+    // Libros cambiados mientras se construye un indice nuevo: se vuelven a leer sobre el nuevo
+    private final Object construccion = new Object();
+    private boolean construyendo;
+    private final Set<Integer> cambiadosDuranteConstruccion = new HashSet<>();
+
+    public IndiceLibros(LibroRepository libroRepository) {
+        this.libroRepository = libroRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.currentTimeMillis();
+        synchronized (construccion) {
+            construyendo = true;
+            cambiadosDuranteConstruccion.clear();
+        }
+        IndiceInvertido<LibroCard> nuevo = new IndiceInvertido<>();
+        Set<Integer> cambiados;
+        try {
+            for (Libro libro : libroRepository.findAllConAutorYCategoria()) {
+                indexar(nuevo, libro);
+            }
+        } finally {
+            synchronized (construccion) {
+                indice = nuevo;
+                construyendo = false;
+                cambiados = new HashSet<>(cambiadosDuranteConstruccion);
+                cambiadosDuranteConstruccion.clear();
+            }
+        }
+        cambiados.forEach(this::releer);
+        log.info("Indice de busqueda construido: {} libros en {} ms",
+                nuevo.tamanio(), System.currentTimeMillis() - inicio);
+    }
+
+    @EventListener
+    public void onLibroCambiado(LibroCambiadoEvent evento) {
+        synchronized (construccion) {
+            if (construyendo) cambiadosDuranteConstruccion.add(evento.getIdLibro());
+        }
+        if (evento.isEliminado()) {
+            indice.eliminar(evento.getIdLibro());
+            return;
+        }
+        releer(evento.getIdLibro());
+    }
+
+    public List<LibroCard> buscar(String consulta, int limite) {
+        return indice.buscar(consulta, limite);
+    }
+
+    // Se relee para tener autor y categoria completos (el body del POST solo trae sus ids)
+    private void releer(int idLibro) {
+        IndiceInvertido<LibroCard> actual = indice;
+        libroRepository.findById(idLibro)
+                .ifPresentOrElse(libro -> indexar(actual, libro), () -> actual.eliminar(idLibro));
+    }
+
+    private static void indexar(IndiceInvertido<LibroCard> destino, Libro libro) {
+        List<IndiceInvertido.Campo> campos = new ArrayList<>();
+        campos.add(new IndiceInvertido.Campo(libro.getTitulo(), 3f));
+        campos.add(new IndiceInvertido.Campo(libro.getDescripcion(), 1f));
+        campos.add(new IndiceInvertido.Campo(libro.getEditorial(), 1f));
+        campos.add(new IndiceInvertido.Campo(libro.getIsbn(), 1f));
+        if (libro.getIsbn() != null) {
+            // Tambien el ISBN sin guiones, para buscar "9788437604947" o "978-84-376-0494-7"
+            campos.add(new IndiceInvertido.Campo(libro.getIsbn().replaceAll("[^0-9Xx]", ""), 1f));
+        }
+        String autor = null;
+        if (libro.getAutor() != null) {
+            autor = nombreCompleto(libro.getAutor().getNombre(), libro.getAutor().getApellido());
+            campos.add(new IndiceInvertido.Campo(autor, 2f));
+        }
+        if (libro.getCategoria() != null) {
+            campos.add(new IndiceInvertido.Campo(libro.getCategoria().getCategoria(), 1.5f));
+        }
+
+        LibroCard card = new LibroCard(libro.getIdLibro(), libro.getTitulo(), libro.getPrecio(),
+                libro.getPortada(), autor, libro.getNumEjemplares() > 0);
+        destino.agregar(libro.getIdLibro(), card, campos);
+    }
+
+    static String nombreCompleto(String nombre, String apellido) {
+        return ((nombre != null ? nombre : "") + " " + (apellido != null ? apellido : "")).trim();
+    }
+}
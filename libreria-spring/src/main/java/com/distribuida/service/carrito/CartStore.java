@@ -0,0 +1,39 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dto.OperacionCarritoRequest;
+import com.distribuida.model.Carrito;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Donde viven los carritos de invitado (por token). Se elige con libreria.carrito.store:
+// "jpa" lee y escribe MySQL en cada operacion; "memoria" atiende desde memoria y persiste despues.
+public interface CartStore {
+
+    BigDecimal IVA = new BigDecimal("0.15");
+
+    long SIN_VERSION = -1;
+
+    Carrito getOrCreate(String token);
+
+    // No crea el carrito: si no existe devuelve uno vacio sin guardar
+    Carrito get(String token);
+
+    Carrito addItem(String token, int libroId, int cantidad);
+
+    // nuevaCantidad <= 0 quita el item
+    Carrito updateItemCantidad(String token, long carritoItemId, int nuevaCantidad);
+
+    void clear(String token);
+
+    // Varias operaciones add/set/remove de una vez: se aplican todas o ninguna
+    Carrito aplicar(String token, List<OperacionCarritoRequest> operaciones);
+
+    // Deja en la base el estado actual del carrito (antes del checkout), dentro de la transaccion
+    // activa si la hay. Devuelve la version escrita, que viaja en CarritoCompradoEvent;
+    // SIN_VERSION si no hay nada en memoria
+    long flush(String token);
+
+    // Olvida lo que se tenga en memoria del carrito; la base pasa a ser la fuente (carrito borrado)
+    void descartar(String token);
+}
@@ -0,0 +1,164 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dao.CarritoItemRepository;
+import com.distribuida.dao.CarritoRepository;
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.OperacionCarritoRequest;
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+// Cada operacion va directo a carrito / carrito_item
+@Component
+@ConditionalOnProperty(name = "libreria.carrito.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+
+    private final CarritoRepository carritoRepository;
+    private final CarritoItemRepository carritoItemRepository;
+    private final LibroRepository libroRepository;
+    private final TotalesCarrito totales;
+
+    public JpaCartStore(CarritoRepository carritoRepository,
+                        CarritoItemRepository carritoItemRepository,
+                        LibroRepository libroRepository,
+                        TotalesCarrito totales) {
+        this.carritoRepository = carritoRepository;
+        this.carritoItemRepository = carritoItemRepository;
+        this.libroRepository = libroRepository;
+        this.totales = totales;
+    }
+
+    @Override
+    @Transactional
+    public Carrito getOrCreate(String token) {
+        // Si no se recibe token, se genera uno único
+        if(token == null || token.isEmpty()) {
+            token = UUID.randomUUID().toString();
+        }
+
+        String finalToken = token;
+        return carritoRepository.findByToken(token)
+                .orElseGet(() -> {
+                    var c = new Carrito();
+                    c.setToken(finalToken);
+                    c.setSubtotal(BigDecimal.ZERO);
+                    c.setDescuento(BigDecimal.ZERO);
+                    c.setImpuestos(BigDecimal.ZERO);
+                    c.setTotal(BigDecimal.ZERO);
+                    c.setItems(new ArrayList<>()); // inicializa la lista de items
+                    return carritoRepository.save(c);
+                });
+    }
+
+    @Override
+    @Transactional
+    public Carrito get(String token) {
+        return carritoRepository.findByToken(token)
+                .orElseGet(() -> vacio(token));
+    }
+
+    @Override
+    @Transactional
+    public Carrito addItem(String token, int libroId, int cantidad) {
+        if (cantidad <= 0) throw new IllegalArgumentException("Cantidad debe ser > 0 ");
+        var carrito = getOrCreate(token);
+        var libro = libroRepository.findById(libroId)
+                .orElseThrow(() -> new IllegalArgumentException("Libro no encontrado: "+libroId));
+        var itemOpt = carritoItemRepository.findByCarritoAndLibro(carrito, libro);
+        if (itemOpt.isPresent()) {
+            var item = itemOpt.get();
+            var anterior = Carrito.aporte(item);
+            item.setCantidad(item.getCantidad() + cantidad);
+            item.setPrecioUnitario(BigDecimal.valueOf(libro.getPrecio()));
+            item.calcTotal();
+            carritoItemRepository.save(item);
+            totales.cambiado(carrito, anterior, item);
+        }else {
+            var item = new CarritoItem();
+            item.setCarrito(carrito);
+            item.setLibro(libro);
+            item.setCantidad(cantidad);
+            item.setPrecioUnitario(BigDecimal.valueOf(libro.getPrecio()));
+            item.calcTotal();
+            carrito.getItems().add(item);
+            totales.agregado(carrito, item);
+        }
+        return carritoRepository.save(carrito);
+    }
+
+    @Override
+    @Transactional
+    public Carrito updateItemCantidad(String token, long carritoItemId, int nuevaCantidad) {
+        var carrito = getOrCreate(token);
+        var item = carritoItemRepository.findById(carritoItemId)
+                .orElseThrow(() -> new IllegalArgumentException("Item no encontrado: "+ carritoItemId));
+        // Una linea de otro carrito descuadraria los totales de este
+        if (item.getCarrito() == null || !Objects.equals(item.getCarrito().getIdCarrito(), carrito.getIdCarrito())) {
+            throw new IllegalArgumentException("Item no encontrado: "+ carritoItemId);
+        }
+
+        var anterior = Carrito.aporte(item);
+        if (nuevaCantidad <= 0 ){
+            carrito.getItems().remove(item);
+            carritoItemRepository.delete(item);
+            totales.quitado(carrito, anterior);
+        }else {
+            item.setCantidad(nuevaCantidad);
+            item.calcTotal();
+            carritoItemRepository.save(item);
+            totales.cambiado(carrito, anterior, item);
+        }
+        return carritoRepository.save(carrito);
+    }
+
+    @Override
+    @Transactional
+    public void clear(String token) {
+        var carrito = getOrCreate(token);
+        carrito.getItems().clear();
+        carrito.setSubtotal(BigDecimal.ZERO);
+        carrito.setDescuento(BigDecimal.ZERO);
+        carrito.setImpuestos(BigDecimal.ZERO);
+        carrito.setTotal(BigDecimal.ZERO);
+        carritoRepository.save(carrito);
+    }
+
+    @Override
+    @Transactional
+    public Carrito aplicar(String token, List<OperacionCarritoRequest> operaciones) {
+        var libros = OperacionesCarrito.cargarLibros(operaciones, libroRepository);
+        var carrito = getOrCreate(token);
+        // Altas y bajas van por cascade / orphanRemoval del carrito: un solo save al final
+        OperacionesCarrito.aplicar(carrito, operaciones, libros, id -> id, () -> null);
+        return carritoRepository.save(carrito);
+    }
+
+    @Override
+    public long flush(String token) {
+        // Ya esta en la base
+        return SIN_VERSION;
+    }
+
+    @Override
+    public void descartar(String token) {
+        // No guarda nada en memoria
+    }
+
+    static Carrito vacio(String token) {
+        var c = new Carrito();
+        c.setToken(token);
+        c.setSubtotal(BigDecimal.ZERO);
+        c.setDescuento(BigDecimal.ZERO);
+        c.setImpuestos(BigDecimal.ZERO);
+        c.setTotal(BigDecimal.ZERO);
+        return c;
+    }
+}
@@ -0,0 +1,149 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dto.EstadisticaLimpieza;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Borra los carritos de invitado (sin cliente) que no se tocan hace mas de ttl-horas, junto con
+// sus items. Recorre carrito por (actualizado_en, id_carrito) con keyset y borra de a lotes, cada
+// lote en su propia transaccion corta. Las filas bloqueadas (un checkout en curso) se saltan y
+// quedan para la proxima pasada.
+@Component
+public class LimpiezaCarritos {
+
+    private static final Logger log = LoggerFactory.getLogger(LimpiezaCarritos.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final CartStore cartStore;
+    private final int ttlHoras;
+    private final int tamanioLote;
+
+    // Una sola pasada a la vez (la programada y la manual pueden coincidir)
+    private final ReentrantLock enCurso = new ReentrantLock();
+    private long ejecuciones;
+    private long carritosBorrados;
+    private long itemsBorrados;
+    private volatile EstadisticaLimpieza estadisticas = new EstadisticaLimpieza(0, 0, 0, null, 0, 0, 0);
+
+    public LimpiezaCarritos(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            CartStore cartStore,
+                            @Value("${libreria.carrito.limpieza.ttl-horas:168}") int ttlHoras,
+                            @Value("${libreria.carrito.limpieza.lote:500}") int tamanioLote) {
+        if (ttlHoras <= 0) throw new IllegalArgumentException("El TTL de carritos debe ser positivo");
+        if (tamanioLote <= 0) throw new IllegalArgumentException("El lote de limpieza debe ser positivo");
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.cartStore = cartStore;
+        this.ttlHoras = ttlHoras;
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Scheduled(initialDelayString = "${libreria.carrito.limpieza.intervalo-ms:600000}",
+            fixedDelayString = "${libreria.carrito.limpieza.intervalo-ms:600000}")
+    public void programada() {
+        limpiar();
+    }
+
+    public EstadisticaLimpieza limpiar() {
+        if (!enCurso.tryLock()) return estadisticas;
+        try {
+            long inicio = System.nanoTime();
+            // El corte sale del reloj de la base: actualizado_en lo pone la base con su propio reloj y
+            // zona. localtimestamp es lo mismo que now() en MySQL y tambien existe en H2 (perfil h2)
+            LocalDateTime limite = jdbcTemplate.queryForObject("select localtimestamp", LocalDateTime.class)
+                    .minusHours(ttlHoras);
+
+            long carritos = 0;
+            long items = 0;
+            Lote lote = new Lote(null, 0);
+            do {
+                Lote anterior = lote;
+                lote = transaccion.execute(status -> borrarLote(limite, anterior));
+                carritos += lote.carritos;
+                items += lote.items;
+                // Fuera de la transaccion: la copia en memoria de un carrito borrado ya no sirve
+                lote.tokens.forEach(cartStore::descartar);
+            } while (lote.encontrados == tamanioLote);
+
+            long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+            ejecuciones++;
+            carritosBorrados += carritos;
+            itemsBorrados += items;
+            estadisticas = new EstadisticaLimpieza(ejecuciones, carritosBorrados, itemsBorrados,
+                    LocalDateTime.now(), carritos, items, duracionMs);
+            if (carritos > 0) {
+                log.info("Limpieza de carritos: {} carritos y {} items borrados en {} ms", carritos, items, duracionMs);
+            }
+            return estadisticas;
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    public EstadisticaLimpieza estadisticas() {
+        return estadisticas;
+    }
+
+    // Dentro de la transaccion del lote; los locks duran lo que tarda este metodo
+    private Lote borrarLote(LocalDateTime limite, Lote anterior) {
+        List<Object> parametros = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(
+                "select id_carrito, token, actualizado_en from carrito where id_cliente is null and actualizado_en < ?");
+        parametros.add(limite);
+        if (anterior.ultimaFecha != null) {
+            sql.append(" and (actualizado_en > ? or (actualizado_en = ? and id_carrito > ?))");
+            parametros.add(anterior.ultimaFecha);
+            parametros.add(anterior.ultimaFecha);
+            parametros.add(anterior.ultimoId);
+        }
+        sql.append(" order by actualizado_en, id_carrito limit ? for update skip locked");
+        parametros.add(tamanioLote);
+
+        List<Long> ids = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        Lote lote = new Lote(anterior.ultimaFecha, anterior.ultimoId);
+        jdbcTemplate.query(sql.toString(), rs -> {
+            ids.add(rs.getLong("id_carrito"));
+            if (rs.getString("token") != null) tokens.add(rs.getString("token"));
+            lote.ultimaFecha = rs.getObject("actualizado_en", LocalDateTime.class);
+            lote.ultimoId = rs.getLong("id_carrito");
+        }, parametros.toArray());
+        lote.encontrados = ids.size();
+        if (ids.isEmpty()) return lote;
+
+        String enLista = String.join(",", Collections.nCopies(ids.size(), "?"));
+        lote.items = jdbcTemplate.update("delete from carrito_item where id_carrito in (" + enLista + ")", ids.toArray());
+        lote.carritos = jdbcTemplate.update("delete from carrito where id_carrito in (" + enLista + ")", ids.toArray());
+        lote.tokens = tokens;
+        return lote;
+    }
+
+    // Un lote borrado y hasta donde llego el recorrido
+    private static final class Lote {
+        private LocalDateTime ultimaFecha;
+        private long ultimoId;
+        private int encontrados;
+        private int carritos;
+        private int items;
+        private List<String> tokens = List.of();
+
+        private Lote(LocalDateTime ultimaFecha, long ultimoId) {
+            this.ultimaFecha = ultimaFecha;
+            this.ultimoId = ultimoId;
+        }
+    }
+}
@@ -0,0 +1,630 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dao.CarritoRepository;
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.OperacionCarritoRequest;
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import com.distribuida.service.CarritoCompradoEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Carritos de invitado atendidos desde memoria. Cada token cae en un shard (hash del token)
+// con su propio lock, asi dos carritos distintos casi nunca se bloquean entre si.
+// Los cambios se escriben en carrito / carrito_item por lotes cada flush-ms, y de forma
+// sincrona con flush(token) al empezar el checkout, dentro de su transaccion. Un carrito limpio e inactivo sale de memoria, y
+// cada shard guarda a lo sumo maximo/SHARDS carritos: al pasarse salen primero los limpios menos usados.
+@Component
+@ConditionalOnProperty(name = "libreria.carrito.store", havingValue = "memoria")
+public class MemoriaCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoriaCartStore.class);
+
+    private static final int SHARDS = 64;
+    private static final int LOTE = 100;
+
+    private final CarritoRepository carritoRepository;
+    private final LibroRepository libroRepository;
+    private final TotalesCarrito totales;
+    private final TransactionTemplate transaccion;
+    private final long inactividadMs;
+    private final int maximoPorShard;
+
+    private final Shard[] shards = new Shard[SHARDS];
+
+    public MemoriaCartStore(CarritoRepository carritoRepository,
+                            LibroRepository libroRepository,
+                            PlatformTransactionManager transactionManager,
+                            TotalesCarrito totales,
+                            @Value("${libreria.carrito.memoria.inactividad-ms:1800000}") long inactividadMs,
+                            @Value("${libreria.carrito.memoria.maximo:100000}") int maximo) {
+        if (maximo <= 0) throw new IllegalArgumentException("El maximo de carritos en memoria debe ser positivo");
+        this.carritoRepository = carritoRepository;
+        this.libroRepository = libroRepository;
+        this.totales = totales;
+        // Transaccion propia para el flush programado y las lecturas, que corren sin transaccion alrededor
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.inactividadMs = inactividadMs;
+        this.maximoPorShard = Math.max(1, (maximo + SHARDS - 1) / SHARDS);
+        for (int i = 0; i < SHARDS; i++) shards[i] = new Shard();
+    }
+
+    @Override
+    public Carrito getOrCreate(String token) {
+        // Si no se recibe token, se genera uno único
+        if (token == null || token.isEmpty()) {
+            token = UUID.randomUUID().toString();
+        }
+        Shard shard = shard(token);
+        Entrada entrada = tomar(shard, token);
+        try {
+            entrada.ultimoAcceso = System.currentTimeMillis();
+            if (entrada.carrito.getIdCarrito() != null) return copiar(entrada.carrito);
+            // Como en JpaCartStore, el carrito queda creado en la base
+            entrada.version++;
+        } finally {
+            shard.lock.unlock();
+        }
+        flush(token);
+        entrada = tomar(shard, token);
+        try {
+            return copiar(entrada.carrito);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public Carrito get(String token) {
+        Shard shard = shard(token);
+        shard.lock.lock();
+        try {
+            Entrada entrada = shard.entradas.get(token);
+            if (entrada != null) {
+                entrada.ultimoAcceso = System.currentTimeMillis();
+                return copiar(entrada.carrito);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        // Un token desconocido no ocupa memoria: vacio y sin guardar, como en JpaCartStore
+        Carrito leido = leer(token);
+        if (leido == null) return JpaCartStore.vacio(token);
+        shard.lock.lock();
+        try {
+            Entrada entrada = agregar(shard, token, new Entrada(leido));
+            entrada.ultimoAcceso = System.currentTimeMillis();
+            return copiar(entrada.carrito);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public Carrito addItem(String token, int libroId, int cantidad) {
+        if (cantidad <= 0) throw new IllegalArgumentException("Cantidad debe ser > 0 ");
+        // Fuera del lock: el libro suele salir del cache de segundo nivel
+        var libro = libroRepository.findById(libroId)
+                .orElseThrow(() -> new IllegalArgumentException("Libro no encontrado: "+libroId));
+        Shard shard = shard(token);
+        Entrada entrada = tomar(shard, token);
+        try {
+            var carrito = entrada.carrito;
+            CarritoItem item = null;
+            for (var it : carrito.getItems()) {
+                if (it.getLibro().getIdLibro() == libroId) {
+                    item = it;
+                    break;
+                }
+            }
+            if (item != null) {
+                var anterior = Carrito.aporte(item);
+                item.setCantidad(item.getCantidad() + cantidad);
+                item.setPrecioUnitario(BigDecimal.valueOf(libro.getPrecio()));
+                item.calcTotal();
+                totales.cambiado(carrito, anterior, item);
+            } else {
+                item = new CarritoItem();
+                item.setIdCarritoItem(entrada.siguienteTemporal--);
+                item.setCarrito(carrito);
+                item.setLibro(libro);
+                item.setCantidad(cantidad);
+                item.setPrecioUnitario(BigDecimal.valueOf(libro.getPrecio()));
+                item.calcTotal();
+                carrito.getItems().add(item);
+                totales.agregado(carrito, item);
+            }
+            return modificado(entrada);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public Carrito updateItemCantidad(String token, long carritoItemId, int nuevaCantidad) {
+        Shard shard = shard(token);
+        Entrada entrada = tomar(shard, token);
+        try {
+            // Un id temporal que el cliente vio antes del ultimo flush ya tiene id de la base
+            long id = entrada.alias.getOrDefault(carritoItemId, carritoItemId);
+            var items = entrada.carrito.getItems();
+            var item = items.stream()
+                    .filter(it -> it.getIdCarritoItem() == id)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Item no encontrado: "+ carritoItemId));
+            var anterior = Carrito.aporte(item);
+            if (nuevaCantidad <= 0) {
+                items.remove(item);
+                totales.quitado(entrada.carrito, anterior);
+            } else {
+                item.setCantidad(nuevaCantidad);
+                item.calcTotal();
+                totales.cambiado(entrada.carrito, anterior, item);
+            }
+            return modificado(entrada);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear(String token) {
+        Shard shard = shard(token);
+        Entrada entrada = tomar(shard, token);
+        try {
+            var carrito = entrada.carrito;
+            carrito.getItems().clear();
+            carrito.setSubtotal(BigDecimal.ZERO);
+            carrito.setDescuento(BigDecimal.ZERO);
+            carrito.setImpuestos(BigDecimal.ZERO);
+            carrito.setTotal(BigDecimal.ZERO);
+            entrada.version++;
+            entrada.ultimoAcceso = System.currentTimeMillis();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public Carrito aplicar(String token, List<OperacionCarritoRequest> operaciones) {
+        var libros = OperacionesCarrito.cargarLibros(operaciones, libroRepository);
+        Shard shard = shard(token);
+        Entrada entrada = tomar(shard, token);
+        try {
+            // Sobre una copia: si una operacion falla, el carrito queda como estaba
+            Carrito trabajo = copiar(entrada.carrito);
+            OperacionesCarrito.aplicar(trabajo, operaciones, libros,
+                    id -> entrada.alias.getOrDefault(id, id),
+                    () -> entrada.siguienteTemporal--);
+            entrada.carrito = trabajo;
+            return modificado(entrada);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public long flush(String token) {
+        Shard shard = shard(token);
+        Entrada entrada;
+        shard.lock.lock();
+        try {
+            entrada = shard.entradas.get(token);
+        } finally {
+            shard.lock.unlock();
+        }
+        if (entrada == null) return SIN_VERSION;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) return flushEnTransaccion(shard, token, entrada);
+        // Sin capturar: si no se pudo guardar, el checkout no debe seguir con datos viejos
+        entrada.persistencia.lock();
+        try {
+            Runnable confirmar = transaccion.execute(status -> persistir(new Pendiente(shard, token, entrada)));
+            if (confirmar != null) confirmar.run();
+        } finally {
+            entrada.persistencia.unlock();
+        }
+        shard.lock.lock();
+        try {
+            return entrada.versionPersistida;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // Dentro de la transaccion de quien llama (el checkout): una REQUIRES_NEW pediria una segunda
+    // conexion mientras la primera sigue tomada, y con checkouts concurrentes el pool se agota.
+    // Lo escrito se confirma con esa transaccion; hasta que termine, el flush programado salta
+    // este carrito (lock de persistencia tomado). Un carrito sin cambios no se escribe.
+    private long flushEnTransaccion(Shard shard, String token, Entrada entrada) {
+        entrada.persistencia.lock();
+        Pendiente pendiente = new Pendiente(shard, token, entrada);
+        Runnable confirmar;
+        try {
+            confirmar = persistir(pendiente);
+        } catch (RuntimeException e) {
+            entrada.persistencia.unlock();
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Corre antes que los @TransactionalEventListener (esos van en afterCompletion)
+            @Override
+            public void afterCommit() {
+                if (confirmar != null) confirmar.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                entrada.persistencia.unlock();
+            }
+        });
+        if (confirmar != null) return pendiente.version;
+        shard.lock.lock();
+        try {
+            return entrada.versionPersistida;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public void descartar(String token) {
+        Shard shard = shard(token);
+        shard.lock.lock();
+        try {
+            shard.entradas.remove(token);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // Despues del commit del checkout. Si el carrito sigue en la version que escribio flush, sale de
+    // memoria (la base ya lo tiene vacio). Si cambio mientras tanto (otra pestania agrego algo), se le
+    // restan solo las unidades compradas y lo que queda se guarda en el proximo flush.
+    @TransactionalEventListener
+    public void onCarritoComprado(CarritoCompradoEvent evento) {
+        String token = evento.getToken();
+        Shard shard = shard(token);
+        shard.lock.lock();
+        try {
+            Entrada entrada = shard.entradas.get(token);
+            if (entrada == null) return;
+            if (entrada.version == evento.getVersion()) {
+                shard.entradas.remove(token);
+                return;
+            }
+            var items = entrada.carrito.getItems();
+            for (Iterator<CarritoItem> it = items.iterator(); it.hasNext(); ) {
+                CarritoItem item = it.next();
+                Integer comprado = evento.getCantidades().get(item.getLibro().getIdLibro());
+                if (comprado == null) continue;
+                if (item.getCantidad() <= comprado) {
+                    it.remove();
+                } else {
+                    item.setCantidad(item.getCantidad() - comprado);
+                    item.calcTotal();
+                }
+            }
+            // El checkout borro todas las lineas de la base: las que quedan vuelven a ser nuevas
+            for (var item : items) {
+                if (item.getIdCarritoItem() > 0) renombrar(entrada, item, entrada.siguienteTemporal--);
+            }
+            entrada.carrito.recomputarTotales(IVA);
+            modificado(entrada);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // Escribe los carritos modificados por lotes y saca de memoria los que llevan rato sin uso
+    @Scheduled(fixedDelayString = "${libreria.carrito.memoria.flush-ms:2000}")
+    public void flushPendientes() {
+        List<Pendiente> pendientes = new ArrayList<>();
+        long limite = System.currentTimeMillis() - inactividadMs;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                Iterator<Map.Entry<String, Entrada>> it = shard.entradas.entrySet().iterator();
+                while (it.hasNext()) {
+                    var e = it.next();
+                    Entrada entrada = e.getValue();
+                    if (entrada.sucio()) {
+                        pendientes.add(new Pendiente(shard, e.getKey(), entrada));
+                    } else if (entrada.ultimoAcceso < limite) {
+                        it.remove();
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+
+        for (int desde = 0; desde < pendientes.size(); desde += LOTE) {
+            // Si otro hilo ya esta guardando un carrito (checkout), este lote lo salta
+            List<Pendiente> lote = new ArrayList<>();
+            for (Pendiente p : pendientes.subList(desde, Math.min(desde + LOTE, pendientes.size()))) {
+                if (p.entrada.persistencia.tryLock()) lote.add(p);
+            }
+            try {
+                flushLote(lote);
+            } finally {
+                lote.forEach(p -> p.entrada.persistencia.unlock());
+            }
+        }
+    }
+
+    // Con el lock de persistencia de cada carrito del lote tomado
+    private void flushLote(List<Pendiente> lote) {
+        try {
+            List<Runnable> confirmar = transaccion.execute(status -> {
+                List<Runnable> acciones = new ArrayList<>();
+                for (Pendiente p : lote) {
+                    Runnable accion = persistir(p);
+                    if (accion != null) acciones.add(accion);
+                }
+                return acciones;
+            });
+            confirmar.forEach(Runnable::run);
+        } catch (RuntimeException e) {
+            // Un carrito con problemas no debe frenar al resto del lote: se reintenta de a uno
+            for (Pendiente p : lote) {
+                try {
+                    Runnable confirmar = transaccion.execute(status -> persistir(p));
+                    if (confirmar != null) confirmar.run();
+                } catch (RuntimeException ex) {
+                    log.warn("No se pudo guardar el carrito {}: {}", p.token, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        flushPendientes();
+    }
+
+    // Cantidad de carritos en memoria
+    int tamanio() {
+        int total = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                total += shard.entradas.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    private Shard shard(String token) {
+        return shards[Math.floorMod(token.hashCode(), SHARDS)];
+    }
+
+    // Devuelve la entrada del token con el lock del shard tomado (quien llama lo suelta). Entre cargar
+    // y tomar el lock la entrada pudo salir del mapa (inactiva, desalojada, checkout o limpieza): en
+    // ese caso se vuelve a cargar, si no el cambio quedaria en una entrada que nadie guarda.
+    private Entrada tomar(Shard shard, String token) {
+        while (true) {
+            Entrada entrada = cargar(shard, token);
+            shard.lock.lock();
+            if (shard.entradas.get(token) == entrada) return entrada;
+            shard.lock.unlock();
+        }
+    }
+
+    // Devuelve la entrada del token; si no esta en memoria se lee de la base fuera del lock
+    private Entrada cargar(Shard shard, String token) {
+        shard.lock.lock();
+        try {
+            Entrada entrada = shard.entradas.get(token);
+            if (entrada != null) return entrada;
+        } finally {
+            shard.lock.unlock();
+        }
+
+        Carrito leido = leer(token);
+        Entrada nueva = new Entrada(leido != null ? leido : JpaCartStore.vacio(token));
+
+        shard.lock.lock();
+        try {
+            return agregar(shard, token, nueva);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private Carrito leer(String token) {
+        Carrito leido = transaccion.execute(status -> carritoRepository.findByToken(token)
+                .map(MemoriaCartStore::copiar)
+                .orElse(null));
+        // Un recalculo completo al cargar; de ahi en mas los totales se ajustan por diferencia
+        if (leido != null) leido.recomputarTotales(IVA);
+        return leido;
+    }
+
+    // Con el lock del shard tomado. Otro hilo pudo cargarla mientras tanto: gana la primera.
+    // Si el shard se pasa del maximo salen los limpios menos usados; los sucios esperan a su flush.
+    private Entrada agregar(Shard shard, String token, Entrada nueva) {
+        Entrada actual = shard.entradas.putIfAbsent(token, nueva);
+        if (actual != null) return actual;
+        Iterator<Map.Entry<String, Entrada>> it = shard.entradas.entrySet().iterator();
+        while (shard.entradas.size() > maximoPorShard && it.hasNext()) {
+            var e = it.next();
+            if (e.getValue() != nueva && !e.getValue().sucio()) it.remove();
+        }
+        return nueva;
+    }
+
+    // Con el lock del shard tomado. Cambia el id de una linea y redirige los ids que el cliente ya vio
+    private static void renombrar(Entrada entrada, CarritoItem item, long id) {
+        Long anterior = item.getIdCarritoItem();
+        entrada.alias.replaceAll((visto, actual) -> actual.equals(anterior) ? id : actual);
+        entrada.alias.put(anterior, id);
+        item.setIdCarritoItem(id);
+    }
+
+    // Con el lock del shard tomado
+    private Carrito modificado(Entrada entrada) {
+        entrada.version++;
+        entrada.ultimoAcceso = System.currentTimeMillis();
+        return copiar(entrada.carrito);
+    }
+
+    // Lleva el carrito de memoria a la base dentro de la transaccion actual. Los items se
+    // emparejan por libro (unico por carrito), no por id, porque los nuevos aun no tienen id.
+    // Devuelve lo que hay que aplicar en memoria una vez confirmada la transaccion (null si no habia cambios).
+    private Runnable persistir(Pendiente pendiente) {
+        Shard shard = pendiente.shard;
+        Entrada entrada = pendiente.entrada;
+        Carrito foto;
+        long version;
+        shard.lock.lock();
+        try {
+            if (!entrada.sucio()) return null;
+            foto = copiar(entrada.carrito);
+            version = entrada.version;
+            pendiente.version = version;
+        } finally {
+            shard.lock.unlock();
+        }
+
+        Carrito db = (foto.getIdCarrito() != null
+                ? carritoRepository.findById(foto.getIdCarrito())
+                : carritoRepository.findByToken(pendiente.token))
+                .orElseGet(() -> JpaCartStore.vacio(pendiente.token));
+
+        Map<Integer, CarritoItem> enMemoria = new HashMap<>();
+        for (var it : foto.getItems()) enMemoria.put(it.getLibro().getIdLibro(), it);
+
+        db.getItems().removeIf(it -> !enMemoria.containsKey(it.getLibro().getIdLibro()));
+        Map<Integer, CarritoItem> enBase = new HashMap<>();
+        for (var it : db.getItems()) enBase.put(it.getLibro().getIdLibro(), it);
+
+        for (var origen : foto.getItems()) {
+            int idLibro = origen.getLibro().getIdLibro();
+            CarritoItem destino = enBase.get(idLibro);
+            if (destino == null) {
+                destino = new CarritoItem();
+                destino.setCarrito(db);
+                destino.setLibro(libroRepository.getReferenceById(idLibro));
+                db.getItems().add(destino);
+                enBase.put(idLibro, destino);
+            }
+            destino.setCantidad(origen.getCantidad());
+            destino.setPrecioUnitario(origen.getPrecioUnitario());
+            destino.calcTotal();
+        }
+        db.setSubtotal(foto.getSubtotal());
+        db.setDescuento(foto.getDescuento());
+        db.setImpuestos(foto.getImpuestos());
+        db.setTotal(foto.getTotal());
+        db = carritoRepository.saveAndFlush(db);
+
+        Long idCarrito = db.getIdCarrito();
+        Map<Integer, Long> ids = new HashMap<>();
+        for (var it : db.getItems()) ids.put(it.getLibro().getIdLibro(), it.getIdCarritoItem());
+
+        return () -> {
+            shard.lock.lock();
+            try {
+                entrada.carrito.setIdCarrito(idCarrito);
+                for (var it : entrada.carrito.getItems()) {
+                    Long idBase = ids.get(it.getLibro().getIdLibro());
+                    if (idBase != null && it.getIdCarritoItem() < 0) renombrar(entrada, it, idBase);
+                }
+                // Si hubo cambios mientras se escribia, sigue sucio para el proximo flush
+                entrada.versionPersistida = version;
+            } finally {
+                shard.lock.unlock();
+            }
+        };
+    }
+
+    // Copia suelta del carrito: lo que se entrega a quien llama no comparte estado con la memoria
+    static Carrito copiar(Carrito origen) {
+        var copia = new Carrito();
+        copia.setIdCarrito(origen.getIdCarrito());
+        copia.setToken(origen.getToken());
+        copia.setVersion(origen.getVersion());
+        copia.setSubtotal(origen.getSubtotal());
+        copia.setDescuento(origen.getDescuento());
+        copia.setImpuestos(origen.getImpuestos());
+        copia.setTotal(origen.getTotal());
+        copia.setActualizadoEn(origen.getActualizadoEn());
+        List<CarritoItem> items = new ArrayList<>(origen.getItems().size());
+        for (var it : origen.getItems()) {
+            var item = new CarritoItem();
+            item.setIdCarritoItem(it.getIdCarritoItem());
+            item.setCarrito(copia);
+            item.setLibro(it.getLibro());
+            item.setCantidad(it.getCantidad());
+            item.setPrecioUnitario(it.getPrecioUnitario());
+            item.setTotal(it.getTotal());
+            item.setVersion(it.getVersion());
+            items.add(item);
+        }
+        copia.setItems(items);
+        return copia;
+    }
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        // En orden de acceso: la primera es la menos usada
+        private final Map<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    private static final class Pendiente {
+        private final Shard shard;
+        private final String token;
+        private final Entrada entrada;
+        // La que escribio persistir
+        private long version;
+
+        private Pendiente(Shard shard, String token, Entrada entrada) {
+            this.shard = shard;
+            this.token = token;
+            this.entrada = entrada;
+        }
+    }
+
+    private static final class Entrada {
+        private Carrito carrito;
+        // Un solo flush a la vez por carrito (el programado y el del checkout pueden coincidir)
+        private final ReentrantLock persistencia = new ReentrantLock();
+        private final Map<Long, Long> alias = new HashMap<>();
+        private long version;
+        private long versionPersistida;
+        private long ultimoAcceso = System.currentTimeMillis();
+        private long siguienteTemporal = -1;
+
+        private Entrada(Carrito carrito) {
+            this.carrito = carrito;
+        }
+
+        private boolean sucio() {
+            return version != versionPersistida;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.OperacionCarritoRequest;
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import com.distribuida.model.Libro;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+
+// Aplica una lista de operaciones add/set/remove sobre un carrito. Lo comparten las dos
+// implementaciones de CartStore; cada una pone su transaccion o su copia en memoria.
+final class OperacionesCarrito {
+
+    static final int MAXIMO = 500;
+
+    private OperacionesCarrito() {
+    }
+
+    // Valida la forma de cada operacion y trae todos los libros que se mencionan en una sola consulta
+    static Map<Integer, Libro> cargarLibros(List<OperacionCarritoRequest> operaciones, LibroRepository libroRepository) {
+        if (operaciones == null || operaciones.isEmpty()) {
+            throw new IllegalArgumentException("No hay operaciones");
+        }
+        if (operaciones.size() > MAXIMO) {
+            throw new IllegalArgumentException("Maximo " + MAXIMO + " operaciones por pedido");
+        }
+        Set<Integer> ids = new TreeSet<>();
+        for (var op : operaciones) {
+            String tipo = op.getOp() == null ? "" : op.getOp();
+            switch (tipo) {
+                case "add" -> {
+                    if (op.getLibroId() == null) throw new IllegalArgumentException("add requiere libroId");
+                    if (op.getCantidad() <= 0) throw new IllegalArgumentException("Cantidad debe ser > 0 ");
+                    ids.add(op.getLibroId());
+                }
+                case "set" -> {
+                    if (op.getCantidad() < 0) throw new IllegalArgumentException("Cantidad no puede ser negativa");
+                    if (op.getLibroId() != null) ids.add(op.getLibroId());
+                    else if (op.getCarritoItemId() == null) throw new IllegalArgumentException("set requiere libroId o carritoItemId");
+                }
+                case "remove" -> {
+                    if (op.getLibroId() == null && op.getCarritoItemId() == null) {
+                        throw new IllegalArgumentException("remove requiere libroId o carritoItemId");
+                    }
+                }
+                default -> throw new IllegalArgumentException("Operacion no soportada: " + op.getOp());
+            }
+        }
+
+        Map<Integer, Libro> libros = new HashMap<>();
+        for (Libro libro : libroRepository.findAllById(ids)) libros.put(libro.getIdLibro(), libro);
+        for (Integer id : ids) {
+            if (!libros.containsKey(id)) throw new IllegalArgumentException("Libro no encontrado: " + id);
+        }
+        return libros;
+    }
+
+    // Aplica las operaciones en orden sobre los items del carrito y recalcula los totales una sola vez.
+    // resolverId traduce ids de item que el cliente pudo recibir antes (temporales en memoria);
+    // idNuevo da el id de una linea nueva (null en la base, la pone el INSERT).
+    static void aplicar(Carrito carrito, List<OperacionCarritoRequest> operaciones, Map<Integer, Libro> libros,
+                        LongUnaryOperator resolverId, Supplier<Long> idNuevo) {
+        Map<Integer, CarritoItem> porLibro = new HashMap<>();
+        for (var it : carrito.getItems()) porLibro.put(it.getLibro().getIdLibro(), it);
+
+        for (var op : operaciones) {
+            CarritoItem item = op.getLibroId() != null
+                    ? porLibro.get(op.getLibroId())
+                    : buscar(carrito, resolverId.applyAsLong(op.getCarritoItemId()), op.getCarritoItemId());
+            switch (op.getOp()) {
+                case "add" -> {
+                    if (item == null) {
+                        item = nuevo(carrito, libros.get(op.getLibroId()), idNuevo);
+                        porLibro.put(op.getLibroId(), item);
+                        item.setCantidad(op.getCantidad());
+                    } else {
+                        item.setCantidad(item.getCantidad() + op.getCantidad());
+                    }
+                    item.setPrecioUnitario(BigDecimal.valueOf(libros.get(op.getLibroId()).getPrecio()));
+                    item.calcTotal();
+                }
+                case "set" -> {
+                    if (op.getCantidad() == 0) {
+                        quitar(carrito, porLibro, item);
+                    } else {
+                        if (item == null) {
+                            item = nuevo(carrito, libros.get(op.getLibroId()), idNuevo);
+                            porLibro.put(op.getLibroId(), item);
+                            item.setPrecioUnitario(BigDecimal.valueOf(item.getLibro().getPrecio()));
+                        }
+                        item.setCantidad(op.getCantidad());
+                        item.calcTotal();
+                    }
+                }
+                default -> quitar(carrito, porLibro, item);
+            }
+        }
+        carrito.recomputarTotales(CartStore.IVA);
+    }
+
+    private static CarritoItem buscar(Carrito carrito, long id, long pedido) {
+        return carrito.getItems().stream()
+                .filter(it -> it.getIdCarritoItem() != null && it.getIdCarritoItem() == id)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Item no encontrado: " + pedido));
+    }
+
+    private static CarritoItem nuevo(Carrito carrito, Libro libro, Supplier<Long> idNuevo) {
+        var item = new CarritoItem();
+        item.setIdCarritoItem(idNuevo.get());
+        item.setCarrito(carrito);
+        item.setLibro(libro);
+        carrito.getItems().add(item);
+        return item;
+    }
+
+    // Quitar un libro que no esta en el carrito no es error: el resultado es el mismo
+    private static void quitar(Carrito carrito, Map<Integer, CarritoItem> porLibro, CarritoItem item) {
+        if (item == null) return;
+        carrito.getItems().remove(item);
+        porLibro.remove(item.getLibro().getIdLibro());
+    }
+}
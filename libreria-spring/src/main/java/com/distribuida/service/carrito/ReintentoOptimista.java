@@ -0,0 +1,89 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dto.EstadisticaConflictos;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Reintenta una modificacion de carrito que choco con otra: version vieja (@Version) o el mismo
+// carrito / la misma linea insertados a la vez (clave unica). Cada intento tiene que abrir su propia
+// transaccion; dentro de una transaccion ya abierta no tiene sentido reintentar y se ejecuta una vez.
+// Por JPA la clave duplicada llega como DataIntegrityViolationException con la
+// ConstraintViolationException de Hibernate (tipo UNIQUE) de causa. Otras violaciones de integridad
+// (NOT NULL, FK, largo) no son transitorias: salen sin reintentar.
+@Component
+public class ReintentoOptimista {
+
+    private final int intentos;
+    private final long esperaBaseMs;
+
+    private final AtomicLong conflictos = new AtomicLong();
+    private final AtomicLong agotados = new AtomicLong();
+
+    public ReintentoOptimista(@Value("${libreria.carrito.reintentos:5}") int intentos,
+                              @Value("${libreria.carrito.reintento-espera-ms:10}") long esperaBaseMs) {
+        if (intentos <= 0) throw new IllegalArgumentException("Los intentos deben ser positivos");
+        this.intentos = intentos;
+        this.esperaBaseMs = esperaBaseMs;
+    }
+
+    public <T> T ejecutar(Supplier<T> operacion) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operacion.get();
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                return operacion.get();
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (e instanceof DataIntegrityViolationException && !claveDuplicada(e)) throw e;
+                conflictos.incrementAndGet();
+                if (intento >= intentos) {
+                    agotados.incrementAndGet();
+                    throw e;
+                }
+                esperar(intento, e);
+            }
+        }
+    }
+
+    public void ejecutar(Runnable operacion) {
+        ejecutar(() -> {
+            operacion.run();
+            return null;
+        });
+    }
+
+    public EstadisticaConflictos estadisticas() {
+        return new EstadisticaConflictos(conflictos.get(), agotados.get());
+    }
+
+    private static boolean claveDuplicada(Throwable e) {
+        if (e instanceof DuplicateKeyException) return true;
+        for (Throwable causa = e.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacion) {
+                return violacion.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+            }
+        }
+        return false;
+    }
+
+    // Espera exponencial con jitter, para que los que chocaron no vuelvan a chocar en el mismo instante
+    private void esperar(int intento, RuntimeException conflicto) {
+        long tope = esperaBaseMs << Math.min(intento - 1, 10);
+        if (tope <= 0) return;
+        try {
+            Thread.sleep(tope / 2 + ThreadLocalRandom.current().nextLong(tope / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflicto;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+// Totales del carrito por diferencia: cada cambio de una linea suma o resta solo su aporte,
+// sin recorrer (ni cargar) todos los items. Con libreria.carrito.verificar-totales=true ademas
+// se recalcula todo despues de cada cambio y se falla si no coincide.
+@Component
+public class TotalesCarrito {
+
+    private final boolean verificar;
+
+    public TotalesCarrito(@Value("${libreria.carrito.verificar-totales:false}") boolean verificar) {
+        this.verificar = verificar;
+    }
+
+    // Linea nueva, ya agregada a los items
+    public void agregado(Carrito carrito, CarritoItem item) {
+        aplicar(carrito, BigDecimal.ZERO, Carrito.aporte(item));
+    }
+
+    // Linea existente ya modificada; aporteAnterior se toma con Carrito.aporte antes de tocarla
+    public void cambiado(Carrito carrito, BigDecimal aporteAnterior, CarritoItem item) {
+        aplicar(carrito, aporteAnterior, Carrito.aporte(item));
+    }
+
+    // Linea quitada; aporteAnterior se toma antes de quitarla
+    public void quitado(Carrito carrito, BigDecimal aporteAnterior) {
+        aplicar(carrito, aporteAnterior, BigDecimal.ZERO);
+    }
+
+    private void aplicar(Carrito carrito, BigDecimal anterior, BigDecimal nuevo) {
+        carrito.aplicarDelta(anterior, nuevo, CartStore.IVA);
+        if (verificar) verificar(carrito);
+    }
+
+    void verificar(Carrito carrito) {
+        BigDecimal subtotal = carrito.getSubtotal();
+        BigDecimal impuestos = carrito.getImpuestos();
+        BigDecimal total = carrito.getTotal();
+        carrito.recomputarTotales(CartStore.IVA);
+        if (subtotal.compareTo(carrito.getSubtotal()) != 0
+                || impuestos.compareTo(carrito.getImpuestos()) != 0
+                || total.compareTo(carrito.getTotal()) != 0) {
+            throw new IllegalStateException("Totales del carrito " + carrito.getToken() + " desalineados: subtotal "
+                    + subtotal + " / " + carrito.getSubtotal() + ", total " + total + " / " + carrito.getTotal());
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.distribuida.service.portadas;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.ResultadoCompactacionPortadas;
+import com.distribuida.service.LibroCambiadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Portadas por contenido: cada archivo se guarda una sola vez como <sha256>.<ext> en el directorio
+// de portadas, asi dos subidas iguales terminan en la misma ruta. Las referencias son las columnas
+// libro.portada: un archivo se borra solo cuando ningun libro apunta a el. Las subidas se escriben
+// a un temporal y se mueven de forma atomica, nunca se ve un archivo a medias.
+//
+// La subida no pasa entera por el heap: se copia del InputStream al FileChannel del temporal con un
+// buffer directo fijo, y en esa misma pasada se calcula el hash, se reconoce el formato por los
+// primeros bytes y se corta si supera maximo-bytes. La extension sale del contenido, no del nombre.
+@Component
+public class AlmacenPortadas {
+
+    public static final String PREFIJO_RUTA = "portadas/";
+
+    private static final Logger log = LoggerFactory.getLogger(AlmacenPortadas.class);
+    private static final Pattern NOMBRE_HASH = Pattern.compile("[0-9a-f]{64}(\\.[a-z0-9]{1,5})?");
+    private static final int FRANJAS = 64;
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+    // Bytes del inicio que hacen falta para reconocer el formato (WEBP: "RIFF" + tamanio + "WEBP")
+    private static final int CABECERA = 12;
+
+    private final LibroRepository libroRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path directorio;
+    private final long graciaMs;
+    private final long maximoBytes;
+
+    // Buffers directos reusados entre subidas: se reservan una vez por subida concurrente, no por subida
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    // Guardar y borrar el mismo archivo se excluyen (por franja del nombre)
+    private final ReentrantLock[] franjas = new ReentrantLock[FRANJAS];
+    private final ReentrantLock compactando = new ReentrantLock();
+
+    public AlmacenPortadas(LibroRepository libroRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${libreria.portadas.directorio:uploads/portadas}") String directorio,
+                           @Value("${libreria.portadas.gracia-minutos:60}") long graciaMinutos,
+                           @Value("${libreria.portadas.maximo-bytes:10485760}") long maximoBytes) {
+        if (graciaMinutos < 0) throw new IllegalArgumentException("La gracia de portadas no puede ser negativa");
+        if (maximoBytes <= 0) throw new IllegalArgumentException("El tamanio maximo de portada debe ser positivo");
+        this.libroRepository = libroRepository;
+        this.eventPublisher = eventPublisher;
+        this.directorio = Paths.get(directorio);
+        this.graciaMs = graciaMinutos * 60_000;
+        this.maximoBytes = maximoBytes;
+        for (int i = 0; i < FRANJAS; i++) franjas[i] = new ReentrantLock();
+    }
+
+    // Devuelve la ruta para libro.portada ("portadas/<sha256>.<ext>"). IllegalArgumentException si
+    // no es PNG, JPEG, GIF o WEBP, o si pasa de maximo-bytes (lo ya escrito se descarta).
+    public String guardar(InputStream contenido) throws IOException {
+        return PREFIJO_RUTA + almacenar(contenido).nombre;
+    }
+
+    // Borra el archivo si ya ningun libro lo usa. Un archivo subido o reusado hace menos de
+    // gracia-minutos se deja: puede ser de un libro que todavia no se guardo (queda para compactar).
+    public boolean liberar(String ruta) {
+        String nombre = nombreArchivo(ruta);
+        if (nombre == null) return false;
+        try {
+            return liberarBytes(nombre) >= 0;
+        } catch (IOException e) {
+            log.warn("No se pudo liberar la portada {}: {}", nombre, e.getMessage());
+            return false;
+        }
+    }
+
+    // Archivo de una ruta de portada dentro del directorio, o null si la ruta no es valida
+    public Path archivo(String ruta) {
+        String nombre = nombreArchivo(ruta);
+        return nombre == null ? null : directorio.resolve(nombre);
+    }
+
+    // Pasa las portadas con nombre viejo (UUID_nombre) a su hash, apunta los libros a la ruta nueva
+    // y borra los archivos que ningun libro usa. Las copias repetidas quedan en un solo archivo.
+    public ResultadoCompactacionPortadas compactar() throws IOException {
+        if (!compactando.tryLock()) return new ResultadoCompactacionPortadas(0, 0, 0, 0);
+        try {
+            if (!Files.isDirectory(directorio)) return new ResultadoCompactacionPortadas(0, 0, 0, 0);
+            List<Path> archivos;
+            try (Stream<Path> listado = Files.list(directorio)) {
+                archivos = listado.filter(Files::isRegularFile).toList();
+            }
+
+            int migradas = 0;
+            int librosActualizados = 0;
+            int borradas = 0;
+            long bytesLiberados = 0;
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.startsWith(".")) continue;
+                if (NOMBRE_HASH.matcher(nombre).matches()) {
+                    long liberados = liberarBytes(nombre);
+                    if (liberados >= 0) {
+                        borradas++;
+                        bytesLiberados += liberados;
+                    }
+                    continue;
+                }
+
+                List<String> referencias = referencias(nombre);
+                List<Integer> libros = libroRepository.findIdsPorPortada(referencias);
+                if (libros.isEmpty()) {
+                    long liberados = liberarBytes(nombre);
+                    if (liberados >= 0) {
+                        borradas++;
+                        bytesLiberados += liberados;
+                    }
+                    continue;
+                }
+
+                long tamanio = Files.size(archivo);
+                Almacenado almacenado;
+                try (InputStream entrada = Files.newInputStream(archivo)) {
+                    almacenado = almacenar(entrada);
+                } catch (IllegalArgumentException e) {
+                    // Formato desconocido o demasiado grande: se deja como esta
+                    log.warn("Portada {} sin migrar: {}", nombre, e.getMessage());
+                    continue;
+                }
+                librosActualizados += libroRepository.cambiarPortada(referencias, PREFIJO_RUTA + almacenado.nombre);
+                libros.forEach(idLibro -> eventPublisher.publishEvent(new LibroCambiadoEvent(idLibro, false)));
+                Files.deleteIfExists(archivo);
+                MiniaturasPortadas.borrarDerivadas(directorio, nombre);
+                migradas++;
+                // Si el contenido ya estaba guardado, la copia vieja era un duplicado
+                if (!almacenado.nuevo) bytesLiberados += tamanio;
+            }
+            if (migradas > 0 || borradas > 0) {
+                log.info("Compactacion de portadas: {} migradas, {} libros actualizados, {} borradas, {} bytes liberados",
+                        migradas, librosActualizados, borradas, bytesLiberados);
+            }
+            return new ResultadoCompactacionPortadas(migradas, librosActualizados, borradas, bytesLiberados);
+        } finally {
+            compactando.unlock();
+        }
+    }
+
+    private Almacenado almacenar(InputStream contenido) throws IOException {
+        Files.createDirectories(directorio);
+        Path temporal = Files.createTempFile(directorio, ".subida-", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            byte[] cabecera = copiar(contenido, temporal, sha256);
+            String nombre = HexFormat.of().formatHex(sha256.digest()) + extension(cabecera);
+            Path destino = directorio.resolve(nombre);
+
+            ReentrantLock lock = franja(nombre);
+            lock.lock();
+            try {
+                if (Files.exists(destino)) {
+                    // Mismo contenido: se reusa, y se renueva la fecha para que liberar no lo borre
+                    // antes de que el libro que lo sube se guarde
+                    Files.setLastModifiedTime(destino, FileTime.fromMillis(System.currentTimeMillis()));
+                    return new Almacenado(nombre, false);
+                }
+                mover(temporal, destino);
+                return new Almacenado(nombre, true);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    // Una sola pasada: escribe al temporal, actualiza el hash y guarda los primeros bytes
+    private byte[] copiar(InputStream contenido, Path temporal, MessageDigest sha256) throws IOException {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+        try (ReadableByteChannel entrada = Channels.newChannel(contenido);
+             FileChannel salida = FileChannel.open(temporal, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] cabecera = new byte[CABECERA];
+            int enCabecera = 0;
+            long total = 0;
+            buffer.clear();
+            while (entrada.read(buffer) != -1) {
+                buffer.flip();
+                total += buffer.remaining();
+                if (total > maximoBytes) {
+                    throw new IllegalArgumentException("La imagen supera el maximo de " + maximoBytes + " bytes");
+                }
+                if (enCabecera < CABECERA) {
+                    int copiar = Math.min(CABECERA - enCabecera, buffer.remaining());
+                    buffer.duplicate().get(cabecera, enCabecera, copiar);
+                    enCabecera += copiar;
+                }
+                sha256.update(buffer.duplicate());
+                while (buffer.hasRemaining()) salida.write(buffer);
+                buffer.clear();
+            }
+            if (total == 0) throw new IllegalArgumentException("La imagen esta vacia");
+            return enCabecera < CABECERA ? Arrays.copyOf(cabecera, enCabecera) : cabecera;
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    // Extension por los primeros bytes (numeros magicos) del archivo
+    static String extension(byte[] cabecera) {
+        if (empieza(cabecera, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) return ".png";
+        if (empieza(cabecera, 0, 0xFF, 0xD8, 0xFF)) return ".jpg";
+        if (empieza(cabecera, 0, 'G', 'I', 'F', '8') && cabecera.length >= 6
+                && (cabecera[4] == '7' || cabecera[4] == '9') && cabecera[5] == 'a') return ".gif";
+        if (empieza(cabecera, 0, 'R', 'I', 'F', 'F') && empieza(cabecera, 8, 'W', 'E', 'B', 'P')) return ".webp";
+        throw new IllegalArgumentException("Formato de imagen no soportado (PNG, JPEG, GIF o WEBP)");
+    }
+
+    private static boolean empieza(byte[] cabecera, int desde, int... firma) {
+        if (cabecera.length < desde + firma.length) return false;
+        for (int i = 0; i < firma.length; i++) {
+            if ((cabecera[desde + i] & 0xFF) != firma[i]) return false;
+        }
+        return true;
+    }
+
+    static void mover(Path temporal, Path destino) throws IOException {
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino);
+        } catch (FileAlreadyExistsException e) {
+            // Otro nodo escribio el mismo contenido entre medio: sirve igual
+        }
+    }
+
+    private long liberarBytes(String nombre) throws IOException {
+        ReentrantLock lock = franja(nombre);
+        lock.lock();
+        try {
+            return borrarSiHuerfano(nombre);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Con la franja tomada. Devuelve los bytes borrados, o -1 si el archivo se queda.
+    private long borrarSiHuerfano(String nombre) throws IOException {
+        Path archivo = directorio.resolve(nombre);
+        if (!Files.isRegularFile(archivo)) return -1;
+        if (System.currentTimeMillis() - Files.getLastModifiedTime(archivo).toMillis() < graciaMs) return -1;
+        if (libroRepository.countByPortadaIn(referencias(nombre)) > 0) return -1;
+        long tamanio = Files.size(archivo);
+        if (!Files.deleteIfExists(archivo)) return -1;
+        MiniaturasPortadas.borrarDerivadas(directorio, nombre);
+        return tamanio;
+    }
+
+    private ReentrantLock franja(String nombre) {
+        return franjas[Math.floorMod(nombre.hashCode(), FRANJAS)];
+    }
+
+    // libro.portada guarda "portadas/x"; se cuenta tambien "x" por datos cargados a mano
+    private static List<String> referencias(String nombre) {
+        return List.of(PREFIJO_RUTA + nombre, nombre);
+    }
+
+    // Acepta "portadas/x", "/portadas/x" o "x"; cualquier otra ruta (subdirectorios, "..") se ignora
+    static String nombreArchivo(String ruta) {
+        if (ruta == null) return null;
+        String nombre = ruta.trim();
+        if (nombre.startsWith("/")) nombre = nombre.substring(1);
+        if (nombre.startsWith(PREFIJO_RUTA)) nombre = nombre.substring(PREFIJO_RUTA.length());
+        if (nombre.isEmpty() || nombre.startsWith(".") || nombre.contains("/") || nombre.contains("\\")) return null;
+        return nombre;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Almacenado {
+        private final String nombre;
+        private final boolean nuevo;
+
+        private Almacenado(String nombre, boolean nuevo) {
+            this.nombre = nombre;
+            this.nuevo = nuevo;
+        }
+    }
+}
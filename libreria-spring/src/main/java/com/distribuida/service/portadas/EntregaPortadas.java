@@ -0,0 +1,226 @@
+package com.distribuida.service.portadas;
+
+import com.distribuida.service.util.ETags;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Entrega de los archivos de portada (originales y miniaturas) sin pasar por ResourceHttpRequestHandler.
+// Los nombres no se reusan (hash del contenido, o UUID_ en las viejas), asi que van con Cache-Control
+// immutable de un anio, ETag y Last-Modified, y respetan If-None-Match/If-Modified-Since y un Range
+// de un solo tramo (con If-Range). El cuerpo sale, en orden de preferencia, de un cache en memoria de
+// las portadas chicas mas pedidas, del sendfile de Tomcat (el kernel copia del archivo al socket) o de
+// FileChannel.transferTo. No hay variantes gzip: PNG, JPEG y WEBP ya vienen comprimidos.
+@Component
+public class EntregaPortadas {
+
+    static final String CACHE_INMUTABLE = "public, max-age=31536000, immutable";
+    static final String CACHE_CORTO = "public, max-age=60";
+
+    // Atributos del sendfile de Tomcat (los mismos que usa su DefaultServlet); el fin es exclusivo
+    static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+    // Por debajo de esto Tomcat no usa sendfile (sendfileSize por defecto)
+    private static final long SENDFILE_MINIMO = 48 * 1024;
+
+    private static final Pattern RANGO = Pattern.compile("bytes=(\\d{0,18})-(\\d{0,18})");
+    private static final Pattern NOMBRE_HASH = Pattern.compile("([0-9a-f]{64})\\.[a-z0-9]{1,5}");
+    private static final Tramo INSATISFACIBLE = new Tramo(-1, -1);
+
+    // Caffeine admite por frecuencia (W-TinyLFU): una portada pedida una sola vez no desplaza a las
+    // de la grilla principal. Peso = bytes del archivo.
+    private final Cache<String, byte[]> calientes;
+    private final long maximoArchivoEnMemoria;
+
+    public EntregaPortadas(@Value("${libreria.portadas.cache-bytes:33554432}") long cacheBytes,
+                           @Value("${libreria.portadas.cache-maximo-archivo:262144}") long maximoArchivoEnMemoria) {
+        if (cacheBytes < 0 || maximoArchivoEnMemoria < 0) {
+            throw new IllegalArgumentException("Los tamanios del cache de portadas no pueden ser negativos");
+        }
+        this.calientes = Caffeine.newBuilder()
+                .maximumWeight(cacheBytes)
+                .weigher((String clave, byte[] bytes) -> bytes.length)
+                .build();
+        this.maximoArchivoEnMemoria = Math.min(maximoArchivoEnMemoria, Integer.MAX_VALUE);
+    }
+
+    // inmutable=false para respuestas que pueden cambiar en la misma URL (el original servido
+    // mientras falta una miniatura)
+    public void servir(Path archivo, boolean inmutable, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        BasicFileAttributes atributos;
+        try {
+            atributos = Files.readAttributes(archivo, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!atributos.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long tamanio = atributos.size();
+        // Last-Modified va en segundos: se compara con esa misma precision
+        long modificado = atributos.lastModifiedTime().toMillis() / 1000 * 1000;
+        String etag = etag(archivo, tamanio, modificado);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, modificado);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, inmutable ? CACHE_INMUTABLE : CACHE_CORTO);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (noModificado(request, etag, modificado)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        Tramo tramo = tramo(request, etag, modificado, tamanio);
+        if (tramo == INSATISFACIBLE) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanio);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        long desde = 0;
+        long hasta = tamanio - 1;
+        if (tramo != null) {
+            desde = tramo.desde;
+            hasta = tramo.hasta;
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + desde + "-" + hasta + "/" + tamanio);
+        }
+        long largo = hasta - desde + 1;
+        response.setContentType(tipo(archivo));
+        response.setContentLengthLong(largo);
+        if ("HEAD".equals(request.getMethod()) || largo == 0) return;
+
+        byte[] enMemoria = enMemoria(archivo, tamanio, modificado);
+        if (enMemoria != null) {
+            response.getOutputStream().write(enMemoria, (int) desde, (int) largo);
+            return;
+        }
+        if (largo >= SENDFILE_MINIMO && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toRealPath().toString());
+            request.setAttribute(SENDFILE_INICIO, desde);
+            request.setAttribute(SENDFILE_FIN, hasta + 1);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long enviado = 0;
+            while (enviado < largo) {
+                long escritos = canal.transferTo(desde + enviado, largo - enviado, salida);
+                if (escritos <= 0) break;
+                enviado += escritos;
+            }
+        }
+    }
+
+    // Portadas chicas: de memoria mientras el archivo no cambie (la clave lleva tamanio y fecha).
+    // El archivo se lee fuera del cache: get(clave, funcion) lee dentro del lock del mapa, y con hilos
+    // virtuales en Java 21 eso fija el hilo a su carrier mientras dura la lectura. Dos pedidos a la vez
+    // de la misma portada fria la leen dos veces; da igual, se guarda la misma.
+    private byte[] enMemoria(Path archivo, long tamanio, long modificado) {
+        if (tamanio > maximoArchivoEnMemoria) return null;
+        String clave = archivo + "|" + tamanio + "|" + modificado;
+        byte[] bytes = calientes.getIfPresent(clave);
+        if (bytes != null) return bytes;
+        try {
+            bytes = Files.readAllBytes(archivo);
+        } catch (IOException e) {
+            return null;
+        }
+        // Cambio entre la lectura de atributos y la del contenido: se sirve por el camino de archivo
+        if (bytes.length != tamanio) return null;
+        calientes.put(clave, bytes);
+        return bytes;
+    }
+
+    // El hash del nombre si la portada es por contenido; si no, tamanio y fecha
+    static String etag(Path archivo, long tamanio, long modificado) {
+        Matcher hash = NOMBRE_HASH.matcher(archivo.getFileName().toString());
+        if (hash.matches()) return "\"" + hash.group(1) + "\"";
+        return "\"" + Long.toHexString(tamanio) + "-" + Long.toHexString(modificado) + "\"";
+    }
+
+    private static boolean noModificado(HttpServletRequest request, String etag, long modificado) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        // Si viene If-None-Match, If-Modified-Since se ignora
+        if (ifNoneMatch != null) return ETags.coincide(ifNoneMatch, etag);
+        long ifModifiedSince = fecha(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && modificado <= ifModifiedSince;
+    }
+
+    // null = archivo completo. Varios tramos, o un Range mal formado, tambien se contestan completos.
+    static Tramo tramo(HttpServletRequest request, String etag, long modificado, long tamanio) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null) return null;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            // Con If-Range el tramo vale solo si el archivo sigue siendo el que el cliente tiene
+            boolean vigente = ifRange.startsWith("\"") || ifRange.startsWith("W/")
+                    ? ifRange.equals(etag)
+                    : fecha(request, HttpHeaders.IF_RANGE) == modificado;
+            if (!vigente) return null;
+        }
+        Matcher matcher = RANGO.matcher(range.trim());
+        if (!matcher.matches()) return null;
+        String inicio = matcher.group(1);
+        String fin = matcher.group(2);
+        if (inicio.isEmpty() && fin.isEmpty()) return null;
+        if (inicio.isEmpty()) {
+            // bytes=-n: los ultimos n
+            long ultimos = Long.parseLong(fin);
+            if (ultimos == 0 || tamanio == 0) return INSATISFACIBLE;
+            return new Tramo(Math.max(0, tamanio - ultimos), tamanio - 1);
+        }
+        long desde = Long.parseLong(inicio);
+        if (desde >= tamanio) return INSATISFACIBLE;
+        long hasta = fin.isEmpty() ? tamanio - 1 : Long.parseLong(fin);
+        if (hasta < desde) return null;
+        return new Tramo(desde, Math.min(hasta, tamanio - 1));
+    }
+
+    private static long fecha(HttpServletRequest request, String cabecera) {
+        try {
+            return request.getDateHeader(cabecera);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static String tipo(Path archivo) {
+        return MediaTypeFactory.getMediaType(archivo.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+    }
+
+    static final class Tramo {
+        final long desde;
+        final long hasta;
+
+        Tramo(long desde, long hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.distribuida.service.portadas;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Miniaturas de portada en anchos fijos (120/240/480 por defecto), en JPEG, guardadas junto a las
+// portadas en miniaturas/<nombre>-<ancho>.jpg. Se generan en un pool acotado, nunca en el hilo del
+// request: todas las medidas al subir la portada y, si falta alguna, la primera vez que se pide.
+// Varios pedidos de la misma miniatura a la vez comparten una sola generacion.
+@Component
+public class MiniaturasPortadas {
+
+    static final String SUBDIRECTORIO = "miniaturas";
+
+    private static final Logger log = LoggerFactory.getLogger(MiniaturasPortadas.class);
+    // No se decodifica nada mas grande: una imagen de 40 MP ya ocupa 160 MB en memoria
+    private static final long MAXIMO_PIXELES = 40_000_000L;
+    private static final float CALIDAD_JPEG = 0.8f;
+
+    private final AlmacenPortadas almacenPortadas;
+    private final int[] anchos;
+    private final long esperaMs;
+    private final ThreadPoolExecutor ejecutor;
+
+    // Una generacion en curso por archivo destino
+    private final ConcurrentHashMap<Path, CompletableFuture<Path>> enCurso = new ConcurrentHashMap<>();
+
+    public MiniaturasPortadas(AlmacenPortadas almacenPortadas,
+                              @Value("${libreria.portadas.miniaturas.anchos:120,240,480}") int[] anchos,
+                              @Value("${libreria.portadas.miniaturas.hilos:2}") int hilos,
+                              @Value("${libreria.portadas.miniaturas.cola:200}") int cola,
+                              @Value("${libreria.portadas.miniaturas.espera-ms:5000}") long esperaMs) {
+        if (anchos.length == 0) throw new IllegalArgumentException("Hace falta al menos un ancho de miniatura");
+        if (Arrays.stream(anchos).anyMatch(ancho -> ancho <= 0)) {
+            throw new IllegalArgumentException("Los anchos de miniatura deben ser positivos");
+        }
+        if (hilos <= 0 || cola <= 0) throw new IllegalArgumentException("Hilos y cola de miniaturas deben ser positivos");
+        this.almacenPortadas = almacenPortadas;
+        this.anchos = Arrays.stream(anchos).sorted().distinct().toArray();
+        this.esperaMs = esperaMs;
+        AtomicInteger numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(cola), r -> {
+            Thread hilo = new Thread(r, "miniaturas-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.ejecutor.allowCoreThreadTimeOut(true);
+    }
+
+    // Despues de subir una portada: todas las medidas en segundo plano. Si la cola esta llena no pasa
+    // nada, la que falte se genera cuando se pida.
+    public void programar(String ruta) {
+        Path original = almacenPortadas.archivo(ruta);
+        if (original == null) return;
+        for (int ancho : anchos) {
+            generar(original, ancho);
+        }
+    }
+
+    // Archivo a servir para la portada nombre pedida con ancho: la miniatura de la medida mas cercana
+    // (la menor que no quede mas chica que lo pedido), o el original si no se puede generar a tiempo.
+    // null si la portada no existe.
+    public Path resolver(String nombre, int ancho) {
+        Path original = almacenPortadas.archivo(nombre);
+        if (original == null || !Files.isRegularFile(original)) return null;
+        Path derivada = derivada(original, medida(ancho));
+        if (Files.isRegularFile(derivada)) return derivada;
+        try {
+            Path generada = generar(original, medida(ancho)).get(esperaMs, TimeUnit.MILLISECONDS);
+            return generada != null ? generada : original;
+        } catch (TimeoutException | ExecutionException e) {
+            log.debug("Miniatura de {} no disponible, se sirve el original: {}", nombre, e.toString());
+            return original;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return original;
+        }
+    }
+
+    int medida(int ancho) {
+        for (int medida : anchos) {
+            if (medida >= ancho) return medida;
+        }
+        return anchos[anchos.length - 1];
+    }
+
+    CompletableFuture<Path> generar(Path original, int medida) {
+        Path destino = derivada(original, medida);
+        CompletableFuture<Path> nueva = new CompletableFuture<>();
+        CompletableFuture<Path> existente = enCurso.putIfAbsent(destino, nueva);
+        if (existente != null) return existente;
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    nueva.complete(escalar(original, medida, destino));
+                } catch (Throwable e) {
+                    log.warn("No se pudo generar la miniatura {}: {}", destino.getFileName(), e.toString());
+                    nueva.completeExceptionally(e);
+                } finally {
+                    enCurso.remove(destino, nueva);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            enCurso.remove(destino, nueva);
+            nueva.completeExceptionally(e);
+        }
+        return nueva;
+    }
+
+    // En el pool. null si el formato no se puede decodificar (WEBP con el ImageIO del JDK) o es enorme.
+    Path escalar(Path original, int medida, Path destino) throws IOException {
+        if (Files.isRegularFile(destino)) return destino;
+        BufferedImage imagen = leer(original);
+        if (imagen == null) return null;
+
+        // Nunca se agranda: una portada mas chica que la medida queda con su ancho
+        int ancho = Math.min(medida, imagen.getWidth());
+        int alto = Math.max(1, (int) Math.round(imagen.getHeight() * (double) ancho / imagen.getWidth()));
+        BufferedImage reducida = reducir(imagen, ancho, alto);
+
+        Files.createDirectories(destino.getParent());
+        Path temporal = Files.createTempFile(destino.getParent(), ".miniatura-", ".tmp");
+        try {
+            escribirJpeg(reducida, temporal);
+            AlmacenPortadas.mover(temporal, destino);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        return destino;
+    }
+
+    private static BufferedImage leer(Path original) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(original.toFile())) {
+            if (entrada == null) return null;
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) return null;
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                // Las dimensiones salen de la cabecera, antes de reservar memoria para los pixeles
+                if ((long) lector.getWidth(0) * lector.getHeight(0) > MAXIMO_PIXELES) return null;
+                return lector.read(0);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    // Reduce a la mitad en cada paso (bilineal) hasta la medida final: casi la calidad de un filtro
+    // de area, a una fraccion del costo. Las transparencias quedan sobre blanco (JPEG no tiene alfa).
+    static BufferedImage reducir(BufferedImage imagen, int ancho, int alto) {
+        BufferedImage actual = imagen;
+        int w = imagen.getWidth();
+        int h = imagen.getHeight();
+        do {
+            w = Math.max(ancho, w / 2);
+            h = Math.max(alto, h / 2);
+            BufferedImage paso = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = paso.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, w, h);
+                g.drawImage(actual, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            actual = paso;
+        } while (w != ancho || h != alto);
+        return actual;
+    }
+
+    private static void escribirJpeg(BufferedImage imagen, Path destino) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream salida = ImageIO.createImageOutputStream(destino.toFile())) {
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(CALIDAD_JPEG);
+            escritor.setOutput(salida);
+            escritor.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+    }
+
+    static Path derivada(Path original, int medida) {
+        return original.resolveSibling(SUBDIRECTORIO).resolve(base(original.getFileName().toString()) + "-" + medida + ".jpg");
+    }
+
+    // Al borrar una portada (AlmacenPortadas) se van tambien sus miniaturas
+    static void borrarDerivadas(Path directorio, String nombre) throws IOException {
+        Path miniaturas = directorio.resolve(SUBDIRECTORIO);
+        if (!Files.isDirectory(miniaturas)) return;
+        Pattern propias = Pattern.compile(Pattern.quote(base(nombre)) + "-\\d+\\.jpg");
+        List<Path> derivadas;
+        try (Stream<Path> listado = Files.list(miniaturas)) {
+            derivadas = listado.filter(archivo -> propias.matcher(archivo.getFileName().toString()).matches()).toList();
+        }
+        for (Path derivada : derivadas) {
+            Files.deleteIfExists(derivada);
+        }
+    }
+
+    private static String base(String nombre) {
+        int punto = nombre.lastIndexOf('.');
+        return punto > 0 ? nombre.substring(0, punto) : nombre;
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+}
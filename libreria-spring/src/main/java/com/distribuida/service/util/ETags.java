@@ -0,0 +1,133 @@
+package com.distribuida.service.util;
+
+import com.distribuida.model.Autor;
+import com.distribuida.model.Carrito;
+import com.distribuida.model.Categoria;
+import com.distribuida.model.Libro;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+// ETags fuertes sin serializar la respuesta: FNV-1a de 64 bits sobre los campos (o la version)
+// de la entidad. Si el cliente ya tiene esa version se contesta 304 sin cuerpo.
+public final class ETags {
+
+    private ETags() {
+    }
+
+    // Libro no tiene version ni fecha de modificacion: se usa el contenido que sale en el JSON,
+    // incluido el autor y la categoria embebidos
+    public static String deLibro(Libro libro) {
+        Huella h = new Huella()
+                .con(libro.getIdLibro())
+                .con(libro.getTitulo())
+                .con(libro.getEditorial())
+                .con(libro.getNumPaginas())
+                .con(libro.getEdicion())
+                .con(libro.getIdioma())
+                .con(libro.getFechaPublicacion())
+                .con(libro.getDescripcion())
+                .con(libro.getTipoPasta())
+                .con(libro.getIsbn())
+                .con(libro.getNumEjemplares())
+                .con(libro.getPortada())
+                .con(libro.getPresentacion())
+                .con(libro.getPrecio() == null ? null : Double.doubleToLongBits(libro.getPrecio()));
+        Autor autor = libro.getAutor();
+        if (autor != null) {
+            h.con(autor.getIdAutor()).con(autor.getNombre()).con(autor.getApellido()).con(autor.getPais())
+                    .con(autor.getDireccion()).con(autor.getTelefono()).con(autor.getCorreo());
+        } else {
+            h.con((String) null);
+        }
+        Categoria categoria = libro.getCategoria();
+        if (categoria != null) {
+            h.con(categoria.getIdCategoria()).con(categoria.getCategoria()).con(categoria.getDescripcion());
+        } else {
+            h.con((String) null);
+        }
+        return h.etag("l");
+    }
+
+    // La @Version del carrito, mas id y cantidad de cada linea: items es la parte inversa de la
+    // relacion y cambiarlos no siempre sube la version, y en el store en memoria la version
+    // recien se mueve al hacer flush
+    public static String deCarrito(Carrito carrito) {
+        Huella h = new Huella()
+                .con(carrito.getToken())
+                .con(carrito.getIdCarrito())
+                .con(carrito.getVersion())
+                .con(carrito.getTotal())
+                .con(carrito.getItems().size());
+        for (var item : carrito.getItems()) {
+            h.con(item.getIdCarritoItem()).con(item.getLibro().getIdLibro()).con(item.getCantidad())
+                    .con(item.getPrecioUnitario());
+        }
+        return h.etag("c");
+    }
+
+    // If-None-Match puede traer varias etiquetas, "*" o etiquetas debiles (W/"..."): para GET
+    // la comparacion es debil, alcanza con que coincida el valor
+    public static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidato : ifNoneMatch.split(",")) {
+            candidato = candidato.trim();
+            if (candidato.equals("*")) return true;
+            if (candidato.startsWith("W/")) candidato = candidato.substring(2);
+            if (candidato.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static final class Huella {
+        private static final long PRIMO = 0x100000001b3L;
+        private long valor = 0xcbf29ce484222325L;
+
+        private Huella octeto(int b) {
+            valor ^= (b & 0xff);
+            valor *= PRIMO;
+            return this;
+        }
+
+        private Huella con(long n) {
+            for (int i = 0; i < 8; i++) octeto((int) (n >>> (i * 8)));
+            return this;
+        }
+
+        private Huella con(Long n) {
+            return n == null ? octeto(0).octeto(0xfe) : octeto(1).con(n.longValue());
+        }
+
+        private Huella con(Integer n) {
+            return n == null ? octeto(0).octeto(0xfe) : octeto(1).con(n.longValue());
+        }
+
+        private Huella con(int n) {
+            return con((long) n);
+        }
+
+        // Con separador, para que ("ab", "c") y ("a", "bc") no den lo mismo
+        private Huella con(String s) {
+            if (s == null) return octeto(0).octeto(0xfe);
+            octeto(1);
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                octeto(c).octeto(c >>> 8);
+            }
+            return con((long) s.length());
+        }
+
+        private Huella con(Date fecha) {
+            return fecha == null ? octeto(0).octeto(0xfe) : octeto(1).con(fecha.getTime());
+        }
+
+        // Con la escala: 10.0 y 10.00 se serializan distinto
+        private Huella con(BigDecimal n) {
+            return con(n == null ? null : n.toString());
+        }
+
+        private String etag(String prefijo) {
+            return "\"" + prefijo + "-" + Long.toHexString(valor) + "\"";
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.distribuida.service.util;
+
+import com.distribuida.model.Libro;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+// Cursor opaco de la paginacion keyset: orden + idLibro de la ultima fila + su valor de orden,
+// en Base64 URL-safe para que el cliente lo devuelva tal cual.
+public class LibroCursor {
+
+    public enum Orden {
+        ID("id"), PRECIO("precio"), TITULO("titulo"), FECHA_PUBLICACION("fechaPublicacion");
+
+        private final String parametro;
+
+        Orden(String parametro) {
+            this.parametro = parametro;
+        }
+
+        public String getParametro() {
+            return parametro;
+        }
+
+        public static Orden desde(String parametro) {
+            if (parametro == null || parametro.isEmpty()) return ID;
+            for (Orden orden : values()) {
+                if (orden.parametro.equalsIgnoreCase(parametro)) return orden;
+            }
+            throw new IllegalArgumentException("Orden no soportado: " + parametro);
+        }
+    }
+
+    private static final String SEPARADOR = "|";
+    // Marca un valor presente; sin ella el valor de orden era null (distinto de cadena vacia)
+    private static final String PRESENTE = "=";
+
+    private final Orden orden;
+    private final int ultimoId;
+    private final String valor;
+
+    private LibroCursor(Orden orden, int ultimoId, String valor) {
+        this.orden = orden;
+        this.ultimoId = ultimoId;
+        this.valor = valor;
+    }
+
+    public static LibroCursor desde(Orden orden, Libro ultimo) {
+        String valor = switch (orden) {
+            case ID -> null;
+            case PRECIO -> ultimo.getPrecio() != null ? Double.toString(ultimo.getPrecio()) : null;
+            case TITULO -> ultimo.getTitulo();
+            case FECHA_PUBLICACION -> codificarFecha(ultimo.getFechaPublicacion());
+        };
+        return new LibroCursor(orden, ultimo.getIdLibro(), valor);
+    }
+
+    public static LibroCursor porId(int ultimoId) {
+        return new LibroCursor(Orden.ID, ultimoId, null);
+    }
+
+    public static LibroCursor decodificar(String cursor) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = texto.split("\\" + SEPARADOR, 3);
+            if (partes.length != 3) throw new IllegalArgumentException("Cursor invalido");
+            Orden orden = Orden.desde(partes[0]);
+            int ultimoId = Integer.parseInt(partes[1]);
+            String valor = partes[2].startsWith(PRESENTE) ? partes[2].substring(PRESENTE.length()) : null;
+            return new LibroCursor(orden, ultimoId, valor);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException y errores de Base64 tambien son IllegalArgumentException
+            throw new IllegalArgumentException("Cursor invalido: " + cursor);
+        }
+    }
+
+    public String codificar() {
+        String texto = orden.getParametro() + SEPARADOR + ultimoId + SEPARADOR
+                + (valor != null ? PRESENTE + valor : "");
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Orden getOrden() {
+        return orden;
+    }
+
+    public int getUltimoId() {
+        return ultimoId;
+    }
+
+    public Double getPrecio() {
+        return valor != null ? Double.valueOf(valor) : null;
+    }
+
+    public String getTitulo() {
+        return valor;
+    }
+
+    public Date getFechaPublicacion() {
+        if (valor == null) return null;
+        // Se conservan los nanosegundos para que la comparacion por igualdad con la columna no falle
+        String[] partes = valor.split("\\.", 2);
+        Timestamp fecha = new Timestamp(Long.parseLong(partes[0]));
+        if (partes.length == 2) fecha.setNanos(Integer.parseInt(partes[1]));
+        return fecha;
+    }
+
+    private static String codificarFecha(Date fecha) {
+        if (fecha == null) return null;
+        if (fecha instanceof Timestamp ts) return ts.getTime() + "." + ts.getNanos();
+        return Long.toString(fecha.getTime());
+    }
+}
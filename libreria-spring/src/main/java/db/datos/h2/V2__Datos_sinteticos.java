@@ -0,0 +1,282 @@
+package db.datos.h2;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Datos sinteticos del perfil h2: categorias, autores, libros, clientes y facturas con sus detalles,
+// en la cantidad de los placeholders datos.* de Flyway (spring.flyway.placeholders.datos.libros, ...;
+// desde gradle, -Pdatos.libros=1000000). Con la misma semilla y las mismas cantidades sale siempre lo
+// mismo, asi los planes de consulta y el throughput se pueden comparar entre corridas. Corre una vez
+// por base, como cualquier migracion: para otra escala, base nueva (la de memoria lo es en cada JVM).
+// Se inserta por lotes con ids explicitos; al final cada identity sigue desde el ultimo id.
+// Va en db/datos, aparte del esquema: las pruebas cargan en su lugar db/fixtures (src/test/resources).
+public class V2__Datos_sinteticos extends BaseJavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(V2__Datos_sinteticos.class);
+
+    // Las fechas salen de aca, no de la hora actual, para que los datos no cambien entre corridas
+    private static final LocalDateTime REFERENCIA = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final double IVA = 0.15d;
+
+    private static final String[] GENEROS = {"Novela", "Poesia", "Ensayo", "Historia", "Ciencia", "Infantil",
+            "Juvenil", "Biografia", "Fantasia", "Policial", "Terror", "Filosofia", "Arte", "Cocina", "Viajes"};
+    private static final String[] NOMBRES = {"Ana", "Luis", "Maria", "Jorge", "Lucia", "Pedro", "Sofia", "Diego",
+            "Elena", "Carlos", "Valeria", "Andres", "Camila", "Javier", "Paula", "Miguel", "Gabriela", "Pablo"};
+    private static final String[] APELLIDOS = {"Garcia", "Torres", "Rodriguez", "Lopez", "Martinez", "Sanchez",
+            "Perez", "Gomez", "Vega", "Castro", "Morales", "Herrera", "Romero", "Suarez", "Mendoza", "Rios"};
+    private static final String[] PAISES = {"Ecuador", "Colombia", "Peru", "Mexico", "Argentina", "Chile",
+            "Espana", "Uruguay"};
+    private static final String[] SUSTANTIVOS = {"silencio", "rio", "ciudad", "memoria", "noche", "camino",
+            "jardin", "tiempo", "mar", "sombra", "viento", "puerta", "fuego", "isla", "espejo", "invierno",
+            "bosque", "reino", "luz", "piedra"};
+    private static final String[] ADJETIVOS = {"perdido", "eterno", "oscuro", "secreto", "ultimo", "dormido",
+            "blanco", "lejano", "antiguo", "roto", "callado", "infinito"};
+    private static final String[] EDITORIALES = {"Editorial Distribuida", "Planeta", "Alfaguara", "Anagrama",
+            "Tusquets", "Siglo XXI", "Norma", "Libresa"};
+    private static final String[] IDIOMAS = {"Español", "Español", "Español", "Inglés", "Francés", "Portugués"};
+    private static final String[] PASTAS = {"Blanda", "Dura"};
+    private static final String[] PRESENTACIONES = {"Impreso", "Bolsillo", "Edicion especial"};
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        // Millones de filas: se confirma cada lote en vez de una sola transaccion
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Map<String, String> placeholders = context.getConfiguration().getPlaceholders();
+        int libros = cantidad(placeholders, "datos.libros", 1000);
+        int categorias = cantidad(placeholders, "datos.categorias", 20);
+        int autores = cantidad(placeholders, "datos.autores", Math.max(1, libros / 10));
+        int clientes = cantidad(placeholders, "datos.clientes", 1000);
+        int facturas = cantidad(placeholders, "datos.facturas", 1000);
+        int detallesPorFactura = cantidad(placeholders, "datos.detalles-por-factura", 3);
+        int lote = Math.max(1, cantidad(placeholders, "datos.lote", 5000));
+        long semilla = Long.parseLong(placeholders.getOrDefault("datos.semilla", "42"));
+        if (libros > 0 && (categorias == 0 || autores == 0)) {
+            throw new IllegalArgumentException("Con libros hacen falta categorias y autores");
+        }
+        if (facturas > 0 && (clientes == 0 || libros == 0)) {
+            throw new IllegalArgumentException("Con facturas hacen falta clientes y libros");
+        }
+
+        Connection conexion = context.getConnection();
+        boolean autoCommit = conexion.getAutoCommit();
+        conexion.setAutoCommit(false);
+        try {
+            long inicio = System.nanoTime();
+            categorias(conexion, categorias, lote);
+            autores(conexion, autores, lote, new SplittableRandom(semilla));
+            libros(conexion, libros, categorias, autores, lote, semilla);
+            clientes(conexion, clientes, lote, new SplittableRandom(semilla + 1));
+            facturas(conexion, facturas, detallesPorFactura, clientes, libros, lote, semilla);
+            log.info("Datos sinteticos: {} libros, {} autores, {} categorias, {} clientes, {} facturas ({} detalles) en {} ms",
+                    libros, autores, categorias, clientes, facturas, (long) facturas * detallesPorFactura,
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } finally {
+            conexion.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void categorias(Connection conexion, int cantidad, int lote) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement(
+                "insert into categoria (id_categoria, categoria, descripcion) values (?, ?, ?)")) {
+            for (int id = 1; id <= cantidad; id++) {
+                String genero = GENEROS[(id - 1) % GENEROS.length];
+                if (id > GENEROS.length) genero += " " + ((id - 1) / GENEROS.length + 1);
+                ps.setInt(1, id);
+                ps.setString(2, genero);
+                ps.setString(3, "Libros de " + genero.toLowerCase());
+                agregar(conexion, ps, "categoria", id, cantidad, lote);
+            }
+        }
+        continuarIdentity(conexion, "categoria", "id_categoria", cantidad);
+    }
+
+    private void autores(Connection conexion, int cantidad, int lote, SplittableRandom azar) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement("insert into autor "
+                + "(id_autor, nombre, apellido, pais, direccion, telefono, correo) values (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= cantidad; id++) {
+                String nombre = elegir(NOMBRES, azar);
+                String apellido = elegir(APELLIDOS, azar);
+                ps.setInt(1, id);
+                ps.setString(2, nombre);
+                ps.setString(3, apellido);
+                ps.setString(4, elegir(PAISES, azar));
+                ps.setString(5, "Calle " + (1 + azar.nextInt(999)));
+                ps.setString(6, telefono(azar));
+                ps.setString(7, correo(nombre, apellido, id, "autores.com"));
+                agregar(conexion, ps, "autor", id, cantidad, lote);
+            }
+        }
+        continuarIdentity(conexion, "autor", "id_autor", cantidad);
+    }
+
+    private void libros(Connection conexion, int cantidad, int categorias, int autores, int lote, long semilla)
+            throws SQLException {
+        SplittableRandom azar = new SplittableRandom(semilla + 2);
+        try (PreparedStatement ps = conexion.prepareStatement("insert into libro (id_libro, titulo, editorial, "
+                + "num_paginas, edicion, idioma, fecha_publicacion, descripcion, tipo_pasta, isbn, num_ejemplares, "
+                + "portada, presentacion, precio, id_categoria, id_autor) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= cantidad; id++) {
+                String titulo = "El " + elegir(SUSTANTIVOS, azar) + " " + elegir(ADJETIVOS, azar);
+                ps.setInt(1, id);
+                ps.setString(2, titulo);
+                ps.setString(3, elegir(EDITORIALES, azar));
+                ps.setInt(4, 80 + azar.nextInt(1100));
+                ps.setString(5, (1 + azar.nextInt(5)) + "ra");
+                ps.setString(6, elegir(IDIOMAS, azar));
+                ps.setTimestamp(7, Timestamp.valueOf(REFERENCIA.minusDays(azar.nextInt(365 * 75))));
+                ps.setString(8, titulo + ": una historia sobre el " + elegir(SUSTANTIVOS, azar));
+                ps.setString(9, elegir(PASTAS, azar));
+                ps.setString(10, String.format("978-%010d", id));
+                // Uno de cada diez sin stock, para que las facetas y las cards tengan de los dos
+                ps.setInt(11, azar.nextInt(10) == 0 ? 0 : 1 + azar.nextInt(50));
+                ps.setString(12, null);
+                ps.setString(13, elegir(PRESENTACIONES, azar));
+                ps.setDouble(14, precio(semilla, id));
+                ps.setInt(15, 1 + azar.nextInt(categorias));
+                ps.setInt(16, 1 + azar.nextInt(autores));
+                agregar(conexion, ps, "libro", id, cantidad, lote);
+            }
+        }
+        continuarIdentity(conexion, "libro", "id_libro", cantidad);
+    }
+
+    private void clientes(Connection conexion, int cantidad, int lote, SplittableRandom azar) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement("insert into cliente "
+                + "(id_cliente, cedula, nombre, apellido, direccion, telefono, correo) values (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= cantidad; id++) {
+                String nombre = elegir(NOMBRES, azar);
+                String apellido = elegir(APELLIDOS, azar);
+                ps.setInt(1, id);
+                ps.setString(2, String.format("%010d", id));
+                ps.setString(3, nombre);
+                ps.setString(4, apellido);
+                ps.setString(5, "Av. " + elegir(SUSTANTIVOS, azar) + " " + (1 + azar.nextInt(2000)));
+                ps.setString(6, telefono(azar));
+                ps.setString(7, correo(nombre, apellido, id, "correo.com"));
+                agregar(conexion, ps, "cliente", id, cantidad, lote);
+            }
+        }
+        continuarIdentity(conexion, "cliente", "id_cliente", cantidad);
+    }
+
+    // Cada factura con sus detalles; los totales salen de los precios de los libros, como en el checkout
+    private void facturas(Connection conexion, int cantidad, int detallesPorFactura, int clientes, int libros,
+                          int lote, long semilla) throws SQLException {
+        SplittableRandom azar = new SplittableRandom(semilla + 3);
+        long idDetalle = 0;
+        try (PreparedStatement factura = conexion.prepareStatement("insert into factura "
+                + "(id_factura, num_factura, fecha, total_neto, iva, total, id_cliente) values (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement detalle = conexion.prepareStatement("insert into factura_detalle "
+                     + "(id_factura_detalle, cantidad, subtotal, id_libro, id_factura) values (?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= cantidad; id++) {
+                double neto = 0;
+                for (int i = 0; i < detallesPorFactura; i++) {
+                    int idLibro = 1 + azar.nextInt(libros);
+                    int unidades = 1 + azar.nextInt(3);
+                    double subtotal = unidades * precio(semilla, idLibro);
+                    neto += subtotal;
+                    detalle.setLong(1, ++idDetalle);
+                    detalle.setInt(2, unidades);
+                    detalle.setDouble(3, subtotal);
+                    detalle.setInt(4, idLibro);
+                    detalle.setInt(5, id);
+                    detalle.addBatch();
+                }
+                factura.setInt(1, id);
+                // Mismo formato que FacturaNumberAllocator
+                factura.setString(2, String.format("F-%08d", id));
+                factura.setTimestamp(3, Timestamp.valueOf(REFERENCIA.minusMinutes(azar.nextInt(2 * 365 * 24 * 60))));
+                factura.setDouble(4, neto);
+                factura.setDouble(5, neto * IVA);
+                factura.setDouble(6, neto + neto * IVA);
+                factura.setInt(7, 1 + azar.nextInt(clientes));
+                factura.addBatch();
+                // Los detalles referencian la factura: primero van las facturas del lote
+                if (id % lote == 0 || id == cantidad) {
+                    factura.executeBatch();
+                    detalle.executeBatch();
+                    conexion.commit();
+                    progreso("factura", id, cantidad, lote);
+                }
+            }
+        }
+        continuarIdentity(conexion, "factura", "id_factura", cantidad);
+        continuarIdentity(conexion, "factura_detalle", "id_factura_detalle", idDetalle);
+        if (cantidad > 0) {
+            // FacturaNumberAllocator sigue despues de la ultima factura generada
+            try (PreparedStatement ps = conexion.prepareStatement(
+                    "insert into factura_numerador (nombre, siguiente) values ('factura', ?)")) {
+                ps.setLong(1, cantidad + 1L);
+                ps.executeUpdate();
+            }
+            conexion.commit();
+        }
+    }
+
+    private static void agregar(Connection conexion, PreparedStatement ps, String tabla, int id, int cantidad,
+                                int lote) throws SQLException {
+        ps.addBatch();
+        if (id % lote == 0 || id == cantidad) {
+            ps.executeBatch();
+            conexion.commit();
+            progreso(tabla, id, cantidad, lote);
+        }
+    }
+
+    private static void continuarIdentity(Connection conexion, String tabla, String columna, long ultimoId)
+            throws SQLException {
+        if (ultimoId == 0) return;
+        try (Statement statement = conexion.createStatement()) {
+            statement.execute("alter table " + tabla + " alter column " + columna + " restart with " + (ultimoId + 1));
+        }
+        conexion.commit();
+    }
+
+    private static void progreso(String tabla, int id, int cantidad, int lote) {
+        // Cada ~10% en tablas grandes
+        long paso = Math.max(lote, (cantidad / 10L) / lote * lote);
+        if (id % paso == 0 || id == cantidad) log.info("{}: {}/{}", tabla, id, cantidad);
+    }
+
+    // Precio del libro en funcion de su id, para que los detalles no necesiten tener los libros en memoria
+    static double precio(long semilla, int idLibro) {
+        long mezcla = new SplittableRandom(semilla * 0x9E3779B97F4A7C15L + idLibro).nextLong();
+        return 5 + Math.floorMod(mezcla, 11_500) / 100.0;
+    }
+
+    private static String elegir(String[] opciones, SplittableRandom azar) {
+        return opciones[azar.nextInt(opciones.length)];
+    }
+
+    private static String telefono(SplittableRandom azar) {
+        return "09" + (10_000_000 + azar.nextInt(90_000_000));
+    }
+
+    private static String correo(String nombre, String apellido, int id, String dominio) {
+        return (nombre + "." + apellido + id + "@" + dominio).toLowerCase();
+    }
+
+    private static int cantidad(Map<String, String> placeholders, String clave, int porDefecto) {
+        String valor = placeholders.get(clave);
+        if (valor == null || valor.isBlank()) return porDefecto;
+        int cantidad = Integer.parseInt(valor.trim().replace("_", ""));
+        if (cantidad < 0) throw new IllegalArgumentException(clave + " no puede ser negativo");
+        return cantidad;
+    }
+}
@@ -0,0 +1,101 @@
+-- Esquema del perfil h2 (H2 en modo MySQL). Tiene que coincidir con las entidades de
+-- com.distribuida.model: el perfil arranca con ddl-auto=validate y falla si alguna difiere.
+
+create table categoria (
+    id_categoria integer generated by default as identity primary key,
+    categoria varchar(255),
+    descripcion varchar(255)
+);
+
+create table autor (
+    id_autor integer generated by default as identity primary key,
+    nombre varchar(255),
+    apellido varchar(255),
+    pais varchar(255),
+    direccion varchar(255),
+    telefono varchar(255),
+    correo varchar(255)
+);
+
+create table cliente (
+    id_cliente integer generated by default as identity primary key,
+    cedula varchar(255),
+    nombre varchar(255),
+    apellido varchar(255),
+    direccion varchar(255),
+    telefono varchar(255),
+    correo varchar(255)
+);
+
+create table libro (
+    id_libro integer generated by default as identity primary key,
+    titulo varchar(255),
+    editorial varchar(255),
+    num_paginas integer not null,
+    edicion varchar(255),
+    idioma varchar(255),
+    fecha_publicacion timestamp(6),
+    descripcion varchar(255),
+    tipo_pasta varchar(255),
+    isbn varchar(255),
+    num_ejemplares integer not null,
+    portada varchar(255),
+    presentacion varchar(255),
+    precio double precision,
+    id_categoria integer references categoria (id_categoria),
+    id_autor integer references autor (id_autor)
+);
+
+create index idx_libro_portada on libro (portada);
+create index idx_libro_precio on libro (precio, id_libro);
+create index idx_libro_titulo on libro (titulo, id_libro);
+create index idx_libro_fecha on libro (fecha_publicacion, id_libro);
+
+create table factura (
+    id_factura integer generated by default as identity primary key,
+    num_factura varchar(255),
+    fecha timestamp(6),
+    total_neto double precision,
+    iva double precision,
+    total double precision,
+    id_cliente integer references cliente (id_cliente)
+);
+
+create table factura_detalle (
+    id_factura_detalle integer generated by default as identity primary key,
+    cantidad integer not null,
+    subtotal double precision,
+    id_libro integer references libro (id_libro),
+    id_factura integer references factura (id_factura)
+);
+
+create table factura_numerador (
+    nombre varchar(50) primary key,
+    siguiente bigint not null
+);
+
+-- actualizado_en lo mantiene la base, como en MySQL (on update)
+create table carrito (
+    id_carrito bigint generated by default as identity primary key,
+    id_cliente integer references cliente (id_cliente),
+    token varchar(255) unique,
+    version bigint default 0,
+    subtotal numeric(12, 2),
+    descuento numeric(12, 2),
+    impuestos numeric(12, 2),
+    total numeric(12, 2),
+    actualizado_en timestamp(6) default localtimestamp on update localtimestamp not null
+);
+
+create index idx_carrito_actualizado on carrito (actualizado_en, id_carrito);
+
+create table carrito_item (
+    id_carrito_item bigint generated by default as identity primary key,
+    id_carrito bigint not null references carrito (id_carrito),
+    id_libro integer not null references libro (id_libro),
+    cantidad integer,
+    precio_unitario numeric(12, 2),
+    total numeric(12, 2),
+    version bigint default 0,
+    unique (id_carrito, id_libro)
+);
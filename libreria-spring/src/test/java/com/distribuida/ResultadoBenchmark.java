@@ -0,0 +1,56 @@
+package com.distribuida;
+
+import java.util.Arrays;
+
+// Latencias de una corrida de los tests de benchmark (en nanosegundos, se ordenan al construir)
+// y lo que se conto aparte: duracion total, errores y bytes recibidos
+public final class ResultadoBenchmark {
+
+    private final long[] latencias;
+    private final double segundos;
+    private final long errores;
+    private final long bytes;
+
+    public ResultadoBenchmark(long[] latencias) {
+        this(latencias, 0, 0, 0);
+    }
+
+    public ResultadoBenchmark(long[] latencias, double segundos, long errores, long bytes) {
+        this.latencias = latencias.clone();
+        Arrays.sort(this.latencias);
+        this.segundos = segundos;
+        this.errores = errores;
+        this.bytes = bytes;
+    }
+
+    public int getPedidos() {
+        return latencias.length;
+    }
+
+    public double getSegundos() {
+        return segundos;
+    }
+
+    public long getErrores() {
+        return errores;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public double porSegundo() {
+        return latencias.length / segundos;
+    }
+
+    // p entre 0 y 1: la muestra que deja por debajo esa fraccion (rango mas cercano)
+    public double percentilMs(double p) {
+        if (latencias.length == 0) return 0.0;
+        int indice = (int) Math.ceil(p * latencias.length) - 1;
+        return latencias[Math.max(0, indice)] / 1e6;
+    }
+
+    public double maximoMs() {
+        return latencias.length == 0 ? 0.0 : latencias[latencias.length - 1] / 1e6;
+    }
+}
@@ -21,6 +21,8 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -77,6 +79,28 @@ public class CarritoGuestControllerTestIntegracion {
                 .andExpect(jsonPath("$.total").value(57.50));
     }
 
+    @Test
+    public void testGet_IfNoneMatch() throws Exception {
+        Carrito carrito = new Carrito();
+        carrito.setIdCarrito(1L);
+        carrito.setToken("test-token-456");
+        carrito.setTotal(new BigDecimal("57.50"));
+
+        when(carritoService.getByToken(anyString())).thenReturn(carrito);
+
+        String etag = mockMvc.perform(get("/api/guest/cart")
+                        .param("token", "test-token-456"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/guest/cart")
+                        .param("token", "test-token-456")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     public void testAddItem() throws Exception {
         Carrito carrito = new Carrito();
@@ -14,7 +14,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -55,7 +57,7 @@ public class CarritoGuestControllerTestUnitaria {
     public void testGet() {
         when(carritoService.getByToken(anyString())).thenReturn(carrito);
 
-        ResponseEntity<Carrito> respuesta = carritoGuestController.get("test-token");
+        ResponseEntity<Carrito> respuesta = carritoGuestController.get("test-token", null);
 
         assertEquals(200, respuesta.getStatusCodeValue());
         assertNotNull(respuesta.getBody());
@@ -63,6 +65,31 @@ public class CarritoGuestControllerTestUnitaria {
         verify(carritoService, times(1)).getByToken("test-token");
     }
 
+    @Test
+    public void testGet_NoModificado() {
+        when(carritoService.getByToken(anyString())).thenReturn(carrito);
+        String etag = carritoGuestController.get("test-token", null).getHeaders().getETag();
+        assertNotNull(etag);
+
+        ResponseEntity<Carrito> respuesta = carritoGuestController.get("test-token", etag);
+
+        assertEquals(304, respuesta.getStatusCodeValue());
+        assertNull(respuesta.getBody());
+        assertEquals(etag, respuesta.getHeaders().getETag());
+    }
+
+    @Test
+    public void testGet_ModificadoCambiaEtag() {
+        when(carritoService.getByToken(anyString())).thenReturn(carrito);
+        String etag = carritoGuestController.get("test-token", null).getHeaders().getETag();
+
+        carrito.setVersion(1L);
+        ResponseEntity<Carrito> respuesta = carritoGuestController.get("test-token", etag);
+
+        assertEquals(200, respuesta.getStatusCodeValue());
+        assertNotEquals(etag, respuesta.getHeaders().getETag());
+    }
+
     @Test
     public void testAddItem() {
         when(carritoService.addItem(anyString(), anyInt(), anyInt())).thenReturn(carrito);
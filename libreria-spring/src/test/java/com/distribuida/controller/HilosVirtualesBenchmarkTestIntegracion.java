@@ -0,0 +1,129 @@
+package com.distribuida.controller;
+
+import com.distribuida.LibreriaStringApplication;
+import com.distribuida.ResultadoBenchmark;
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.model.Libro;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Carritos de invitado simultaneos atendidos por el pool de Tomcat (200 hilos de plataforma) y por
+// hilos virtuales. Levanta la aplicacion una vez por modo contra la base de application.properties,
+// con los carritos en la base (store=jpa) para que cada request espere JDBC. Cada carrito: crear,
+// agregar un libro y consultar. El modo virtual necesita Java 21: `gradle benchmark -PversionJava=21`.
+@Tag("benchmark")
+public class HilosVirtualesBenchmarkTestIntegracion {
+
+    private static final int CARRITOS = 1_200;
+    private static final int CALENTAMIENTO = 100;
+
+    @Test
+    public void carritosSimultaneosPorModo() throws Exception {
+        System.out.println("modo         carritos  carritos/s  errores   p50(ms)   p99(ms)   max(ms)");
+        medirModo(false);
+        if (Runtime.version().feature() >= 21) {
+            medirModo(true);
+        } else {
+            System.out.println("virtuales    (requiere Java 21: gradle benchmark -PversionJava=21)");
+        }
+    }
+
+    private void medirModo(boolean virtuales) throws Exception {
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(LibreriaStringApplication.class)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtuales,
+                        "libreria.carrito.store=jpa",
+                        "spring.jpa.show-sql=false")
+                .run()) {
+            int puerto = contexto.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            LibroRepository libroRepository = contexto.getBean(LibroRepository.class);
+            JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+            Libro libro = new Libro();
+            libro.setTitulo("Carga hilos");
+            libro.setNumEjemplares(1_000_000);
+            libro.setPrecio(10.0);
+            libro = libroRepository.save(libro);
+            String prefijo = "carga-" + (virtuales ? "v" : "p") + "-" + System.currentTimeMillis() + "-";
+
+            ExecutorService respuestas = Executors.newFixedThreadPool(8);
+            HttpClient cliente = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(respuestas)
+                    .build();
+            try {
+                correr(cliente, puerto, prefijo + "c", CALENTAMIENTO, libro.getIdLibro());
+                ResultadoBenchmark resultado = correr(cliente, puerto, prefijo, CARRITOS, libro.getIdLibro());
+                System.out.printf("%-12s %9d %11.0f %8d %9.1f %9.1f %9.1f%n",
+                        virtuales ? "virtuales" : "plataforma", CARRITOS,
+                        CARRITOS / resultado.getSegundos(), resultado.getErrores(),
+                        resultado.percentilMs(0.50),
+                        resultado.percentilMs(0.99),
+                        resultado.maximoMs());
+                assertTrue(resultado.getErrores() < resultado.getPedidos(), "Fallaron todos los requests");
+            } finally {
+                respuestas.shutdown();
+                jdbcTemplate.update("delete from carrito_item where id_carrito in "
+                        + "(select id_carrito from carrito where token like ?)", prefijo + "%");
+                jdbcTemplate.update("delete from carrito where token like ?", prefijo + "%");
+                libroRepository.delete(libro);
+            }
+        }
+    }
+
+    // Todos los carritos a la vez: cada uno encadena sus tres requests sin ocupar un hilo del cliente
+    private ResultadoBenchmark correr(HttpClient cliente, int puerto, String prefijo, int carritos, int idLibro) {
+        String base = "http://localhost:" + puerto + "/api/guest/cart";
+        ConcurrentLinkedQueue<Long> latencias = new ConcurrentLinkedQueue<>();
+        AtomicInteger errores = new AtomicInteger();
+        CompletableFuture<?>[] pendientes = new CompletableFuture<?>[carritos];
+        long inicio = System.nanoTime();
+        for (int i = 0; i < carritos; i++) {
+            String token = prefijo + i;
+            pendientes[i] = enviar(cliente, pedido(base + "?token=" + token)
+                            .POST(HttpRequest.BodyPublishers.noBody()).build(), latencias, errores)
+                    .thenCompose(estado -> enviar(cliente, pedido(base + "/items?token=" + token)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"libroId\":" + idLibro + ",\"cantidad\":1}"))
+                            .build(), latencias, errores))
+                    .thenCompose(estado -> enviar(cliente, pedido(base + "?token=" + token).GET().build(),
+                            latencias, errores));
+        }
+        CompletableFuture.allOf(pendientes).join();
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        long[] muestras = latencias.stream().mapToLong(Long::longValue).toArray();
+        return new ResultadoBenchmark(muestras, segundos, errores.get(), 0);
+    }
+
+    private static HttpRequest.Builder pedido(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60));
+    }
+
+    private static CompletableFuture<Integer> enviar(HttpClient cliente, HttpRequest request,
+                                                     ConcurrentLinkedQueue<Long> latencias, AtomicInteger errores) {
+        long antes = System.nanoTime();
+        return cliente.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((respuesta, error) -> {
+                    latencias.add(System.nanoTime() - antes);
+                    if (error != null || respuesta.statusCode() != 200) errores.incrementAndGet();
+                    return respuesta != null ? respuesta.statusCode() : -1;
+                });
+    }
+}
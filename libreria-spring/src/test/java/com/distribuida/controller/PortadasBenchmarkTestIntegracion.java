@@ -0,0 +1,126 @@
+package com.distribuida.controller;
+
+import com.distribuida.ResultadoBenchmark;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Throughput de las portadas: PortadaController (EntregaPortadas) contra el ResourceHttpRequestHandler
+// que las servia antes, montado aca en /portadas-recurso/** sobre el mismo directorio. Mismas
+// portadas, mismos hilos y pedidos. Se lanza con `gradle benchmark`.
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.show-sql=false")
+public class PortadasBenchmarkTestIntegracion {
+
+    private static final int HILOS = 8;
+    private static final int CALENTAMIENTO = 200;
+    private static final int PEDIDOS_POR_HILO = 2_000;
+
+    @TestConfiguration
+    static class ManejadorAnterior implements WebMvcConfigurer {
+
+        @Value("${libreria.portadas.directorio:uploads/portadas}")
+        private String directorio;
+
+        @Override
+        public void addResourceHandlers(ResourceHandlerRegistry registry) {
+            registry.addResourceHandler("/portadas-recurso/**")
+                    .addResourceLocations("file:" + directorio + "/");
+        }
+    }
+
+    @LocalServerPort
+    private int puerto;
+
+    @Value("${libreria.portadas.directorio:uploads/portadas}")
+    private String directorio;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    public void throughputContraResourceHandler() throws Exception {
+        List<String> nombres;
+        try (Stream<Path> archivos = Files.list(Paths.get(directorio))) {
+            nombres = archivos.filter(Files::isRegularFile)
+                    .map(archivo -> archivo.getFileName().toString())
+                    .filter(nombre -> !nombre.startsWith("."))
+                    .sorted()
+                    .limit(20)
+                    .toList();
+        }
+        assertFalse(nombres.isEmpty(), "No hay portadas en " + directorio);
+
+        System.out.println("manejador            pedidos/s    MB/s   p50(ms)   p99(ms)");
+        for (String prefijo : List.of("/portadas-recurso/", "/portadas/")) {
+            medir(prefijo, nombres, CALENTAMIENTO);
+            ResultadoBenchmark resultado = medir(prefijo, nombres, PEDIDOS_POR_HILO);
+            System.out.printf("%-20s %10.0f %7.1f %9.2f %9.2f%n", prefijo,
+                    resultado.porSegundo(),
+                    resultado.getBytes() / resultado.getSegundos() / 1e6,
+                    resultado.percentilMs(0.50),
+                    resultado.percentilMs(0.99));
+        }
+    }
+
+    private ResultadoBenchmark medir(String prefijo, List<String> nombres, int porHilo) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<long[]>> tareas = new ArrayList<>();
+        long inicio = System.nanoTime();
+        for (int h = 0; h < HILOS; h++) {
+            int hilo = h;
+            tareas.add(pool.submit(() -> {
+                // Por pedido: latencia; la ultima posicion acumula los bytes recibidos
+                long[] muestras = new long[porHilo + 1];
+                for (int i = 0; i < porHilo; i++) {
+                    String nombre = nombres.get((hilo + i) % nombres.size());
+                    URI uri = URI.create("http://localhost:" + puerto + prefijo
+                            + URLEncoder.encode(nombre, StandardCharsets.UTF_8).replace("+", "%20"));
+                    long antes = System.nanoTime();
+                    HttpResponse<byte[]> respuesta = cliente.send(HttpRequest.newBuilder(uri).GET().build(),
+                            HttpResponse.BodyHandlers.ofByteArray());
+                    muestras[i] = System.nanoTime() - antes;
+                    assertEquals(200, respuesta.statusCode(), uri.toString());
+                    muestras[porHilo] += respuesta.body().length;
+                }
+                return muestras;
+            }));
+        }
+
+        long[] latencias = new long[HILOS * porHilo];
+        long bytes = 0;
+        int posicion = 0;
+        for (Future<long[]> tarea : tareas) {
+            long[] muestras = tarea.get();
+            System.arraycopy(muestras, 0, latencias, posicion, porHilo);
+            posicion += porHilo;
+            bytes += muestras[porHilo];
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        pool.shutdown();
+        return new ResultadoBenchmark(latencias, segundos, 0, bytes);
+    }
+}
@@ -0,0 +1,67 @@
+package com.distribuida.dao;
+
+import com.distribuida.model.Autor;
+import com.distribuida.model.Categoria;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class CacheSegundoNivelTestIntegracion {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    public void setUp() {
+        estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void findById_DesdeCache(){
+        List<Autor> autores = autorRepository.findAll();
+        assertFalse(autores.isEmpty());
+        int idAutor = autores.get(0).getIdAutor();
+
+        // Fuera del contexto de persistencia solo queda el cache de segundo nivel
+        entityManager.clear();
+        estadisticas.clear();
+
+        assertTrue(autorRepository.findById(idAutor).isPresent());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getDomainDataRegionStatistics("autor").getHitCount());
+    }
+
+    @Test
+    public void findByCategoria_DesdeCacheDeConsultas(){
+        List<Categoria> categorias = categoriaRepository.findAll();
+        assertFalse(categorias.isEmpty());
+        String nombre = categorias.get(0).getCategoria();
+
+        categoriaRepository.findByCategoria(nombre);
+        entityManager.clear();
+        estadisticas.clear();
+
+        assertNotNull(categoriaRepository.findByCategoria(nombre));
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getQueryRegionStatistics("consultas-referencia").getHitCount());
+    }
+}
@@ -0,0 +1,118 @@
+package com.distribuida.dao;
+
+import com.distribuida.model.Libro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin transaccion de test: cada hilo confirma la suya, como checkouts reales en paralelo
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LibroStockTestIntegracion {
+
+    private static final int STOCK = 10;
+    private static final int HILOS = 40;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Integer> creados = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp(){
+        creados.clear();
+    }
+
+    @AfterEach
+    public void tearDown(){
+        creados.forEach(libroRepository::deleteById);
+    }
+
+    @Test
+    public void descontarStock_Concurrente() throws Exception {
+        int idLibro = crearLibro("Best seller", STOCK);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicInteger vendidos = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                tx.executeWithoutResult(status -> {
+                    if (libroRepository.descontarStock(Map.of(idLibro, 1)).isEmpty()) {
+                        vendidos.incrementAndGet();
+                    }
+                });
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) tarea.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        // Exactamente STOCK ventas y nunca stock negativo
+        assertEquals(STOCK, vendidos.get());
+        assertEquals(0, stock(idLibro));
+    }
+
+    @Test
+    public void descontarStock_LineaSinStockHaceRollback(){
+        int conStock = crearLibro("Con stock", 5);
+        int sinStock = crearLibro("Sin stock", 1);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        List<Integer> fallidos = tx.execute(status -> {
+            List<Integer> resultado = libroRepository.descontarStock(Map.of(conStock, 2, sinStock, 3));
+            if (!resultado.isEmpty()) status.setRollbackOnly();
+            return resultado;
+        });
+
+        assertEquals(List.of(sinStock), fallidos);
+        assertEquals(5, stock(conStock));
+        assertEquals(1, stock(sinStock));
+    }
+
+    private int crearLibro(String titulo, int ejemplares) {
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setNumEjemplares(ejemplares);
+        libro.setPrecio(10.0);
+        int idLibro = libroRepository.save(libro).getIdLibro();
+        creados.add(idLibro);
+        return idLibro;
+    }
+
+    // Directo a la tabla, sin pasar por el cache de segundo nivel
+    private int stock(int idLibro) {
+        return jdbcTemplate.queryForObject("select num_ejemplares from libro where id_libro = ?", Integer.class, idLibro);
+    }
+}
@@ -0,0 +1,89 @@
+package com.distribuida.dao;
+
+import com.distribuida.model.Factura;
+import com.distribuida.model.FacturaDetalle;
+import com.distribuida.model.Libro;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cada listado debe costar un numero fijo de sentencias, sin importar cuantas filas devuelva
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class PlanesDeCargaTestIntegracion {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    @Autowired
+    private FacturaDetalleRepository facturaDetalleRepository;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    public void setUp() {
+        estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        // Sin entidades en el contexto de persistencia, cada asociacion tendria que ir a la base
+        entityManager.clear();
+        estadisticas.clear();
+    }
+
+    @Test
+    public void findAllConAutorYCategoria(){
+        List<Libro> libros = libroRepository.findAllConAutorYCategoria();
+        for (Libro libro : libros) {
+            if (libro.getAutor() != null) libro.getAutor().getNombre();
+            if (libro.getCategoria() != null) libro.getCategoria().getCategoria();
+        }
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findPaginaPorCursor(){
+        List<Libro> libros = libroRepository.findAllByOrderByPrecioAscIdLibroAsc(PageRequest.of(0, 50));
+        assertFalse(libros.isEmpty());
+        Libro ultimo = libros.get(libros.size() - 1);
+        libroRepository.findSiguientesPorPrecio(ultimo.getPrecio(), ultimo.getIdLibro(), PageRequest.of(0, 50));
+        // Una consulta por pagina, sin count ni una por autor o categoria
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findAllConCliente(){
+        List<Factura> facturas = facturaRepository.findAllConCliente();
+        for (Factura factura : facturas) {
+            if (factura.getCliente() != null) factura.getCliente().getNombre();
+        }
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findAllCompleto(){
+        List<FacturaDetalle> detalles = facturaDetalleRepository.findAllCompleto();
+        for (FacturaDetalle detalle : detalles) {
+            if (detalle.getLibro() != null && detalle.getLibro().getAutor() != null) {
+                detalle.getLibro().getAutor().getNombre();
+            }
+            if (detalle.getFactura() != null && detalle.getFactura().getCliente() != null) {
+                detalle.getFactura().getCliente().getNombre();
+            }
+        }
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+}
@@ -4,18 +4,22 @@ import com.distribuida.dao.CarritoItemRepository;
 import com.distribuida.dao.CarritoRepository;
 import com.distribuida.dao.ClienteRepository;
 import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.OperacionCarritoRequest;
 import com.distribuida.model.Carrito;
 import com.distribuida.model.CarritoItem;
 import com.distribuida.model.Cliente;
 import com.distribuida.model.Libro;
+import com.distribuida.service.carrito.JpaCartStore;
+import com.distribuida.service.carrito.ReintentoOptimista;
+import com.distribuida.service.carrito.TotalesCarrito;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,7 +41,6 @@ public class CarritoServicioTestUnitaria {
     @Mock
     private LibroRepository libroRepository;
 
-    @InjectMocks
     private CarritoServiceImpl carritoService;
 
     private Cliente cliente;
@@ -47,6 +50,10 @@ public class CarritoServicioTestUnitaria {
 
     @BeforeEach
     public void setUp() {
+        carritoService = new CarritoServiceImpl(carritoRepository, carritoItemRepository, clienteRepository, libroRepository,
+                new JpaCartStore(carritoRepository, carritoItemRepository, libroRepository, new TotalesCarrito(true)),
+                new ReintentoOptimista(3, 0));
+
         cliente = new Cliente();
         cliente.setIdCliente(1);
         cliente.setNombre("Juan Pérez");
@@ -291,4 +298,48 @@ public class CarritoServicioTestUnitaria {
         assertEquals(BigDecimal.ZERO, carrito.getSubtotal());
         verify(carritoRepository, times(1)).save(carrito);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAplicarOperaciones_Token() {
+        Libro otro = new Libro();
+        otro.setIdLibro(2);
+        otro.setPrecio(10.0);
+        carrito.getItems().add(carritoItem);
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.of(carrito));
+        when(libroRepository.findAllById(any())).thenReturn(List.of(libro, otro));
+        when(carritoRepository.save(carrito)).thenReturn(carrito);
+
+        Carrito resultado = carritoService.aplicarOperaciones("token-123", List.of(
+                operacion("set", 1, null, 4),
+                operacion("add", 2, null, 3),
+                operacion("remove", null, 1L, 0),
+                operacion("add", 1, null, 1)));
+
+        // Libro 1 se quito y volvio a entrar como linea nueva
+        assertEquals(2, resultado.getItems().size());
+        assertEquals(new BigDecimal("63.83"), resultado.getTotal());
+        // Un solo viaje por los libros y un solo save del carrito
+        verify(libroRepository, times(1)).findAllById(any());
+        verify(libroRepository, never()).findById(any());
+        verify(carritoRepository, times(1)).save(carrito);
+        verify(carritoItemRepository, never()).save(any());
+    }
+
+    @Test
+    public void testAplicarOperaciones_LibroInexistente() {
+        when(libroRepository.findAllById(any())).thenReturn(List.of());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                carritoService.aplicarOperaciones("token-123", List.of(operacion("add", 99, null, 1))));
+        verify(carritoRepository, never()).save(any());
+    }
+
+    private static OperacionCarritoRequest operacion(String op, Integer libroId, Long carritoItemId, int cantidad) {
+        OperacionCarritoRequest operacion = new OperacionCarritoRequest();
+        operacion.setOp(op);
+        operacion.setLibroId(libroId);
+        operacion.setCarritoItemId(carritoItemId);
+        operacion.setCantidad(cantidad);
+        return operacion;
+    }
+}
@@ -0,0 +1,121 @@
+package com.distribuida.service;
+
+import com.distribuida.ResultadoBenchmark;
+import com.distribuida.dao.CarritoRepository;
+import com.distribuida.dao.FacturaRepository;
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import com.distribuida.model.Factura;
+import com.distribuida.model.Libro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Latencia de checkout segun el numero de lineas del carrito. No corre con `gradle test`:
+// se lanza con `gradle benchmark` contra la base de application.properties.
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class CheckoutBenchmarkTestIntegracion {
+
+    private static final int[] LINEAS = {1, 10, 100};
+    private static final int CALENTAMIENTO = 10;
+    private static final int MEDICIONES = 100;
+
+    @Autowired
+    private GuestCheckoutService guestCheckoutService;
+
+    @Autowired
+    private CarritoRepository carritoRepository;
+
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Libro> libros = new ArrayList<>();
+    private final List<Integer> facturas = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp(){
+        for (int i = 0; i < 100; i++) {
+            Libro libro = new Libro();
+            libro.setTitulo("Benchmark " + i);
+            libro.setNumEjemplares(1_000_000);
+            libro.setPrecio(10.0);
+            libros.add(libroRepository.save(libro));
+        }
+    }
+
+    @AfterEach
+    public void tearDown(){
+        for (Integer idFactura : facturas) {
+            jdbcTemplate.update("delete from factura_detalle where id_factura = ?", idFactura);
+            facturaRepository.deleteById(idFactura);
+        }
+        for (String token : tokens) {
+            carritoRepository.findByToken(token).ifPresent(carritoRepository::delete);
+        }
+        libros.forEach(libroRepository::delete);
+    }
+
+    @Test
+    public void checkoutPorNumeroDeLineas(){
+        System.out.println("lineas      p50(ms)     p99(ms)");
+        for (int lineas : LINEAS) {
+            for (int i = 0; i < CALENTAMIENTO; i++) {
+                medirCheckout(lineas);
+            }
+            long[] muestras = new long[MEDICIONES];
+            for (int i = 0; i < MEDICIONES; i++) {
+                muestras[i] = medirCheckout(lineas);
+            }
+            ResultadoBenchmark resultado = new ResultadoBenchmark(muestras);
+            System.out.printf("%6d %12.2f %11.2f%n", lineas,
+                    resultado.percentilMs(0.50), resultado.percentilMs(0.99));
+        }
+    }
+
+    // Nanosegundos de checkoutByToken; armar el carrito queda fuera de la medicion
+    private long medirCheckout(int lineas) {
+        String token = crearCarrito(lineas);
+        long inicio = System.nanoTime();
+        Factura factura = guestCheckoutService.checkoutByToken(token);
+        long duracion = System.nanoTime() - inicio;
+        assertNotNull(factura);
+        facturas.add(factura.getIdFactura());
+        return duracion;
+    }
+
+    private String crearCarrito(int lineas) {
+        Carrito carrito = new Carrito();
+        carrito.setToken(UUID.randomUUID().toString());
+        for (int i = 0; i < lineas; i++) {
+            CarritoItem item = new CarritoItem();
+            item.setCarrito(carrito);
+            item.setLibro(libros.get(i));
+            item.setCantidad(1);
+            item.setPrecioUnitario(BigDecimal.valueOf(libros.get(i).getPrecio()));
+            carrito.getItems().add(item);
+        }
+        carritoRepository.save(carrito);
+        tokens.add(carrito.getToken());
+        return carrito.getToken();
+    }
+}
@@ -0,0 +1,135 @@
+package com.distribuida.service;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.model.Factura;
+import com.distribuida.model.Libro;
+import com.distribuida.service.carrito.CartStore;
+import com.distribuida.service.carrito.MemoriaCartStore;
+import com.distribuida.service.carrito.TotalesCarrito;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checkouts en paralelo con mas hilos que conexiones y un bloque de facturas chico, para que
+// varios checkouts crucen el fin de bloque mientras otros tienen tomada la fila del libro comun.
+// Con los carritos en memoria, cada checkout tambien escribe su carrito antes de leerlo.
+@DataJpaTest(properties = {
+        "libreria.carrito.store=memoria",
+        "libreria.factura.bloque=3",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=5000"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({GuestCheckoutServiceImpl.class, FacturaNumberAllocator.class, MemoriaCartStore.class, TotalesCarrito.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CheckoutConcurrenteTestIntegracion {
+
+    private static final int HILOS = 16;
+    private static final int STOCK = 1000;
+
+    @Autowired
+    private GuestCheckoutService guestCheckoutService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Integer> libros = new ArrayList<>();
+    private final List<Integer> facturas = new ArrayList<>();
+    private Libro comun;
+
+    @BeforeEach
+    public void setUp(){
+        comun = crearLibro("Comun");
+        for (int i = 0; i < HILOS; i++) {
+            String token = UUID.randomUUID().toString();
+            cartStore.addItem(token, comun.getIdLibro(), 1);
+            cartStore.addItem(token, crearLibro("Propio " + i).getIdLibro(), 2);
+            tokens.add(token);
+        }
+    }
+
+    @AfterEach
+    public void tearDown(){
+        for (Integer idFactura : facturas) {
+            jdbcTemplate.update("delete from factura_detalle where id_factura = ?", idFactura);
+            jdbcTemplate.update("delete from factura where id_factura = ?", idFactura);
+        }
+        for (String token : tokens) {
+            jdbcTemplate.update("delete from carrito_item where id_carrito in (select id_carrito from carrito where token = ?)", token);
+            jdbcTemplate.update("delete from carrito where token = ?", token);
+        }
+        libros.forEach(libroRepository::deleteById);
+    }
+
+    @Test
+    public void checkout_ConcurrenteCruzandoBloquesDeFacturas() throws Exception {
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<Factura>> tareas = new ArrayList<>();
+        for (String token : tokens) {
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                return guestCheckoutService.checkoutByToken(token);
+            }));
+        }
+        salida.countDown();
+
+        Set<String> numeros = new HashSet<>();
+        for (Future<Factura> tarea : tareas) {
+            Factura factura = tarea.get(60, TimeUnit.SECONDS);
+            facturas.add(factura.getIdFactura());
+            assertTrue(numeros.add(factura.getNumFactura()), "Numero repetido: " + factura.getNumFactura());
+        }
+        pool.shutdown();
+
+        assertEquals(HILOS, numeros.size());
+        assertEquals(STOCK - HILOS, stock(comun.getIdLibro()));
+        // Cada carrito quedo vacio en la base y fuera de memoria
+        for (String token : tokens) {
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from carrito_item i join carrito c "
+                    + "on c.id_carrito = i.id_carrito where c.token = ?", Integer.class, token));
+            assertTrue(cartStore.get(token).getItems().isEmpty());
+        }
+    }
+
+    private Libro crearLibro(String titulo) {
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setNumEjemplares(STOCK);
+        libro.setPrecio(10.0);
+        libro = libroRepository.save(libro);
+        libros.add(libro.getIdLibro());
+        return libro;
+    }
+
+    // Directo a la tabla, sin pasar por el cache de segundo nivel
+    private int stock(int idLibro) {
+        return jdbcTemplate.queryForObject("select num_ejemplares from libro where id_libro = ?", Integer.class, idLibro);
+    }
+}
@@ -0,0 +1,76 @@
+package com.distribuida.service;
+
+import com.distribuida.dto.EstadisticaCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.cache.CacheManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EstadisticasCacheServicioTestUnitaria {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private CacheManager jcacheManager;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Statistics statistics;
+
+    private EstadisticasCacheServiceImpl estadisticasCacheService;
+
+    @BeforeEach
+    public void setUp(){
+        // A mano y no con @InjectMocks: SessionFactory tambien es un EntityManagerFactory y Mockito
+        // podia inyectar ese mock en su lugar, sin el unwrap configurado
+        estadisticasCacheService = new EstadisticasCacheServiceImpl(entityManagerFactory, jcacheManager);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[]{"autor"});
+    }
+
+    @Test
+    public void testFindAll(){
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        CacheRegionStatistics region = mock(CacheRegionStatistics.class);
+        when(region.getHitCount()).thenReturn(3L);
+        when(region.getMissCount()).thenReturn(1L);
+        when(region.getPutCount()).thenReturn(1L);
+        when(statistics.getCacheRegionStatistics("autor")).thenReturn(region);
+
+        List<EstadisticaCache> resultado = estadisticasCacheService.findAll();
+
+        assertEquals(1, resultado.size());
+        assertEquals("autor", resultado.get(0).getRegion());
+        assertEquals(0.75, resultado.get(0).getTasaAciertos());
+        // Sin cache JCache registrado no se informa el tamanio
+        assertNull(resultado.get(0).getElementos());
+    }
+
+    @Test
+    public void testEvict(){
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        Cache cache = mock(Cache.class);
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        estadisticasCacheService.evict("autor");
+
+        verify(cache, times(1)).evictRegion("autor");
+        assertThrows(IllegalArgumentException.class, () -> estadisticasCacheService.evict("inexistente"));
+    }
+}
@@ -76,11 +76,11 @@ public class FacturaDetalleTestUnitaria {
 
     @Test
     public void testFindAll(){
-        when(facturaDetalleRepository.findAll()).thenReturn(Arrays.asList(facturaDetalle));
+        when(facturaDetalleRepository.findAllCompleto()).thenReturn(Arrays.asList(facturaDetalle));
         List<FacturaDetalle> facturaDetalles = facturaDetalleService.findAll();
         assertNotNull(facturaDetalles);
         assertEquals(1, facturaDetalles.size());
-        verify(facturaDetalleRepository, times(1)).findAll();
+        verify(facturaDetalleRepository, times(1)).findAllCompleto();
     }
 
     @Test
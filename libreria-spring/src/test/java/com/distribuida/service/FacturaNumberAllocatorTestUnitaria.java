@@ -0,0 +1,93 @@
+package com.distribuida.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class FacturaNumberAllocatorTestUnitaria {
+
+    private static final int HILOS = 8;
+    private static final int POR_HILO = 20_000;
+
+    // La tabla factura_numerador simulada en memoria
+    private final AtomicLong contador = new AtomicLong(1);
+    private final AtomicInteger reservas = new AtomicInteger();
+
+    private FacturaNumberAllocator allocator(int bloque) {
+        return new FacturaNumberAllocator(null, mock(PlatformTransactionManager.class), bloque) {
+            @Override
+            protected long reservarBloque(int tamanio) {
+                reservas.incrementAndGet();
+                return contador.getAndAdd(tamanio);
+            }
+        };
+    }
+
+    @Test
+    public void testSiguienteNumero_Formato(){
+        FacturaNumberAllocator allocator = allocator(10);
+        assertEquals("F-00000001", allocator.siguienteNumero());
+        assertEquals("F-00000002", allocator.siguienteNumero());
+    }
+
+    @Test
+    public void testReservaPorBloques(){
+        FacturaNumberAllocator allocator = allocator(100);
+        for (int i = 0; i < 250; i++) allocator.siguiente();
+        assertEquals(3, reservas.get());
+    }
+
+    @Test
+    public void testDosNodosNoRepiten(){
+        // Dos instancias comparten la tabla, como dos nodos: bloques disjuntos
+        FacturaNumberAllocator nodoA = allocator(50);
+        FacturaNumberAllocator nodoB = allocator(50);
+        Set<Long> numeros = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            assertTrue(numeros.add(nodoA.siguiente()));
+            assertTrue(numeros.add(nodoB.siguiente()));
+        }
+    }
+
+    @Test
+    public void testConcurrente_UnicosYCrecientesPorHilo() throws Exception {
+        FacturaNumberAllocator allocator = allocator(1000);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<long[]>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            Callable<long[]> tarea = () -> {
+                long[] numeros = new long[POR_HILO];
+                for (int i = 0; i < POR_HILO; i++) numeros[i] = allocator.siguiente();
+                return numeros;
+            };
+            tareas.add(pool.submit(tarea));
+        }
+
+        Set<Long> todos = new HashSet<>();
+        for (Future<long[]> tarea : tareas) {
+            long[] numeros = tarea.get();
+            for (int i = 0; i < numeros.length; i++) {
+                assertTrue(todos.add(numeros[i]), "Numero repetido: " + numeros[i]);
+                if (i > 0) assertTrue(numeros[i] > numeros[i - 1]);
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(HILOS * POR_HILO, todos.size());
+        // Un solo viaje a la base por bloque de 1000, aunque varios hilos lo agoten a la vez
+        assertEquals(HILOS * POR_HILO / 1000, reservas.get());
+    }
+}
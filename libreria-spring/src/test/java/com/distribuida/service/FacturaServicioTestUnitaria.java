@@ -52,11 +52,11 @@ public class FacturaServicioTestUnitaria {
 
     @Test
     public void testFindAll(){
-        when(facturaRepository.findAll()).thenReturn(Arrays.asList(factura));
+        when(facturaRepository.findAllConCliente()).thenReturn(Arrays.asList(factura));
         List<Factura> facturas = facturaService.findAll();
         assertNotNull(facturas);
         assertEquals(1, facturas.size());
-        verify(facturaRepository, times(1)).findAll();
+        verify(facturaRepository, times(1)).findAllConCliente();
     }
 
     @Test
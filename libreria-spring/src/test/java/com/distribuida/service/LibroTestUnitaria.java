@@ -1,7 +1,15 @@
 package com.distribuida.service;
 
 import com.distribuida.dao.*;
+import com.distribuida.dto.LibroCard;
+import com.distribuida.dto.PaginaCursor;
+import com.distribuida.dto.ResultadoFacetas;
 import com.distribuida.model.*;
+import com.distribuida.service.busqueda.AutocompletadoLibros;
+import com.distribuida.service.busqueda.IndiceFacetas;
+import com.distribuida.service.busqueda.IndiceLibros;
+import com.distribuida.service.portadas.AlmacenPortadas;
+import com.distribuida.service.util.LibroCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,14 +17,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +49,21 @@ public class LibroTestUnitaria {
     @Mock
     private AutorRepository autorRepository;
 
+    @Mock
+    private IndiceLibros indiceLibros;
+
+    @Mock
+    private AutocompletadoLibros autocompletadoLibros;
+
+    @Mock
+    private IndiceFacetas indiceFacetas;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AlmacenPortadas almacenPortadas;
+
     @InjectMocks
     private AutorServiceImpl autorService;
 
@@ -70,11 +97,11 @@ public class LibroTestUnitaria {
         }
     @Test
     public void testFindAll(){
-        when(libroRepository.findAll()).thenReturn(Arrays.asList(libro));
+        when(libroRepository.findAllConAutorYCategoria()).thenReturn(Arrays.asList(libro));
         List<Libro> libros = libroService.findAll();
         assertNotNull(libros);
         assertEquals(1, libros.size());
-        verify(libroRepository, times(1)).findAll();
+        verify(libroRepository, times(1)).findAllConAutorYCategoria();
     }
 
     @Test
@@ -92,6 +119,7 @@ public class LibroTestUnitaria {
         assertNotNull(libro1);
         assertEquals("Area 51", libro.getTitulo());
         verify(libroRepository, times(1)).save(libro1);
+        verify(eventPublisher, times(1)).publishEvent(any(LibroCambiadoEvent.class));
     }
 
     @Test
@@ -101,11 +129,102 @@ public class LibroTestUnitaria {
         when(libroRepository.save(any(Libro.class))).thenReturn(libroActualizado);
         when(categoriaRepository.findById(1)).thenReturn(Optional.of(categoria));
         when(autorRepository.findById(1)).thenReturn(Optional.of(autor));
-        Libro libro1 = libroService.update(1,1,libroActualizado);
+        Libro libro1 = libroService.update(1,libroActualizado);
         assertNotNull(libro1);
         assertEquals("Area 55", libro1.getTitulo());
         assertEquals("Ecuadorian", libro1.getEditorial());
         verify(libroRepository).save(any(Libro.class));
+        verify(almacenPortadas, never()).liberar(any());
+    }
+
+    @Test
+    public void testUpdate_LiberaPortadaAnterior(){
+        libro.setPortada("portadas/vieja.png");
+        Libro libroActualizado = new Libro(1, "Area 51", "Ecuadorian", 550, "Limitada", "Español", new Date(),"Conoce el area 51","Pasta dura","ISBN-005", 9500,"portadas/nueva.png", "Nueva",85.50,categoria, autor);
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.save(any(Libro.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(categoriaRepository.findById(1)).thenReturn(Optional.of(categoria));
+        when(autorRepository.findById(1)).thenReturn(Optional.of(autor));
+
+        libroService.update(1, libroActualizado);
+
+        verify(almacenPortadas, times(1)).liberar("portadas/vieja.png");
+    }
+
+    @Test
+    public void testFindPage_UltimaPagina(){
+        when(libroRepository.findAllByOrderByIdLibroAsc(any(Pageable.class))).thenReturn(List.of(libro));
+        PaginaCursor<Libro> pagina = libroService.findPage(20, null, null);
+        assertEquals(1, pagina.getItems().size());
+        assertNull(pagina.getCursorSiguiente());
+    }
+
+    @Test
+    public void testFindPage_ConCursor(){
+        Libro segundo = new Libro();
+        segundo.setIdLibro(2);
+        segundo.setPrecio(90.00);
+        libro.setIdLibro(1);
+        when(libroRepository.findAllByOrderByPrecioAscIdLibroAsc(any(Pageable.class)))
+                .thenReturn(Arrays.asList(libro, segundo));
+
+        PaginaCursor<Libro> pagina = libroService.findPage(1, null, "precio");
+        assertEquals(1, pagina.getItems().size());
+        assertNotNull(pagina.getCursorSiguiente());
+
+        LibroCursor cursor = LibroCursor.decodificar(pagina.getCursorSiguiente());
+        assertEquals(LibroCursor.Orden.PRECIO, cursor.getOrden());
+        assertEquals(1, cursor.getUltimoId());
+        assertEquals(85.50, cursor.getPrecio());
+
+        when(libroRepository.findSiguientesPorPrecio(eq(85.50), eq(1), any(Pageable.class)))
+                .thenReturn(List.of(segundo));
+        PaginaCursor<Libro> siguiente = libroService.findPage(1, pagina.getCursorSiguiente(), null);
+        assertEquals(2, siguiente.getItems().get(0).getIdLibro());
+        assertNull(siguiente.getCursorSiguiente());
+    }
+
+    @Test
+    public void testFindPage_CursorInvalido(){
+        assertThrows(IllegalArgumentException.class, () -> libroService.findPage(20, "no-es-un-cursor", null));
+        assertThrows(IllegalArgumentException.class, () -> libroService.findPage(20, null, "editorial"));
+    }
+
+    @Test
+    public void testFindCards(){
+        LibroCard card1 = new LibroCard(1, "Area 51", 85.50, "portadas/a.png", "Jose Flores", true);
+        LibroCard card2 = new LibroCard(2, "Area 52", 20.00, "portadas/b.png", " ", false);
+        when(libroRepository.findCards(any(Pageable.class))).thenReturn(Arrays.asList(card1, card2));
+
+        PaginaCursor<LibroCard> pagina = libroService.findCards(1, null);
+        assertEquals(1, pagina.getItems().size());
+        assertEquals("Jose Flores", pagina.getItems().get(0).getAutor());
+        assertTrue(pagina.getItems().get(0).isDisponible());
+
+        when(libroRepository.findCardsSiguientes(eq(1), any(Pageable.class))).thenReturn(List.of(card2));
+        PaginaCursor<LibroCard> siguiente = libroService.findCards(1, pagina.getCursorSiguiente());
+        assertEquals(2, siguiente.getItems().get(0).getIdLibro());
+        assertFalse(siguiente.getItems().get(0).isDisponible());
+        assertNull(siguiente.getCursorSiguiente());
+    }
+
+    @Test
+    public void testSearch(){
+        LibroCard card = new LibroCard(1, "Area 51", 85.50, "portadas/a.png", "Jose Flores", true);
+        when(indiceLibros.buscar("area", 20)).thenReturn(List.of(card));
+        List<LibroCard> resultado = libroService.search("area", 20);
+        assertEquals(1, resultado.size());
+        verify(indiceLibros, times(1)).buscar("area", 20);
+    }
+
+    @Test
+    public void testFacets_LimiteAcotado(){
+        Map<String, List<String>> filtros = Map.of("idioma", List.of("Español"));
+        ResultadoFacetas esperado = new ResultadoFacetas(0, List.of(), Map.of());
+        when(indiceFacetas.consultar(filtros, 100)).thenReturn(esperado);
+
+        assertSame(esperado, libroService.facets(filtros, 5000));
+        verify(indiceFacetas, times(1)).consultar(filtros, 100);
     }
 
     @Test
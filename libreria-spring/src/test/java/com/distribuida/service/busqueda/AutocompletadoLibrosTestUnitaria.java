@@ -0,0 +1,62 @@
+package com.distribuida.service.busqueda;
+
+import com.distribuida.dao.FacturaDetalleRepository;
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.LibroCard;
+import com.distribuida.service.StockDescontadoEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AutocompletadoLibrosTestUnitaria {
+
+    private static final long ESPERA_VENTAS_MS = 200;
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private FacturaDetalleRepository facturaDetalleRepository;
+
+    private AutocompletadoLibros autocompletado;
+
+    @BeforeEach
+    public void setUp() {
+        autocompletado = new AutocompletadoLibros(libroRepository, facturaDetalleRepository, ESPERA_VENTAS_MS);
+        when(libroRepository.findCards(any(Pageable.class)))
+                .thenReturn(List.of(new LibroCard(1, "Cien años de soledad", 10.0, null, "Gabriel García Márquez", true)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        autocompletado.detener();
+    }
+
+    @Test
+    public void testVentas_UnaReconstruccionPorIntervalo() throws Exception {
+        List<Object[]> ventas = new ArrayList<>();
+        ventas.add(new Object[]{1, 3L});
+        when(facturaDetalleRepository.sumarVentasPorLibro()).thenReturn(ventas);
+
+        for (int i = 0; i < 20; i++) autocompletado.onStockDescontado(new StockDescontadoEvent(1, 1));
+        // Dentro del intervalo todavia no se reconstruyo
+        verify(libroRepository, never()).findCards(any(Pageable.class));
+
+        verify(libroRepository, timeout(5_000).times(1)).findCards(any(Pageable.class));
+        Thread.sleep(ESPERA_VENTAS_MS * 2);
+        verify(libroRepository, times(1)).findCards(any(Pageable.class));
+        assertEquals(3L, autocompletado.sugerir("cien", 10).get(0).getVentas());
+    }
+}
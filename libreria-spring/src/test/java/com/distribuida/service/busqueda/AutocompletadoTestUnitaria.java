@@ -0,0 +1,76 @@
+package com.distribuida.service.busqueda;
+
+import com.distribuida.dto.Sugerencia;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AutocompletadoTestUnitaria {
+
+    private List<Sugerencia> catalogoBase() {
+        List<Sugerencia> sugerencias = new ArrayList<>();
+        sugerencias.add(new Sugerencia("Cien años de soledad", Sugerencia.TIPO_TITULO, 1, 50));
+        sugerencias.add(new Sugerencia("Cien poemas", Sugerencia.TIPO_TITULO, 2, 5));
+        sugerencias.add(new Sugerencia("Gabriel García Márquez", Sugerencia.TIPO_AUTOR, 0, 55));
+        return sugerencias;
+    }
+
+    @Test
+    public void testSugerir_PorVentas() {
+        Autocompletado autocompletado = Autocompletado.construir(catalogoBase());
+
+        List<Sugerencia> resultado = autocompletado.sugerir("Cien", 10);
+        assertEquals(2, resultado.size());
+        assertEquals("Cien años de soledad", resultado.get(0).getTexto());
+        assertEquals("Cien poemas", resultado.get(1).getTexto());
+    }
+
+    @Test
+    public void testSugerir_SinTildesYDesdeOtraPalabra() {
+        Autocompletado autocompletado = Autocompletado.construir(catalogoBase());
+
+        assertEquals(1, autocompletado.sugerir("CIEN AÑ", 10).get(0).getIdLibro());
+        assertEquals(1, autocompletado.sugerir("soled", 10).get(0).getIdLibro());
+        assertEquals(Sugerencia.TIPO_AUTOR, autocompletado.sugerir("marq", 10).get(0).getTipo());
+        assertTrue(autocompletado.sugerir("zzz", 10).isEmpty());
+        assertTrue(autocompletado.sugerir("", 10).isEmpty());
+    }
+
+    @Test
+    public void testSugerir_LimiteK() {
+        Autocompletado autocompletado = Autocompletado.construir(catalogoBase());
+        assertEquals(1, autocompletado.sugerir("cien", 1).size());
+        assertTrue(autocompletado.sugerir("cien", 100).size() <= Autocompletado.K_MAXIMO);
+    }
+
+    @Test
+    public void testSugerir_IgualAFuerzaBruta() {
+        // Suficientes claves para que los prefijos cortos usen el top-k precalculado
+        Random random = new Random(42);
+        List<Sugerencia> sugerencias = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String titulo = "Libro " + Integer.toString(random.nextInt(100000), 36) + " tomo " + i;
+            sugerencias.add(new Sugerencia(titulo, Sugerencia.TIPO_TITULO, i + 1, random.nextInt(500)));
+        }
+        Autocompletado autocompletado = Autocompletado.construir(sugerencias);
+
+        for (String prefijo : List.of("l", "libro", "libro a", "libro 1", "tomo 12", "tomo 4999")) {
+            List<Sugerencia> esperado = new ArrayList<>();
+            for (Sugerencia sugerencia : sugerencias) {
+                String texto = AnalizadorEspanol.normalizar(sugerencia.getTexto());
+                if (texto.startsWith(prefijo) || texto.contains(" " + prefijo)) esperado.add(sugerencia);
+            }
+            esperado.sort(Comparator.comparingLong(Sugerencia::getVentas).reversed()
+                    .thenComparing(Sugerencia::getTexto));
+
+            List<Sugerencia> resultado = autocompletado.sugerir(prefijo, Autocompletado.K_MAXIMO);
+            assertEquals(esperado.subList(0, Math.min(Autocompletado.K_MAXIMO, esperado.size())), resultado,
+                    "prefijo: " + prefijo);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.distribuida.service.busqueda;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitmapCompactoTestUnitaria {
+
+    @Test
+    public void testAgregarQuitarContiene() {
+        BitmapCompacto bitmap = BitmapCompacto.de(3, 70000, 5, 3);
+        assertEquals(3, bitmap.cardinalidad());
+        assertTrue(bitmap.contiene(70000));
+        assertFalse(bitmap.contiene(4));
+
+        bitmap.quitar(70000);
+        bitmap.quitar(70000);
+        assertEquals(2, bitmap.cardinalidad());
+        assertArrayEquals(new int[]{3, 5}, bitmap.primeros(10));
+    }
+
+    @Test
+    public void testContenedorDensoYVueltaAArreglo() {
+        // Mas de 4096 valores en el mismo bloque pasan a mapa de bits y vuelven al quitar
+        BitmapCompacto bitmap = new BitmapCompacto();
+        for (int i = 0; i < 10000; i++) bitmap.agregar(i);
+        assertEquals(10000, bitmap.cardinalidad());
+        for (int i = 0; i < 10000; i += 2) bitmap.quitar(i);
+        assertEquals(5000, bitmap.cardinalidad());
+        assertTrue(bitmap.contiene(9999));
+        assertFalse(bitmap.contiene(9998));
+        assertArrayEquals(new int[]{1, 3, 5}, bitmap.primeros(3));
+    }
+
+    @Test
+    public void testOperacionesContraTreeSet() {
+        Random random = new Random(42);
+        for (int ronda = 0; ronda < 20; ronda++) {
+            // Rangos y densidades distintas para mezclar contenedores de arreglo y de bits
+            int rango = ronda % 2 == 0 ? 200_000 : 12_000;
+            TreeSet<Integer> a = new TreeSet<>();
+            TreeSet<Integer> b = new TreeSet<>();
+            BitmapCompacto ba = new BitmapCompacto();
+            BitmapCompacto bb = new BitmapCompacto();
+            for (int i = 0; i < 8000; i++) {
+                int x = random.nextInt(rango);
+                int y = random.nextInt(rango);
+                a.add(x);
+                ba.agregar(x);
+                b.add(y);
+                bb.agregar(y);
+            }
+            for (int i = 0; i < 1000; i++) {
+                int x = random.nextInt(rango);
+                a.remove(x);
+                ba.quitar(x);
+            }
+
+            TreeSet<Integer> and = new TreeSet<>(a);
+            and.retainAll(b);
+            TreeSet<Integer> or = new TreeSet<>(a);
+            or.addAll(b);
+
+            assertEquals(a.size(), ba.cardinalidad());
+            assertEquals(new ArrayList<>(and), valores(ba.and(bb)));
+            assertEquals(and.size(), ba.andCardinalidad(bb));
+            assertEquals(new ArrayList<>(or), valores(ba.or(bb)));
+            assertEquals(new ArrayList<>(a), valores(ba.copia()));
+        }
+    }
+
+    private static List<Integer> valores(BitmapCompacto bitmap) {
+        List<Integer> valores = new ArrayList<>();
+        bitmap.recorrer(valores::add);
+        return valores;
+    }
+}
@@ -0,0 +1,119 @@
+package com.distribuida.service.busqueda;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.ResultadoFacetas;
+import com.distribuida.model.Autor;
+import com.distribuida.model.Categoria;
+import com.distribuida.model.Libro;
+import com.distribuida.service.LibroCambiadoEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IndiceFacetasTestUnitaria {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @InjectMocks
+    private IndiceFacetas indiceFacetas;
+
+    private Libro orwell;
+
+    @BeforeEach
+    public void setUp() {
+        Autor homero = new Autor(1, "Homero", "", "Grecia", null, null, null);
+        Autor george = new Autor(2, "George", "Orwell", "Inglaterra", null, null, null);
+        Categoria clasicos = new Categoria(1, "Clásicos", "Literatura clásica");
+        Categoria novela = new Categoria(2, "Novela", "Novela");
+
+        orwell = libro(3, "1984", george, novela, "Inglés", "Blanda", 15.0, 2);
+        when(libroRepository.findAllConAutorYCategoria()).thenReturn(List.of(
+                libro(1, "La Odisea", homero, clasicos, "Español", "Dura", 8.5, 4),
+                libro(2, "La Ilíada", homero, clasicos, "Español", "Blanda", 25.0, 0),
+                orwell));
+        indiceFacetas.construir();
+    }
+
+    @Test
+    public void testSinFiltros() {
+        ResultadoFacetas resultado = indiceFacetas.consultar(Map.of(), 10);
+        assertEquals(3, resultado.getTotal());
+        assertEquals(2, resultado.getFacetas().get(IndiceFacetas.CATEGORIA).get("Clásicos"));
+        assertEquals(1, resultado.getFacetas().get(IndiceFacetas.PRECIO).get("0-10"));
+        assertEquals(2, resultado.getFacetas().get(IndiceFacetas.STOCK).get(IndiceFacetas.DISPONIBLE));
+        assertEquals(2, resultado.getFacetas().get(IndiceFacetas.AUTOR).get("Homero"));
+    }
+
+    @Test
+    public void testFiltrosCombinados() {
+        // OR dentro de idioma (sin distinguir mayusculas), AND con stock
+        ResultadoFacetas resultado = indiceFacetas.consultar(Map.of(
+                IndiceFacetas.IDIOMA, List.of("español", "Inglés"),
+                IndiceFacetas.STOCK, List.of(IndiceFacetas.DISPONIBLE)), 10);
+
+        assertEquals(2, resultado.getTotal());
+        assertEquals(1, resultado.getItems().get(0).getIdLibro());
+        assertEquals(3, resultado.getItems().get(1).getIdLibro());
+        // Los conteos de stock ignoran el filtro de stock: la Iliada agotada sigue contando
+        assertEquals(1, resultado.getFacetas().get(IndiceFacetas.STOCK).get(IndiceFacetas.AGOTADO));
+        // Los de categoria si aplican ambos filtros
+        assertEquals(1, resultado.getFacetas().get(IndiceFacetas.CATEGORIA).get("Clásicos"));
+    }
+
+    @Test
+    public void testLimiteYFacetaDesconocida() {
+        assertEquals(1, indiceFacetas.consultar(Map.of(), 1).getItems().size());
+        assertThrows(IllegalArgumentException.class,
+                () -> indiceFacetas.consultar(Map.of("editorial", List.of("x")), 10));
+    }
+
+    @Test
+    public void testActualizacionIncremental() {
+        orwell.setIdioma("Español");
+        when(libroRepository.findById(3)).thenReturn(Optional.of(orwell));
+        indiceFacetas.onLibroCambiado(new LibroCambiadoEvent(3, false));
+
+        Map<String, Integer> idiomas = indiceFacetas.consultar(Map.of(), 0).getFacetas().get(IndiceFacetas.IDIOMA);
+        assertEquals(3, idiomas.get("Español"));
+        assertFalse(idiomas.containsKey("Inglés"));
+
+        indiceFacetas.onLibroCambiado(new LibroCambiadoEvent(3, true));
+        assertEquals(2, indiceFacetas.consultar(Map.of(), 0).getTotal());
+    }
+
+    @Test
+    public void testDescontarStock() {
+        indiceFacetas.descontarStock(3, 2);
+
+        ResultadoFacetas resultado = indiceFacetas.consultar(
+                Map.of(IndiceFacetas.STOCK, List.of(IndiceFacetas.AGOTADO)), 10);
+        assertEquals(2, resultado.getTotal());
+        assertFalse(resultado.getItems().get(1).isDisponible());
+    }
+
+    private static Libro libro(int id, String titulo, Autor autor, Categoria categoria,
+                               String idioma, String tipoPasta, Double precio, int ejemplares) {
+        Libro libro = new Libro();
+        libro.setIdLibro(id);
+        libro.setTitulo(titulo);
+        libro.setAutor(autor);
+        libro.setCategoria(categoria);
+        libro.setIdioma(idioma);
+        libro.setTipoPasta(tipoPasta);
+        libro.setPrecio(precio);
+        libro.setNumEjemplares(ejemplares);
+        return libro;
+    }
+}
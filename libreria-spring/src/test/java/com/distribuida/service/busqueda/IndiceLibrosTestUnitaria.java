@@ -0,0 +1,139 @@
+package com.distribuida.service.busqueda;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.LibroCard;
+import com.distribuida.model.Autor;
+import com.distribuida.model.Categoria;
+import com.distribuida.model.Libro;
+import com.distribuida.service.LibroCambiadoEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IndiceLibrosTestUnitaria {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @InjectMocks
+    private IndiceLibros indiceLibros;
+
+    private Libro odisea;
+    private Libro iliada;
+    private Libro orwell;
+
+    @BeforeEach
+    public void setUp() {
+        Autor homero = new Autor(1, "Homero", "", "Grecia", null, null, null);
+        Autor george = new Autor(2, "George", "Orwell", "Inglaterra", null, null, null);
+        Categoria clasicos = new Categoria(1, "Clásicos", "Literatura clásica");
+        Categoria novela = new Categoria(2, "Novela", "Novela");
+
+        odisea = libro(1, "La Odisea", "El regreso de Ulises a Ítaca", "978-84-376-0494-7", homero, clasicos);
+        iliada = libro(2, "La Ilíada", "La guerra de Troya", "ISBN-002", homero, clasicos);
+        orwell = libro(3, "1984", "Una distopía sobre el Gran Hermano", "ISBN-003", george, novela);
+
+        when(libroRepository.findAllConAutorYCategoria()).thenReturn(List.of(odisea, iliada, orwell));
+        indiceLibros.construir();
+    }
+
+    @Test
+    public void testBuscar_SinTildesNiMayusculas() {
+        List<LibroCard> resultado = indiceLibros.buscar("ILIADA", 10);
+        assertEquals(1, resultado.size());
+        assertEquals(2, resultado.get(0).getIdLibro());
+
+        resultado = indiceLibros.buscar("ítaca", 10);
+        assertEquals(1, resultado.get(0).getIdLibro());
+    }
+
+    @Test
+    public void testBuscar_RankingPorTitulo() {
+        // "odisea" aparece en el titulo del libro 1; el 2 solo comparte autor
+        List<LibroCard> resultado = indiceLibros.buscar("homero odisea", 10);
+        assertEquals(2, resultado.size());
+        assertEquals(1, resultado.get(0).getIdLibro());
+        assertEquals("Homero", resultado.get(0).getAutor());
+    }
+
+    @Test
+    public void testBuscar_PorIsbnYCategoria() {
+        assertEquals(1, indiceLibros.buscar("9788437604947", 10).get(0).getIdLibro());
+        assertEquals(3, indiceLibros.buscar("novelas", 10).get(0).getIdLibro());
+    }
+
+    @Test
+    public void testBuscar_SingularYPluralComparteRaiz() {
+        assertEquals("dictador", AnalizadorEspanol.raiz("dictadores"));
+        assertEquals("cancion", AnalizadorEspanol.raiz("canciones"));
+        assertEquals("ley", AnalizadorEspanol.raiz("leyes"));
+        assertEquals("clase", AnalizadorEspanol.raiz("clases"));
+        assertEquals("bosque", AnalizadorEspanol.raiz("bosques"));
+        assertEquals("clase", AnalizadorEspanol.raiz("clase"));
+
+        orwell.setDescripcion("Clases y bosques de una distopía");
+        when(libroRepository.findById(3)).thenReturn(Optional.of(orwell));
+        indiceLibros.onLibroCambiado(new LibroCambiadoEvent(3, false));
+
+        assertEquals(3, indiceLibros.buscar("clase", 10).get(0).getIdLibro());
+        assertEquals(3, indiceLibros.buscar("bosque", 10).get(0).getIdLibro());
+    }
+
+    @Test
+    public void testActualizacionIncremental() {
+        orwell.setTitulo("Rebelión en la granja");
+        when(libroRepository.findById(3)).thenReturn(Optional.of(orwell));
+        indiceLibros.onLibroCambiado(new LibroCambiadoEvent(3, false));
+
+        assertTrue(indiceLibros.buscar("1984", 10).isEmpty());
+        assertEquals(3, indiceLibros.buscar("granja", 10).get(0).getIdLibro());
+
+        indiceLibros.onLibroCambiado(new LibroCambiadoEvent(3, true));
+        assertTrue(indiceLibros.buscar("granja", 10).isEmpty());
+    }
+
+    @Test
+    public void testReconstruir_SigueContestandoYAplicaLosCambiosDelMedio() {
+        Libro copiaVieja = libro(3, "1984", "Una distopía sobre el Gran Hermano", "ISBN-003", orwell.getAutor(), orwell.getCategoria());
+        orwell.setTitulo("Rebelión en la granja");
+        when(libroRepository.findById(3)).thenReturn(Optional.of(orwell));
+        when(libroRepository.findAllConAutorYCategoria()).thenAnswer(inv -> {
+            // Durante la lectura del catalogo el indice anterior sigue completo
+            assertEquals(1, indiceLibros.buscar("odisea", 10).get(0).getIdLibro());
+            // Un cambio que llega despues de que la lectura ya vio la version vieja del libro
+            indiceLibros.onLibroCambiado(new LibroCambiadoEvent(3, false));
+            return List.of(odisea, iliada, copiaVieja);
+        });
+
+        indiceLibros.construir();
+
+        assertTrue(indiceLibros.buscar("1984", 10).isEmpty());
+        assertEquals(3, indiceLibros.buscar("granja", 10).get(0).getIdLibro());
+        assertEquals(1, indiceLibros.buscar("odisea", 10).get(0).getIdLibro());
+    }
+
+    private static Libro libro(int id, String titulo, String descripcion, String isbn, Autor autor, Categoria categoria) {
+        Libro libro = new Libro();
+        libro.setIdLibro(id);
+        libro.setTitulo(titulo);
+        libro.setDescripcion(descripcion);
+        libro.setIsbn(isbn);
+        libro.setEditorial("Editorial");
+        libro.setNumEjemplares(5);
+        libro.setPrecio(10.0);
+        libro.setAutor(autor);
+        libro.setCategoria(categoria);
+        return libro;
+    }
+}
@@ -0,0 +1,96 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.model.Libro;
+import com.distribuida.service.CarritoServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Varias "pestanas" agregando al mismo carrito a la vez, con el store JPA y sin locks de fila:
+// @Version detecta el choque y ReintentoOptimista repite la operacion con datos frescos.
+@DataJpaTest(properties = {"libreria.carrito.store=jpa", "libreria.carrito.reintentos=30"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CarritoServiceImpl.class, JpaCartStore.class, TotalesCarrito.class, ReintentoOptimista.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ConcurrenciaCarritoTestIntegracion {
+
+    private static final int HILOS = 8;
+    private static final int POR_HILO = 25;
+
+    @Autowired
+    private CarritoServiceImpl carritoService;
+
+    @Autowired
+    private ReintentoOptimista reintentoOptimista;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String token = UUID.randomUUID().toString();
+    private Libro libro;
+
+    @BeforeEach
+    public void setUp(){
+        libro = new Libro();
+        libro.setTitulo("Concurrencia");
+        libro.setNumEjemplares(1000);
+        libro.setPrecio(10.0);
+        libro = libroRepository.save(libro);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        jdbcTemplate.update("delete from carrito_item where id_carrito in (select id_carrito from carrito where token = ?)", token);
+        jdbcTemplate.update("delete from carrito where token = ?", token);
+        libroRepository.delete(libro);
+    }
+
+    @Test
+    public void addItem_ConcurrenteNoPierdeIncrementos() throws Exception {
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                // Tambien compiten por crear el carrito y la linea (claves unicas)
+                for (int i = 0; i < POR_HILO; i++) carritoService.addItem(token, libro.getIdLibro(), 1);
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> tarea : tareas) tarea.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        // Directo a las tablas: una sola linea con todas las unidades y totales acordes
+        List<Integer> cantidades = jdbcTemplate.queryForList("select i.cantidad from carrito_item i "
+                + "join carrito c on c.id_carrito = i.id_carrito where c.token = ?", Integer.class, token);
+        assertEquals(List.of(HILOS * POR_HILO), cantidades);
+        BigDecimal subtotal = jdbcTemplate.queryForObject("select subtotal from carrito where token = ?", BigDecimal.class, token);
+        assertEquals(0, subtotal.compareTo(BigDecimal.valueOf(10L * HILOS * POR_HILO)));
+        assertEquals(0, reintentoOptimista.estadisticas().getReintentosAgotados());
+    }
+}
@@ -0,0 +1,117 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dao.CarritoItemRepository;
+import com.distribuida.dao.CarritoRepository;
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.EstadisticaLimpieza;
+import com.distribuida.model.Libro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin transaccion de test: la limpieza confirma cada lote por su cuenta
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LimpiezaCarritosTestIntegracion {
+
+    // Diez anios: solo toca los carritos viejos que crea este test
+    private static final int TTL_HORAS = 24 * 365 * 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CarritoRepository carritoRepository;
+
+    @Autowired
+    private CarritoItemRepository carritoItemRepository;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    private LimpiezaCarritos limpieza;
+    private Libro libro;
+    private final List<String> tokens = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp(){
+        CartStore cartStore = new JpaCartStore(carritoRepository, carritoItemRepository, libroRepository, new TotalesCarrito(false));
+        // Lotes chicos para pasar por varias transacciones
+        limpieza = new LimpiezaCarritos(jdbcTemplate, transactionManager, cartStore, TTL_HORAS, 3);
+
+        libro = new Libro();
+        libro.setTitulo("Limpieza");
+        libro.setNumEjemplares(1);
+        libro.setPrecio(10.0);
+        libro = libroRepository.save(libro);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        for (String token : tokens) {
+            jdbcTemplate.update("delete from carrito_item where id_carrito in (select id_carrito from carrito where token = ?)", token);
+            jdbcTemplate.update("delete from carrito where token = ?", token);
+        }
+        libroRepository.delete(libro);
+    }
+
+    @Test
+    public void limpiar_BorraSoloLosAbandonados(){
+        List<String> viejos = new ArrayList<>();
+        for (int i = 0; i < 7; i++) viejos.add(crearCarrito(20 * 365));
+        String reciente = crearCarrito(1);
+
+        EstadisticaLimpieza resultado = limpieza.limpiar();
+
+        for (String token : viejos) assertFalse(existe(token), token);
+        assertTrue(existe(reciente));
+        assertTrue(resultado.getUltimosCarritos() >= 7);
+        assertTrue(resultado.getUltimosItems() >= 7);
+        assertEquals(1, resultado.getEjecuciones());
+        assertEquals(resultado, limpieza.estadisticas());
+    }
+
+    @Test
+    public void limpiar_SinAbandonados(){
+        String reciente = crearCarrito(1);
+
+        limpieza.limpiar();
+
+        assertTrue(existe(reciente));
+    }
+
+    // Carrito de invitado con una linea, tocado por ultima vez hace `dias` dias
+    private String crearCarrito(int dias) {
+        String token = UUID.randomUUID().toString();
+        tokens.add(token);
+        LocalDateTime ahora = jdbcTemplate.queryForObject("select localtimestamp", LocalDateTime.class);
+        jdbcTemplate.update("insert into carrito (token, subtotal, descuento, impuestos, total, actualizado_en) "
+                + "values (?, 10, 0, 1.5, 11.5, ?)", token, ahora.minusDays(dias));
+        Long idCarrito = jdbcTemplate.queryForObject("select id_carrito from carrito where token = ?", Long.class, token);
+        jdbcTemplate.update("insert into carrito_item (id_carrito, id_libro, cantidad, precio_unitario, total) values (?, ?, 1, 10, 10)",
+                idCarrito, libro.getIdLibro());
+        return token;
+    }
+
+    private boolean existe(String token) {
+        return jdbcTemplate.queryForObject("select count(*) from carrito where token = ?", Integer.class, token) > 0;
+    }
+}
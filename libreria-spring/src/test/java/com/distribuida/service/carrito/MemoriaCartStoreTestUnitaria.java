@@ -0,0 +1,460 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.dao.CarritoRepository;
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.OperacionCarritoRequest;
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import com.distribuida.model.Libro;
+import com.distribuida.service.CarritoCompradoEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MemoriaCartStoreTestUnitaria {
+
+    @Mock
+    private CarritoRepository carritoRepository;
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MemoriaCartStore cartStore;
+    private Libro libro;
+
+    // Ids que asignaria la base al guardar
+    private final AtomicLong secuencia = new AtomicLong(100);
+
+    @BeforeEach
+    public void setUp() {
+        cartStore = new MemoriaCartStore(carritoRepository, libroRepository, transactionManager, new TotalesCarrito(true), 1_800_000, 100_000);
+
+        libro = new Libro();
+        libro.setIdLibro(1);
+        libro.setTitulo("Rayuela");
+        libro.setPrecio(10.0);
+    }
+
+    @Test
+    public void testAddItem_SinTocarLaBase() {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+
+        cartStore.addItem("token-123", 1, 1);
+        Carrito resultado = cartStore.addItem("token-123", 1, 2);
+
+        assertEquals(1, resultado.getItems().size());
+        assertEquals(3, resultado.getItems().get(0).getCantidad());
+        assertEquals(new BigDecimal("34.50"), resultado.getTotal());
+        // Se lee una sola vez y no se escribe nada hasta el flush
+        verify(carritoRepository, times(1)).findByToken("token-123");
+        verify(carritoRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testGet_DevuelveCopia() {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+
+        cartStore.addItem("token-123", 1, 2).getItems().clear();
+
+        assertEquals(1, cartStore.get("token-123").getItems().size());
+    }
+
+    @Test
+    public void testFlush_AsignaIdsYConservaElTemporal() {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> guardar(inv.getArgument(0)));
+
+        long temporal = cartStore.addItem("token-123", 1, 2).getItems().get(0).getIdCarritoItem();
+        assertTrue(temporal < 0);
+
+        cartStore.flush("token-123");
+        Carrito guardado = cartStore.get("token-123");
+        assertNotNull(guardado.getIdCarrito());
+        assertTrue(guardado.getItems().get(0).getIdCarritoItem() > 0);
+
+        // El cliente aun puede usar el id que recibio antes del flush
+        Carrito resultado = cartStore.updateItemCantidad("token-123", temporal, 5);
+        assertEquals(5, resultado.getItems().get(0).getCantidad());
+
+        // Un carrito sin cambios no vuelve a escribirse
+        cartStore.flush("token-123");
+        cartStore.flush("token-123");
+        verify(carritoRepository, times(2)).saveAndFlush(any(Carrito.class));
+    }
+
+    @Test
+    public void testFlush_DentroDeLaTransaccionDelCheckout() {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> guardar(inv.getArgument(0)));
+
+        cartStore.addItem("token-123", 1, 2);
+        clearInvocations(transactionManager);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            long version = cartStore.flush("token-123");
+            assertEquals(1, version);
+            // Sin transaccion (ni conexion) aparte
+            verify(transactionManager, never()).getTransaction(any());
+            // Hasta el commit la memoria no da por guardado el carrito
+            assertTrue(cartStore.get("token-123").getItems().get(0).getIdCarritoItem() < 0);
+            for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+                sincronizacion.afterCommit();
+                sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(cartStore.get("token-123").getItems().get(0).getIdCarritoItem() > 0);
+        cartStore.flush("token-123");
+        verify(carritoRepository, times(1)).saveAndFlush(any(Carrito.class));
+    }
+
+    @Test
+    public void testFlush_RollbackDelCheckoutLoDejaPendiente() {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> guardar(inv.getArgument(0)));
+
+        cartStore.addItem("token-123", 1, 2);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cartStore.flush("token-123");
+            for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+                sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Lo escrito se perdio con el rollback: el proximo flush vuelve a escribirlo
+        cartStore.flushPendientes();
+        verify(carritoRepository, times(2)).saveAndFlush(any(Carrito.class));
+    }
+
+    @Test
+    public void testFlush_EmparejaPorLibro() {
+        // En la base ya hay dos lineas; en memoria se quita una y se cambia la otra
+        Libro otro = new Libro();
+        otro.setIdLibro(2);
+        otro.setPrecio(20.0);
+        Carrito db = new Carrito();
+        db.setIdCarrito(7L);
+        db.setToken("token-123");
+        db.getItems().add(item(db, 11L, libro, 1));
+        db.getItems().add(item(db, 12L, otro, 1));
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.of(MemoriaCartStore.copiar(db)));
+        when(carritoRepository.findById(7L)).thenReturn(Optional.of(db));
+        when(carritoRepository.saveAndFlush(db)).thenReturn(db);
+
+        cartStore.updateItemCantidad("token-123", 12L, 0);
+        cartStore.updateItemCantidad("token-123", 11L, 4);
+        cartStore.flush("token-123");
+
+        assertEquals(1, db.getItems().size());
+        assertEquals(11L, db.getItems().get(0).getIdCarritoItem());
+        assertEquals(4, db.getItems().get(0).getCantidad());
+    }
+
+    @Test
+    public void testFlushPendientes_LoteConFalloSigueDeAUno() {
+        when(carritoRepository.findByToken(anyString())).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> {
+            Carrito carrito = inv.getArgument(0);
+            if (carrito.getToken().equals("malo")) throw new IllegalStateException("fallo");
+            return guardar(carrito);
+        });
+
+        cartStore.addItem("bueno", 1, 1);
+        cartStore.addItem("malo", 1, 1);
+        cartStore.flushPendientes();
+
+        assertNotNull(cartStore.get("bueno").getIdCarrito());
+        // El que fallo sigue en memoria, pendiente para el proximo flush
+        assertNull(cartStore.get("malo").getIdCarrito());
+        assertEquals(2, cartStore.tamanio());
+    }
+
+    @Test
+    public void testFlushPendientes_SacaLosInactivos() throws Exception {
+        cartStore = new MemoriaCartStore(carritoRepository, libroRepository, transactionManager, new TotalesCarrito(true), 0, 100_000);
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> guardar(inv.getArgument(0)));
+
+        cartStore.addItem("token-123", 1, 1);
+        Thread.sleep(5);
+        // Primero se guarda; recien limpio puede salir de memoria
+        cartStore.flushPendientes();
+        assertEquals(1, cartStore.tamanio());
+        cartStore.flushPendientes();
+        assertEquals(0, cartStore.tamanio());
+    }
+
+    @Test
+    public void testAddItem_Concurrente() throws Exception {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tareas.add(pool.submit(() -> {
+                for (int j = 0; j < 500; j++) cartStore.addItem("token-123", 1, 1);
+            }));
+        }
+        for (Future<?> tarea : tareas) tarea.get();
+        pool.shutdown();
+
+        assertEquals(4000, cartStore.get("token-123").getItems().get(0).getCantidad());
+    }
+
+    @Test
+    public void testAplicar_TodoONada() {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.findAllById(any())).thenReturn(List.of(libro));
+        cartStore.addItem("token-123", 1, 2);
+
+        // La segunda operacion apunta a un item que no existe: no se aplica ninguna
+        assertThrows(IllegalArgumentException.class, () -> cartStore.aplicar("token-123", List.of(
+                operacion("set", 1, null, 9),
+                operacion("remove", null, 999L))));
+
+        Carrito carrito = cartStore.get("token-123");
+        assertEquals(2, carrito.getItems().get(0).getCantidad());
+        assertEquals(new BigDecimal("23.00"), carrito.getTotal());
+    }
+
+    @Test
+    public void testAplicar_UnaConsultaDeLibros() {
+        Libro otro = new Libro();
+        otro.setIdLibro(2);
+        otro.setPrecio(5.0);
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findAllById(any())).thenReturn(List.of(libro, otro));
+
+        Carrito resultado = cartStore.aplicar("token-123", List.of(
+                operacion("add", 1, null, 1),
+                operacion("add", 2, null, 2),
+                operacion("add", 1, null, 1)));
+
+        assertEquals(2, resultado.getItems().size());
+        assertEquals(new BigDecimal("34.50"), resultado.getTotal());
+        verify(libroRepository, times(1)).findAllById(any());
+        verify(libroRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testGet_TokenDesconocidoNoQuedaEnMemoria() {
+        when(carritoRepository.findByToken(anyString())).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 100; i++) {
+            Carrito carrito = cartStore.get("desconocido-" + i);
+            assertTrue(carrito.getItems().isEmpty());
+            assertNull(carrito.getIdCarrito());
+        }
+
+        assertEquals(0, cartStore.tamanio());
+        verify(carritoRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testGetOrCreate_GuardaElCarritoNuevo() {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> guardar(inv.getArgument(0)));
+
+        Carrito carrito = cartStore.getOrCreate("token-123");
+        cartStore.getOrCreate("token-123");
+
+        assertNotNull(carrito.getIdCarrito());
+        verify(carritoRepository, times(1)).saveAndFlush(any(Carrito.class));
+    }
+
+    @Test
+    public void testMaximo_DesalojaLimpiosYConservaSucios() {
+        // Un carrito por shard; "Aa", "BB" y "C#" tienen el mismo hashCode y caen en el mismo shard
+        cartStore = new MemoriaCartStore(carritoRepository, libroRepository, transactionManager, new TotalesCarrito(true), 1_800_000, 1);
+        when(carritoRepository.findByToken(anyString())).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> guardar(inv.getArgument(0)));
+
+        cartStore.addItem("Aa", 1, 1);
+        cartStore.addItem("BB", 1, 1);
+        // Los dos tienen cambios sin guardar: ninguno puede salir
+        assertEquals(2, cartStore.tamanio());
+
+        cartStore.flush("Aa");
+        cartStore.flush("BB");
+        cartStore.addItem("C#", 1, 1);
+        assertEquals(1, cartStore.tamanio());
+        assertEquals(1, cartStore.get("C#").getItems().size());
+    }
+
+    @Test
+    public void testAddItem_ConCheckoutYDesalojoConcurrentes() throws Exception {
+        // Base de prueba: lo que guarda el flush es lo que lee la siguiente carga
+        cartStore = new MemoriaCartStore(carritoRepository, libroRepository, transactionManager, new TotalesCarrito(true), 0, 100_000);
+        Map<String, Carrito> base = new ConcurrentHashMap<>();
+        when(carritoRepository.findByToken(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(base.get((String) inv.getArgument(0))).map(MemoriaCartStore::copiar));
+        when(carritoRepository.findById(any()))
+                .thenAnswer(inv -> base.values().stream()
+                        .filter(c -> inv.getArgument(0).equals(c.getIdCarrito()))
+                        .findFirst()
+                        .map(MemoriaCartStore::copiar));
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> {
+            Carrito carrito = guardar(inv.getArgument(0));
+            base.put(carrito.getToken(), MemoriaCartStore.copiar(carrito));
+            return carrito;
+        });
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+
+        // Mientras un hilo agrega, otro escribe y saca el carrito de memoria como el checkout (sin
+        // comprar nada, asi la base queda igual) y otro lo saca por inactividad (limite 0). Un addItem
+        // que cae entre la carga de la entrada y el lock del shard tiene que volver a cargarla en vez
+        // de escribir en la que ya salio del mapa: no se pierde ninguna unidad.
+        AtomicBoolean terminar = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        Future<?> checkouts = pool.submit(() -> {
+            while (!terminar.get()) {
+                long version = cartStore.flush("token-123");
+                cartStore.onCarritoComprado(new CarritoCompradoEvent("token-123", version, Map.of()));
+            }
+        });
+        Future<?> desalojos = pool.submit(() -> {
+            while (!terminar.get()) cartStore.flushPendientes();
+        });
+        Future<?> agregados = pool.submit(() -> {
+            for (int i = 0; i < 2000; i++) cartStore.addItem("token-123", 1, 1);
+        });
+        try {
+            agregados.get();
+        } finally {
+            terminar.set(true);
+            checkouts.get();
+            desalojos.get();
+            pool.shutdown();
+        }
+
+        cartStore.flushPendientes();
+        assertEquals(2000, base.get("token-123").getItems().get(0).getCantidad());
+    }
+
+    @Test
+    public void testCarritoComprado_SinCambiosSaleDeMemoria() {
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> guardar(inv.getArgument(0)));
+
+        cartStore.addItem("token-123", 1, 2);
+        long version = cartStore.flush("token-123");
+        cartStore.onCarritoComprado(new CarritoCompradoEvent("token-123", version, Map.of(1, 2)));
+
+        assertEquals(0, cartStore.tamanio());
+    }
+
+    @Test
+    public void testCarritoComprado_ConservaLoAgregadoDuranteElCheckout() {
+        Libro otro = new Libro();
+        otro.setIdLibro(2);
+        otro.setPrecio(20.0);
+        when(carritoRepository.findByToken("token-123")).thenReturn(Optional.empty());
+        when(libroRepository.findById(1)).thenReturn(Optional.of(libro));
+        when(libroRepository.findById(2)).thenReturn(Optional.of(otro));
+        when(libroRepository.getReferenceById(1)).thenReturn(libro);
+        when(carritoRepository.saveAndFlush(any(Carrito.class))).thenAnswer(inv -> guardar(inv.getArgument(0)));
+
+        cartStore.addItem("token-123", 1, 2);
+        long version = cartStore.flush("token-123");
+        long idComprado = cartStore.get("token-123").getItems().get(0).getIdCarritoItem();
+        // Otra pestania, mientras el checkout de la primera sigue en curso
+        cartStore.addItem("token-123", 1, 1);
+        cartStore.addItem("token-123", 2, 1);
+        cartStore.onCarritoComprado(new CarritoCompradoEvent("token-123", version, Map.of(1, 2)));
+
+        Carrito carrito = cartStore.get("token-123");
+        assertEquals(2, carrito.getItems().size());
+        assertEquals(1, carrito.getItems().get(0).getCantidad());
+        assertEquals(1, carrito.getItems().get(1).getCantidad());
+        // La linea comprada ya no existe en la base: vuelve a ser nueva, y el id viejo sigue sirviendo
+        assertTrue(carrito.getItems().get(0).getIdCarritoItem() < 0);
+        assertEquals(new BigDecimal("34.50"), carrito.getTotal());
+        Carrito actualizado = cartStore.updateItemCantidad("token-123", idComprado, 3);
+        assertEquals(3, actualizado.getItems().get(0).getCantidad());
+        assertEquals(1, cartStore.tamanio());
+    }
+
+    private static OperacionCarritoRequest operacion(String op, Integer libroId, Long carritoItemId, int cantidad) {
+        OperacionCarritoRequest operacion = new OperacionCarritoRequest();
+        operacion.setOp(op);
+        operacion.setLibroId(libroId);
+        operacion.setCarritoItemId(carritoItemId);
+        operacion.setCantidad(cantidad);
+        return operacion;
+    }
+
+    private static OperacionCarritoRequest operacion(String op, Integer libroId, Long carritoItemId) {
+        return operacion(op, libroId, carritoItemId, 0);
+    }
+
+    // Lo que haria Hibernate con IDENTITY: ids para el carrito y las lineas nuevas
+    private Carrito guardar(Carrito carrito) {
+        if (carrito.getIdCarrito() == null) carrito.setIdCarrito(secuencia.incrementAndGet());
+        for (CarritoItem it : carrito.getItems()) {
+            if (it.getIdCarritoItem() == null) it.setIdCarritoItem(secuencia.incrementAndGet());
+        }
+        return carrito;
+    }
+
+    private static CarritoItem item(Carrito carrito, long id, Libro libro, int cantidad) {
+        CarritoItem item = new CarritoItem();
+        item.setIdCarritoItem(id);
+        item.setCarrito(carrito);
+        item.setLibro(libro);
+        item.setCantidad(cantidad);
+        item.setPrecioUnitario(BigDecimal.valueOf(libro.getPrecio()));
+        item.calcTotal();
+        return item;
+    }
+}
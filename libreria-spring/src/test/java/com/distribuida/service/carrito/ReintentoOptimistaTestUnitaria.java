@@ -0,0 +1,94 @@
+package com.distribuida.service.carrito;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReintentoOptimistaTestUnitaria {
+
+    private final ReintentoOptimista reintento = new ReintentoOptimista(3, 0);
+
+    @Test
+    public void testReintentaHastaQueSale() {
+        AtomicInteger llamadas = new AtomicInteger();
+
+        String resultado = reintento.ejecutar(() -> {
+            if (llamadas.incrementAndGet() < 3) throw new ObjectOptimisticLockingFailureException("Carrito", 1L);
+            return "ok";
+        });
+
+        assertEquals("ok", resultado);
+        assertEquals(3, llamadas.get());
+        assertEquals(2, reintento.estadisticas().getConflictos());
+        assertEquals(0, reintento.estadisticas().getReintentosAgotados());
+    }
+
+    @Test
+    public void testAgotaLosIntentos() {
+        AtomicInteger llamadas = new AtomicInteger();
+
+        assertThrows(DataIntegrityViolationException.class, () -> reintento.ejecutar(() -> {
+            llamadas.incrementAndGet();
+            throw violacion(ConstraintViolationException.ConstraintKind.UNIQUE);
+        }));
+
+        assertEquals(3, llamadas.get());
+        assertEquals(1, reintento.estadisticas().getReintentosAgotados());
+    }
+
+    @Test
+    public void testOtrosErroresNoSeReintentan() {
+        AtomicInteger llamadas = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () -> reintento.ejecutar(() -> {
+            llamadas.incrementAndGet();
+            throw new IllegalArgumentException("Libro no encontrado: 1");
+        }));
+
+        assertEquals(1, llamadas.get());
+        assertEquals(0, reintento.estadisticas().getConflictos());
+    }
+
+    @Test
+    public void testOtraViolacionDeIntegridadNoSeReintenta() {
+        AtomicInteger llamadas = new AtomicInteger();
+
+        assertThrows(DataIntegrityViolationException.class, () -> reintento.ejecutar(() -> {
+            llamadas.incrementAndGet();
+            throw violacion(ConstraintViolationException.ConstraintKind.OTHER);
+        }));
+
+        assertEquals(1, llamadas.get());
+        assertEquals(0, reintento.estadisticas().getConflictos());
+    }
+
+    @Test
+    public void testDentroDeTransaccionNoReintenta() {
+        AtomicInteger llamadas = new AtomicInteger();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(ObjectOptimisticLockingFailureException.class, () -> reintento.ejecutar(() -> {
+                llamadas.incrementAndGet();
+                throw new ObjectOptimisticLockingFailureException("Carrito", 1L);
+            }));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertEquals(1, llamadas.get());
+    }
+
+    // Como la traduce Spring desde JPA: la excepcion de Hibernate queda de causa
+    private static DataIntegrityViolationException violacion(ConstraintViolationException.ConstraintKind tipo) {
+        SQLException sql = new SQLException("Violacion de restriccion", "23000");
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, "insert into carrito", tipo, null));
+    }
+}
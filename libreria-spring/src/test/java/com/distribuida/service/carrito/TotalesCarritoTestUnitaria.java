@@ -0,0 +1,136 @@
+package com.distribuida.service.carrito;
+
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Propiedad: despues de cualquier secuencia de altas, cambios y bajas, los totales por diferencia
+// son iguales a recalcular todo el carrito. Secuencias aleatorias con semilla fija (reproducibles).
+public class TotalesCarritoTestUnitaria {
+
+    private static final int SECUENCIAS = 300;
+    private static final int OPERACIONES = 200;
+
+    private final TotalesCarrito totales = new TotalesCarrito(false);
+
+    @Test
+    public void testDeltaIgualARecalculo_SecuenciasAleatorias() {
+        for (int semilla = 0; semilla < SECUENCIAS; semilla++) {
+            Random random = new Random(semilla);
+            Carrito carrito = carritoVacio();
+            if (random.nextInt(4) == 0) carrito.setDescuento(precio(random));
+
+            for (int op = 0; op < OPERACIONES; op++) {
+                List<CarritoItem> items = carrito.getItems();
+                int tipo = items.isEmpty() ? 0 : random.nextInt(4);
+                if (tipo == 0) {
+                    CarritoItem item = item(carrito, precio(random), 1 + random.nextInt(50));
+                    items.add(item);
+                    totales.agregado(carrito, item);
+                } else if (tipo == 1) {
+                    CarritoItem item = items.get(random.nextInt(items.size()));
+                    BigDecimal anterior = Carrito.aporte(item);
+                    item.setCantidad(1 + random.nextInt(50));
+                    item.calcTotal();
+                    totales.cambiado(carrito, anterior, item);
+                } else if (tipo == 2) {
+                    // Cambio de precio al volver a agregar el libro
+                    CarritoItem item = items.get(random.nextInt(items.size()));
+                    BigDecimal anterior = Carrito.aporte(item);
+                    item.setPrecioUnitario(precio(random));
+                    item.calcTotal();
+                    totales.cambiado(carrito, anterior, item);
+                } else {
+                    CarritoItem item = items.remove(random.nextInt(items.size()));
+                    totales.quitado(carrito, Carrito.aporte(item));
+                }
+                assertIgualARecalculo(carrito, "semilla " + semilla + ", operacion " + op);
+            }
+        }
+    }
+
+    @Test
+    public void testCarritoGrande() {
+        Random random = new Random(42);
+        Carrito carrito = carritoVacio();
+        for (int i = 0; i < 500; i++) {
+            CarritoItem item = item(carrito, precio(random), 1 + random.nextInt(20));
+            carrito.getItems().add(item);
+            totales.agregado(carrito, item);
+        }
+        assertIgualARecalculo(carrito, "500 lineas");
+    }
+
+    @Test
+    public void testDescuentoMayorQueSubtotal() {
+        Carrito carrito = carritoVacio();
+        carrito.setDescuento(new BigDecimal("100.00"));
+        CarritoItem item = item(carrito, new BigDecimal("30.00"), 1);
+        carrito.getItems().add(item);
+        totales.agregado(carrito, item);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(carrito.getTotal()));
+        assertIgualARecalculo(carrito, "descuento");
+    }
+
+    @Test
+    public void testVerificar_DetectaDesalineado() {
+        TotalesCarrito verificando = new TotalesCarrito(true);
+        Carrito carrito = carritoVacio();
+        carrito.getItems().add(item(carrito, new BigDecimal("10.00"), 1));
+        // Subtotal guardado que no corresponde a las lineas
+        CarritoItem item = item(carrito, new BigDecimal("5.00"), 1);
+        carrito.getItems().add(item);
+
+        assertThrows(IllegalStateException.class, () -> verificando.agregado(carrito, item));
+    }
+
+    @Test
+    public void testSubtotalNulo_RecalculaTodo() {
+        Carrito carrito = carritoVacio();
+        carrito.setSubtotal(null);
+        CarritoItem item = item(carrito, new BigDecimal("10.00"), 2);
+        carrito.getItems().add(item);
+
+        new TotalesCarrito(true).agregado(carrito, item);
+
+        assertEquals(new BigDecimal("23.00"), carrito.getTotal());
+    }
+
+    private static void assertIgualARecalculo(Carrito carrito, String contexto) {
+        Carrito recalculado = new Carrito();
+        recalculado.setItems(carrito.getItems());
+        recalculado.setDescuento(carrito.getDescuento());
+        recalculado.recomputarTotales(CartStore.IVA);
+
+        assertEquals(0, recalculado.getSubtotal().compareTo(carrito.getSubtotal()), contexto);
+        assertEquals(recalculado.getImpuestos(), carrito.getImpuestos(), contexto);
+        assertEquals(recalculado.getTotal(), carrito.getTotal(), contexto);
+    }
+
+    private static Carrito carritoVacio() {
+        Carrito carrito = new Carrito();
+        carrito.setToken("token-123");
+        return carrito;
+    }
+
+    private static CarritoItem item(Carrito carrito, BigDecimal precio, int cantidad) {
+        CarritoItem item = new CarritoItem();
+        item.setCarrito(carrito);
+        item.setCantidad(cantidad);
+        item.setPrecioUnitario(precio);
+        item.calcTotal();
+        return item;
+    }
+
+    // Entre 0.01 y 999.99, con centavos
+    private static BigDecimal precio(Random random) {
+        return BigDecimal.valueOf(1 + random.nextInt(99_999), 2);
+    }
+}
@@ -0,0 +1,229 @@
+package com.distribuida.service.portadas;
+
+import com.distribuida.dao.LibroRepository;
+import com.distribuida.dto.ResultadoCompactacionPortadas;
+import com.distribuida.service.LibroCambiadoEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// Directorio temporal propio por test; la base (libro.portada) la hace el mock del repositorio
+@ExtendWith(MockitoExtension.class)
+public class AlmacenPortadasTestUnitaria {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private Path directorio;
+    private AlmacenPortadas almacen;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directorio = Files.createTempDirectory("portadas");
+        almacen = new AlmacenPortadas(libroRepository, eventPublisher, directorio.toString(), 0, 1024 * 1024);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    @Test
+    public void testGuardar_MismoContenidoMismaRuta() throws IOException {
+        String primera = almacen.guardar(png("la odisea"));
+        String segunda = almacen.guardar(png("la odisea"));
+        String otra = almacen.guardar(png("la iliada"));
+
+        assertEquals(primera, segunda);
+        assertNotEquals(primera, otra);
+        assertTrue(primera.matches("portadas/[0-9a-f]{64}\\.png"));
+        // Dos archivos guardados y ningun temporal olvidado
+        assertEquals(2, archivos().size());
+    }
+
+    @Test
+    public void testGuardar_NombreEsElHash() throws Exception {
+        // Varias vueltas del buffer de copia
+        byte[] bytes = Arrays.copyOf(bytes(png("")), 300_000);
+        Arrays.fill(bytes, 8, bytes.length, (byte) 7);
+
+        String ruta = almacen.guardar(new ByteArrayInputStream(bytes));
+
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        assertEquals("portadas/" + hash + ".png", ruta);
+        assertArrayEquals(bytes, Files.readAllBytes(directorio.resolve(hash + ".png")));
+    }
+
+    @Test
+    public void testGuardar_FormatoPorContenido() throws IOException {
+        assertTrue(almacen.guardar(imagen(new int[]{0xFF, 0xD8, 0xFF, 0xE0}, "jpeg")).endsWith(".jpg"));
+        assertTrue(almacen.guardar(imagen(new int[]{'G', 'I', 'F', '8', '9', 'a'}, "gif")).endsWith(".gif"));
+        assertTrue(almacen.guardar(imagen(new int[]{'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'}, "webp")).endsWith(".webp"));
+    }
+
+    @Test
+    public void testGuardar_FormatoNoSoportado() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> almacen.guardar(contenido("<svg></svg>")));
+        assertThrows(IllegalArgumentException.class, () -> almacen.guardar(contenido("")));
+        assertTrue(archivos().isEmpty());
+    }
+
+    @Test
+    public void testGuardar_SuperaElMaximo() throws IOException {
+        AlmacenPortadas chico = new AlmacenPortadas(libroRepository, eventPublisher, directorio.toString(), 0, 100_000);
+        byte[] grande = Arrays.copyOf(bytes(png("")), 100_001);
+
+        assertThrows(IllegalArgumentException.class, () -> chico.guardar(new ByteArrayInputStream(grande)));
+        // Justo en el limite entra
+        chico.guardar(new ByteArrayInputStream(Arrays.copyOf(grande, 100_000)));
+        // El temporal del rechazado no queda en el directorio
+        assertEquals(1, archivos().size());
+    }
+
+    @Test
+    public void testLiberar_ConReferenciasNoBorra() throws IOException {
+        String ruta = almacen.guardar(png("la odisea"));
+        when(libroRepository.countByPortadaIn(anyCollection())).thenReturn(2L);
+
+        assertFalse(almacen.liberar(ruta));
+        assertEquals(1, archivos().size());
+    }
+
+    @Test
+    public void testLiberar_SinReferenciasBorra() throws IOException {
+        String ruta = almacen.guardar(png("la odisea"));
+        when(libroRepository.countByPortadaIn(anyCollection())).thenReturn(0L);
+
+        assertTrue(almacen.liberar(ruta));
+        assertTrue(archivos().isEmpty());
+    }
+
+    @Test
+    public void testLiberar_DentroDeLaGraciaNoBorra() throws IOException {
+        AlmacenPortadas conGracia = new AlmacenPortadas(libroRepository, eventPublisher, directorio.toString(), 60, 1024 * 1024);
+        String ruta = conGracia.guardar(png("la odisea"));
+
+        assertFalse(conGracia.liberar(ruta));
+        assertEquals(1, archivos().size());
+        verify(libroRepository, never()).countByPortadaIn(anyCollection());
+    }
+
+    @Test
+    public void testLiberar_RutaFueraDelDirectorio() throws IOException {
+        Path afuera = Files.writeString(directorio.resolveSibling(directorio.getFileName() + "-afuera.txt"), "x");
+        try {
+            assertFalse(almacen.liberar("portadas/../" + afuera.getFileName()));
+            assertFalse(almacen.liberar("../" + afuera.getFileName()));
+            assertTrue(Files.exists(afuera));
+        } finally {
+            Files.deleteIfExists(afuera);
+        }
+    }
+
+    @Test
+    public void testCompactar_UneDuplicadosViejos() throws IOException {
+        // Tres copias de la misma imagen con el nombre que usaba la subida anterior
+        viejo("1111_la odisea.png", "la odisea");
+        viejo("2222_la odisea.png", "la odisea");
+        viejo("3333_la odisea.png", "la odisea");
+        viejo("4444_huerfana.png", "nadie la usa");
+        viejo("5555_sin formato.txt", "texto");
+        when(libroRepository.findIdsPorPortada(anyCollection())).thenAnswer(invocation -> {
+            List<String> referencias = List.copyOf(invocation.getArgument(0));
+            return referencias.get(0).contains("huerfana") ? List.of() : List.of(referencias.get(0).length());
+        });
+        when(libroRepository.cambiarPortada(anyCollection(), anyString())).thenReturn(1);
+        when(libroRepository.countByPortadaIn(anyCollection())).thenReturn(0L);
+
+        ResultadoCompactacionPortadas resultado = almacen.compactar();
+
+        assertEquals(3, resultado.getMigradas());
+        assertEquals(3, resultado.getLibrosActualizados());
+        assertEquals(1, resultado.getBorradas());
+        // Dos de las tres copias eran duplicados, mas la huerfana
+        assertEquals(2L * (8 + "la odisea".length()) + 8 + "nadie la usa".length(), resultado.getBytesLiberados());
+        // El que no es imagen se deja como estaba
+        List<String> quedan = new ArrayList<>(archivos());
+        assertTrue(quedan.remove("5555_sin formato.txt"));
+        assertEquals(1, quedan.size());
+        assertTrue(quedan.get(0).matches("[0-9a-f]{64}\\.png"));
+        verify(libroRepository, times(3)).cambiarPortada(anyCollection(), eq("portadas/" + quedan.get(0)));
+        verify(eventPublisher, times(3)).publishEvent(any(LibroCambiadoEvent.class));
+    }
+
+    @Test
+    public void testCompactar_RespetaReferenciasActuales() throws IOException {
+        String ruta = almacen.guardar(png("la odisea"));
+        when(libroRepository.countByPortadaIn(anyCollection())).thenReturn(1L);
+
+        ResultadoCompactacionPortadas resultado = almacen.compactar();
+
+        assertEquals(0, resultado.getBorradas());
+        assertEquals(List.of(ruta.substring("portadas/".length())), archivos());
+    }
+
+    private static ByteArrayInputStream contenido(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Firma PNG (8 bytes) seguida del texto: alcanza para que se reconozca el formato
+    private static ByteArrayInputStream png(String texto) {
+        return imagen(new int[]{0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}, texto);
+    }
+
+    private static ByteArrayInputStream imagen(int[] firma, String texto) {
+        byte[] cuerpo = texto.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[firma.length + cuerpo.length];
+        for (int i = 0; i < firma.length; i++) bytes[i] = (byte) firma[i];
+        System.arraycopy(cuerpo, 0, bytes, firma.length, cuerpo.length);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static byte[] bytes(ByteArrayInputStream entrada) {
+        return entrada.readAllBytes();
+    }
+
+    // Archivo con nombre viejo y fecha pasada; los .png llevan la firma PNG
+    private void viejo(String nombre, String texto) throws IOException {
+        Path archivo = directorio.resolve(nombre);
+        Files.write(archivo, nombre.endsWith(".png") ? bytes(png(texto)) : texto.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(archivo, FileTime.fromMillis(System.currentTimeMillis() - 86_400_000L));
+    }
+
+    private List<String> archivos() throws IOException {
+        try (Stream<Path> listado = Files.list(directorio)) {
+            return listado.map(archivo -> archivo.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.distribuida.service.portadas;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntregaPortadasTestUnitaria {
+
+    private static final String HASH = "a".repeat(64);
+    private static final long MODIFICADO = 1_700_000_000_000L;
+
+    private Path directorio;
+    private Path portada;
+    private byte[] contenido;
+    private EntregaPortadas entrega;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directorio = Files.createTempDirectory("portadas");
+        contenido = new byte[1000];
+        for (int i = 0; i < contenido.length; i++) contenido[i] = (byte) i;
+        portada = Files.write(directorio.resolve(HASH + ".png"), contenido);
+        Files.setLastModifiedTime(portada, FileTime.fromMillis(MODIFICADO));
+        entrega = new EntregaPortadas(1024 * 1024, 256 * 1024);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    @Test
+    public void testCompleta_CabecerasDeCache() throws IOException {
+        MockHttpServletResponse response = servir(get(), true);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(contenido, response.getContentAsByteArray());
+        assertEquals("image/png", response.getContentType());
+        assertEquals(1000, response.getContentLengthLong());
+        assertEquals("public, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+        assertEquals("\"" + HASH + "\"", response.getHeader("ETag"));
+        assertEquals(MODIFICADO, response.getDateHeader("Last-Modified"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+    }
+
+    @Test
+    public void testNoInmutable() throws IOException {
+        assertEquals("public, max-age=60", servir(get(), false).getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void testIfNoneMatch_304() throws IOException {
+        MockHttpServletRequest request = get();
+        request.addHeader("If-None-Match", "\"otro\", \"" + HASH + "\"");
+
+        MockHttpServletResponse response = servir(request, true);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testIfModifiedSince() throws IOException {
+        MockHttpServletRequest igual = get();
+        igual.addHeader("If-Modified-Since", MODIFICADO);
+        assertEquals(304, servir(igual, true).getStatus());
+
+        MockHttpServletRequest anterior = get();
+        anterior.addHeader("If-Modified-Since", MODIFICADO - 60_000);
+        assertEquals(200, servir(anterior, true).getStatus());
+    }
+
+    @Test
+    public void testRango() throws IOException {
+        MockHttpServletResponse response = servir(rango("bytes=10-19"), true);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/1000", response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(contenido, 10, 20), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testRango_AbiertoYSufijo() throws IOException {
+        MockHttpServletResponse abierto = servir(rango("bytes=990-"), true);
+        assertEquals("bytes 990-999/1000", abierto.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(contenido, 990, 1000), abierto.getContentAsByteArray());
+
+        MockHttpServletResponse sufijo = servir(rango("bytes=-5"), true);
+        assertEquals("bytes 995-999/1000", sufijo.getHeader("Content-Range"));
+
+        // Un fin mas alla del archivo se recorta
+        assertEquals("bytes 900-999/1000", servir(rango("bytes=900-5000"), true).getHeader("Content-Range"));
+    }
+
+    @Test
+    public void testRango_Insatisfacible() throws IOException {
+        MockHttpServletResponse response = servir(rango("bytes=1000-"), true);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */1000", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void testRango_MalFormadoOVariosTramos_Completo() throws IOException {
+        assertEquals(200, servir(rango("bytes=5-1"), true).getStatus());
+        assertEquals(200, servir(rango("bytes=0-1,5-6"), true).getStatus());
+        assertEquals(200, servir(rango("lineas=0-1"), true).getStatus());
+    }
+
+    @Test
+    public void testIfRange() throws IOException {
+        MockHttpServletRequest vigente = rango("bytes=0-9");
+        vigente.addHeader("If-Range", "\"" + HASH + "\"");
+        assertEquals(206, servir(vigente, true).getStatus());
+
+        MockHttpServletRequest cambiado = rango("bytes=0-9");
+        cambiado.addHeader("If-Range", "\"otro\"");
+        MockHttpServletResponse response = servir(cambiado, true);
+        assertEquals(200, response.getStatus());
+        assertEquals(1000, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testHead_SinCuerpo() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/portadas/x.png");
+
+        MockHttpServletResponse response = servir(request, true);
+
+        assertEquals(1000, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testGrande_SendfileDeTomcat() throws IOException {
+        Path grande = Files.write(directorio.resolve("grande.png"), new byte[100_000]);
+        MockHttpServletRequest request = get();
+        request.setAttribute(EntregaPortadas.SENDFILE_SOPORTADO, Boolean.TRUE);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new EntregaPortadas(1024 * 1024, 1024).servir(grande, true, request, response);
+
+        // El cuerpo lo escribe Tomcat con sendfile, no este metodo
+        assertEquals(grande.toRealPath().toString(), request.getAttribute(EntregaPortadas.SENDFILE_ARCHIVO));
+        assertEquals(0L, request.getAttribute(EntregaPortadas.SENDFILE_INICIO));
+        assertEquals(100_000L, request.getAttribute(EntregaPortadas.SENDFILE_FIN));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testGrande_SinSendfile_TransferTo() throws IOException {
+        byte[] bytes = new byte[300_000];
+        Arrays.fill(bytes, (byte) 9);
+        Path grande = Files.write(directorio.resolve("grande.png"), bytes);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new EntregaPortadas(1024 * 1024, 1024).servir(grande, true, get(), response);
+
+        assertArrayEquals(bytes, response.getContentAsByteArray());
+        assertTrue(response.getHeader("ETag").matches("\"[0-9a-f]+-[0-9a-f]+\""));
+    }
+
+    @Test
+    public void testEnMemoria_ArchivoCambiado() throws IOException {
+        servir(get(), true);
+        // Mismo nombre, otro contenido y otra fecha: no se sirve lo que habia en memoria
+        Files.write(portada, new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(portada, FileTime.fromMillis(MODIFICADO + 5000));
+
+        assertArrayEquals(new byte[]{1, 2, 3}, servir(get(), true).getContentAsByteArray());
+    }
+
+    @Test
+    public void testInexistente_404() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        entrega.servir(directorio.resolve("no-existe.png"), true, get(), response);
+        assertEquals(404, response.getStatus());
+    }
+
+    private MockHttpServletResponse servir(MockHttpServletRequest request, boolean inmutable) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        entrega.servir(portada, inmutable, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/portadas/x.png");
+    }
+
+    private static MockHttpServletRequest rango(String range) {
+        MockHttpServletRequest request = get();
+        request.addHeader("Range", range);
+        return request;
+    }
+}
@@ -0,0 +1,169 @@
+package com.distribuida.service.portadas;
+
+import com.distribuida.dao.LibroRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MiniaturasPortadasTestUnitaria {
+
+    @Mock
+    private LibroRepository libroRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private Path directorio;
+    private AlmacenPortadas almacen;
+    private MiniaturasPortadas miniaturas;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directorio = Files.createTempDirectory("portadas");
+        almacen = new AlmacenPortadas(libroRepository, eventPublisher, directorio.toString(), 0, 10 * 1024 * 1024);
+        miniaturas = new MiniaturasPortadas(almacen, new int[]{480, 120, 240}, 2, 10, 5000);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        miniaturas.detener();
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    @Test
+    public void testResolver_GeneraLaMedidaPedida() throws IOException {
+        String ruta = almacen.guardar(png(1000, 1500));
+
+        Path archivo = miniaturas.resolver(ruta, 240);
+
+        assertTrue(archivo.getFileName().toString().endsWith("-240.jpg"));
+        BufferedImage miniatura = ImageIO.read(archivo.toFile());
+        assertEquals(240, miniatura.getWidth());
+        assertEquals(360, miniatura.getHeight());
+        // La segunda vez ya esta en disco
+        assertEquals(archivo, miniaturas.resolver(ruta, 240));
+    }
+
+    @Test
+    public void testMedida_LaMasCercanaQueNoQuedeChica() {
+        assertEquals(120, miniaturas.medida(1));
+        assertEquals(120, miniaturas.medida(120));
+        assertEquals(240, miniaturas.medida(121));
+        assertEquals(480, miniaturas.medida(2000));
+    }
+
+    @Test
+    public void testResolver_NoAgranda() throws IOException {
+        String ruta = almacen.guardar(png(100, 150));
+
+        BufferedImage miniatura = ImageIO.read(miniaturas.resolver(ruta, 480).toFile());
+
+        assertEquals(100, miniatura.getWidth());
+        assertEquals(150, miniatura.getHeight());
+    }
+
+    @Test
+    public void testResolver_FormatoSinDecodificador_SirveElOriginal() throws IOException {
+        // Cabecera WEBP valida para el almacen, pero el JDK no la puede leer
+        byte[] webp = {'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P', 1, 2, 3};
+        String ruta = almacen.guardar(new ByteArrayInputStream(webp));
+
+        assertEquals(almacen.archivo(ruta), miniaturas.resolver(ruta, 240));
+    }
+
+    @Test
+    public void testResolver_Inexistente() {
+        assertNull(miniaturas.resolver("portadas/no-existe.png", 240));
+        assertNull(miniaturas.resolver("../fuera.png", 240));
+    }
+
+    @Test
+    public void testResolver_PedidosSimultaneosUnaSolaGeneracion() throws Exception {
+        AtomicInteger generaciones = new AtomicInteger();
+        MiniaturasPortadas contando = new MiniaturasPortadas(almacen, new int[]{120, 240}, 2, 10, 5000) {
+            @Override
+            Path escalar(Path original, int medida, Path destino) throws IOException {
+                if (!Files.exists(destino)) generaciones.incrementAndGet();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.escalar(original, medida, destino);
+            }
+        };
+        String ruta = almacen.guardar(png(800, 1200));
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Path>> pedidos = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                pedidos.add(pool.submit(() -> {
+                    salida.await();
+                    return contando.resolver(ruta, 200);
+                }));
+            }
+            salida.countDown();
+            for (Future<Path> pedido : pedidos) {
+                assertTrue(pedido.get().getFileName().toString().endsWith("-240.jpg"));
+            }
+        } finally {
+            pool.shutdown();
+            contando.detener();
+        }
+        assertEquals(1, generaciones.get());
+    }
+
+    @Test
+    public void testLiberar_BorraLasMiniaturas() throws IOException {
+        String ruta = almacen.guardar(png(600, 900));
+        Path miniatura = miniaturas.resolver(ruta, 120);
+        when(libroRepository.countByPortadaIn(anyCollection())).thenReturn(0L);
+
+        assertTrue(almacen.liberar(ruta));
+
+        assertFalse(Files.exists(miniatura));
+    }
+
+    private static ByteArrayInputStream png(int ancho, int alto) throws IOException {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < alto; y++) {
+            for (int x = 0; x < ancho; x++) {
+                imagen.setRGB(x, y, 0xFF000000 | (x * 255 / ancho) << 16 | (y * 255 / alto) << 8);
+            }
+        }
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", salida);
+        return new ByteArrayInputStream(salida.toByteArray());
+    }
+}
@@ -0,0 +1,96 @@
+package com.distribuida.service.util;
+
+import com.distribuida.model.Autor;
+import com.distribuida.model.Carrito;
+import com.distribuida.model.CarritoItem;
+import com.distribuida.model.Libro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ETagsTestUnitaria {
+
+    private Libro libro;
+
+    @BeforeEach
+    public void setUp() {
+        libro = libro();
+    }
+
+    @Test
+    public void testDeLibro_MismoContenidoMismaEtiqueta() {
+        assertEquals(ETags.deLibro(libro), ETags.deLibro(libro()));
+        assertTrue(ETags.deLibro(libro).matches("\"l-[0-9a-f]+\""));
+    }
+
+    @Test
+    public void testDeLibro_CambiaConStockYAutor() {
+        String original = ETags.deLibro(libro);
+
+        libro.setNumEjemplares(4);
+        String sinStock = ETags.deLibro(libro);
+        assertNotEquals(original, sinStock);
+
+        libro.getAutor().setNombre("Julio Florencio");
+        assertNotEquals(sinStock, ETags.deLibro(libro));
+    }
+
+    @Test
+    public void testDeLibro_SeparaLosCampos() {
+        Libro otro = libro();
+        libro.setTitulo("ab");
+        libro.setEditorial("c");
+        otro.setTitulo("a");
+        otro.setEditorial("bc");
+        assertNotEquals(ETags.deLibro(libro), ETags.deLibro(otro));
+    }
+
+    @Test
+    public void testDeCarrito_CambiaConLasLineas() {
+        Carrito carrito = new Carrito();
+        carrito.setToken("token-123");
+        carrito.setVersion(3L);
+        String vacio = ETags.deCarrito(carrito);
+
+        CarritoItem item = new CarritoItem();
+        item.setIdCarritoItem(-1L);
+        item.setLibro(libro);
+        item.setCantidad(1);
+        item.setPrecioUnitario(new BigDecimal("10.00"));
+        carrito.getItems().add(item);
+        String unaLinea = ETags.deCarrito(carrito);
+        assertNotEquals(vacio, unaLinea);
+
+        // Misma version, otra cantidad: la etiqueta tiene que cambiar igual
+        item.setCantidad(2);
+        assertNotEquals(unaLinea, ETags.deCarrito(carrito));
+    }
+
+    @Test
+    public void testCoincide() {
+        String etag = "\"c-1a2b\"";
+        assertTrue(ETags.coincide(etag, etag));
+        assertTrue(ETags.coincide("W/" + etag, etag));
+        assertTrue(ETags.coincide("\"otra\", " + etag, etag));
+        assertTrue(ETags.coincide("*", etag));
+        assertFalse(ETags.coincide("\"otra\"", etag));
+        assertFalse(ETags.coincide(null, etag));
+    }
+
+    private static Libro libro() {
+        Autor autor = new Autor();
+        autor.setIdAutor(1);
+        autor.setNombre("Julio");
+        autor.setApellido("Cortázar");
+        Libro libro = new Libro();
+        libro.setIdLibro(7);
+        libro.setTitulo("Rayuela");
+        libro.setNumEjemplares(5);
+        libro.setPrecio(18.5);
+        libro.setAutor(autor);
+        return libro;
+    }
+}
@@ -0,0 +1,42 @@
+-- Datos fijos de las pruebas de integracion con -Pperfil=h2 (en lugar de los sinteticos de db/datos/h2).
+-- Las pruebas buscan, actualizan y borran por id: las referencias (libros, facturas, detalles) apuntan
+-- solo a los primeros ids, asi los que se borran (autor 55, categoria 58, cliente 39, libro 79,
+-- factura 87, detalle 210) no tienen filas que dependan de ellos.
+
+insert into categoria (id_categoria, categoria, descripcion)
+select x, 'Categoria ' || x, 'Descripcion de la categoria ' || x from system_range(1, 60);
+
+insert into autor (id_autor, nombre, apellido, pais, direccion, telefono, correo)
+select x, 'Nombre' || x, 'Apellido' || x, 'Ecuador', 'Quito', '099' || lpad(x, 7, '0'), 'autor' || x || '@correo.com'
+from system_range(1, 60);
+
+insert into cliente (id_cliente, cedula, nombre, apellido, direccion, telefono, correo)
+select x, lpad(x, 10, '0'), 'Nombre' || x, 'Apellido' || x, 'Quito', '098' || lpad(x, 7, '0'), 'cliente' || x || '@correo.com'
+from system_range(1, 50);
+
+insert into libro (id_libro, titulo, editorial, num_paginas, edicion, idioma, fecha_publicacion, descripcion,
+                   tipo_pasta, isbn, num_ejemplares, portada, presentacion, precio, id_categoria, id_autor)
+select x, 'Libro ' || x, 'Editorial Distribuida', 100 + x, '1ra', 'Español', timestamp '2024-01-01 00:00:00',
+       'Descripcion del libro ' || x, 'Blanda', '978' || lpad(x, 10, '0'), 1000, null, 'Impreso', 10.0 + x,
+       1 + mod(x, 12), 1 + mod(x, 10)
+from system_range(1, 80);
+
+insert into factura (id_factura, num_factura, fecha, total_neto, iva, total, id_cliente)
+select x, 'F-' || lpad(x, 8, '0'), timestamp '2024-06-01 00:00:00', 100.0, 15.0, 115.0, 1 + mod(x, 10)
+from system_range(1, 90);
+
+insert into factura_detalle (id_factura_detalle, cantidad, subtotal, id_libro, id_factura)
+select x, 1, 11.0, 1 + mod(x, 10), 1 + mod(x, 10) from system_range(1, 220);
+
+insert into carrito (id_carrito, id_cliente, token, version, subtotal, descuento, impuestos, total)
+values (1, 1, 'carrito-prueba-1', 0, 0, 0, 0, 0);
+
+insert into factura_numerador (nombre, siguiente) values ('factura', 91);
+
+alter table categoria alter column id_categoria restart with 61;
+alter table autor alter column id_autor restart with 61;
+alter table cliente alter column id_cliente restart with 51;
+alter table libro alter column id_libro restart with 81;
+alter table factura alter column id_factura restart with 91;
+alter table factura_detalle alter column id_factura_detalle restart with 221;
+alter table carrito alter column id_carrito restart with 2;
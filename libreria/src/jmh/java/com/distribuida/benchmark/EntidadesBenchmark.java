@@ -0,0 +1,95 @@
+package com.distribuida.benchmark;
+
+import com.distribuida.entities.Autor;
+import com.distribuida.entities.Categoria;
+import com.distribuida.entities.Cliente;
+import com.distribuida.entities.Factura;
+import com.distribuida.entities.FacturaDetalle;
+import com.distribuida.entities.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Entidades de la libreria: armar una factura de n detalles, sumar sus totales y el toString
+// (que incluye libro, factura y cliente de cada detalle)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EntidadesBenchmark {
+
+    private static final double IVA = 0.15d;
+
+    @Param({"1", "10", "50", "200"})
+    private int detalles;
+
+    private Cliente cliente;
+    private Libro[] libros;
+    private Factura factura;
+    private List<FacturaDetalle> armados;
+
+    @Setup
+    public void setUp() {
+        cliente = new Cliente(1, "1700000001", "Ana", "Av. Amazonas", "Torres", "0999999999", "ana@correo.com");
+        Categoria categoria = new Categoria(1, "Novela", "Narrativa contemporanea");
+        Autor autor = new Autor(1, "Gabriel", "Garcia", "Colombia", "Aracataca", "0000000", "gabo@correo.com");
+        libros = new Libro[detalles];
+        for (int i = 0; i < detalles; i++) {
+            libros[i] = new Libro(i + 1, "Libro " + (i + 1), "Editorial Distribuida", 200 + i, "1ra", "Espanol",
+                    new Date(1_600_000_000_000L), "Descripcion " + (i + 1), "Blanda", "978-0-" + (i + 1), 10,
+                    "portadas/" + (i + 1) + ".jpg", "Impreso", 9.99 + i % 40, categoria, autor);
+        }
+        factura = facturar();
+        armados = detalles(factura);
+    }
+
+    @Benchmark
+    public Factura facturaConDetalles(Blackhole bh) {
+        Factura nueva = facturar();
+        List<FacturaDetalle> lineas = detalles(nueva);
+        double neto = 0;
+        for (FacturaDetalle detalle : lineas) {
+            neto += detalle.getSubtotal();
+        }
+        nueva.setTotalNeto(neto);
+        nueva.setIva(neto * IVA);
+        nueva.setTotal(neto + neto * IVA);
+        bh.consume(lineas);
+        return nueva;
+    }
+
+    @Benchmark
+    public void toStringDetalles(Blackhole bh) {
+        for (FacturaDetalle detalle : armados) {
+            bh.consume(detalle.toString());
+        }
+    }
+
+    private Factura facturar() {
+        Factura nueva = new Factura();
+        nueva.setIdFactura(1);
+        nueva.setNumFactura("F-0000000001");
+        nueva.setFecha(new Date());
+        nueva.setCliente(cliente);
+        return nueva;
+    }
+
+    private List<FacturaDetalle> detalles(Factura destino) {
+        List<FacturaDetalle> lineas = new ArrayList<>(libros.length);
+        for (int i = 0; i < libros.length; i++) {
+            int cantidad = 1 + i % 3;
+            lineas.add(new FacturaDetalle(i + 1, cantidad, cantidad * libros[i].getPrecio(), libros[i], destino));
+        }
+        return lineas;
+    }
+}